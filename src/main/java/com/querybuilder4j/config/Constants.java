@@ -14,6 +14,39 @@ public class Constants {
 
     public static final String DATABASE_TYPE = "databaseType";
 
+    /**
+     * The major version of the database, such as 8 for MySql 8.0.  It is only needed for SQL features that some
+     * versions of a database do not support, such as common table expressions in MySql.
+     */
+    public static final String DATABASE_MAJOR_VERSION = "databaseMajorVersion";
+
+    /**
+     * The maximum number of connections in the built-in ConnectionPool that is used when no DataSource is provided.
+     */
+    public static final String CONNECTION_POOL_SIZE = "connectionPoolSize";
+
+    /**
+     * The largest number of values in one IN list.  Longer lists are split into IN lists joined by OR.
+     */
+    public static final String IN_LIST_MAX_SIZE = "inListMaxSize";
+
+    /**
+     * The number of values above which an IN list is written as a VALUES derived table.
+     */
+    public static final String IN_LIST_VALUES_THRESHOLD = "inListValuesThreshold";
+
+    /**
+     * Whether prepared SQL binds the values of an IN list as one array parameter.  Only PostgreSQL supports this.
+     */
+    public static final String IN_LIST_ARRAY_BINDING = "inListArrayBinding";
+
+    /**
+     * Whether each distinct subquery is written once in a WITH clause and selected from by name wherever it is used,
+     * instead of being written in full each time.  This is ignored if the database does not support common table
+     * expressions.
+     */
+    public static final String SUBQUERIES_AS_COMMON_TABLE_EXPRESSIONS = "subQueriesAsCommonTableExpressions";
+
     /**
      * A constant to be used after a column is split on "." and the resulting array is [table_name, column_name].  In
      * such an array, index 0 returns table_name.
@@ -0,0 +1,322 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.statements.SelectStatement;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A QueryTemplateDao that keeps the query templates of another QueryTemplateDao in a bounded cache, so that a template
+ * is read and deserialized once per change instead of once per subquery of every statement.
+ *
+ * Callers get a deep copy of the cached template, because building a subquery changes its statement, so the cached
+ * template cannot be changed through the returned SelectStatement.  The copy's QueryTemplateDao is this
+ * CachingQueryTemplateDao, so that the templates that a template calls as subqueries are cached too.
+ *
+ * If many threads miss the same template at once, then it is loaded once and every thread gets a copy of it.
+ * getQueryTemplatesByNames() loads the templates that it misses with one call of the other QueryTemplateDao.  Saving a
+ * template through this QueryTemplateDao, or calling invalidate(), removes it from the cache.  A load that overlaps a
+ * save is returned, but not cached, because it may have read the template before it was saved.
+ *
+ * The cache is bounded by maxSize and the least recently used template is evicted first.  getWrappedQueryTemplateDao()
+ * returns the other QueryTemplateDao, so a CachingQueryTemplateDao can wrap a QueryTemplateDao from
+ * SubQueryCache.watch(), whose SubQueryCache is still used, and saving through it invalidates both caches.
+ */
+public final class CachingQueryTemplateDao implements QueryTemplateDao {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final QueryTemplateDao queryTemplateDao;
+
+    /**
+     * The cached templates in access order so that the eldest entry is the least recently used entry.  All access to
+     * this field must be synchronized on this object.
+     */
+    private final LinkedHashMap<String, SelectStatement> queryTemplates = new LinkedHashMap<String, SelectStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SelectStatement> eldest) {
+            if (size() > maxSize) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * The loads in progress by template name.  Threads that miss a template that is being loaded wait for its load.
+     */
+    private final Map<String, CompletableFuture<SelectStatement>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * The version of each template, which is incremented when the template is invalidated.
+     */
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    private volatile int maxSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public CachingQueryTemplateDao(QueryTemplateDao queryTemplateDao) {
+        this(queryTemplateDao, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param queryTemplateDao The QueryTemplateDao to load and save query templates with.
+     * @param maxSize The maximum number of query templates to cache.
+     */
+    public CachingQueryTemplateDao(QueryTemplateDao queryTemplateDao, int maxSize) {
+        if (queryTemplateDao == null) { throw new IllegalArgumentException("queryTemplateDao cannot be null"); }
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+
+        this.queryTemplateDao = queryTemplateDao;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a copy of a query template, loading it if it is not cached.
+     *
+     * @param name The name of the query template.
+     * @return A copy of the query template or null if the other QueryTemplateDao has no template with the name.
+     */
+    @Override
+    public SelectStatement getQueryTemplateByName(String name) {
+        SelectStatement queryTemplate;
+        synchronized (this) {
+            queryTemplate = queryTemplates.get(name);
+        }
+        if (queryTemplate != null) {
+            hitCount.incrementAndGet();
+            return copy(queryTemplate);
+        }
+
+        missCount.incrementAndGet();
+        queryTemplate = loadAll(Collections.singleton(name)).get(name);
+        return (queryTemplate == null) ? null : copy(queryTemplate);
+    }
+
+    /**
+     * Returns copies of many query templates, loading the templates that are not cached with one call of the other
+     * QueryTemplateDao's getQueryTemplatesByNames().
+     *
+     * @param names The names of the query templates.
+     * @return Copies of the query templates by name.  A name that has no query template is not in the Map.
+     */
+    @Override
+    public Map<String, SelectStatement> getQueryTemplatesByNames(Collection<String> names) {
+        Map<String, SelectStatement> foundTemplates = new HashMap<>();
+        Set<String> missingNames = new LinkedHashSet<>();
+        synchronized (this) {
+            for (String name : names) {
+                SelectStatement queryTemplate = queryTemplates.get(name);
+                if (queryTemplate != null) {
+                    foundTemplates.put(name, queryTemplate);
+                } else {
+                    missingNames.add(name);
+                }
+            }
+        }
+        hitCount.addAndGet(foundTemplates.size());
+        missCount.addAndGet(missingNames.size());
+        if (! missingNames.isEmpty()) {
+            foundTemplates.putAll(loadAll(missingNames));
+        }
+
+        Map<String, SelectStatement> copies = new LinkedHashMap<>();
+        for (String name : names) {
+            SelectStatement queryTemplate = foundTemplates.get(name);
+            if (queryTemplate != null) {
+                copies.put(name, copy(queryTemplate));
+            }
+        }
+        return copies;
+    }
+
+    @Override
+    public boolean save(String primaryKey, String json) {
+        try {
+            return queryTemplateDao.save(primaryKey, json);
+        } finally {
+            invalidate(primaryKey);
+        }
+    }
+
+    @Override
+    public List<String> getNames(Integer limit, Integer offset, boolean ascending) throws Exception {
+        return queryTemplateDao.getNames(limit, offset, ascending);
+    }
+
+    @Override
+    public QueryTemplateDao getWrappedQueryTemplateDao() {
+        return queryTemplateDao;
+    }
+
+    /**
+     * Removes a query template from the cache.  The next call of getQueryTemplateByName() loads it again.
+     *
+     * @param name The name of the query template.
+     */
+    public void invalidate(String name) {
+        versions.merge(name, 1L, Long::sum);
+        loads.remove(name);
+        synchronized (this) {
+            queryTemplates.remove(name);
+        }
+    }
+
+    /**
+     * Removes every query template from the cache.
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            for (String name : queryTemplates.keySet()) {
+                versions.merge(name, 1L, Long::sum);
+            }
+            queryTemplates.clear();
+        }
+        for (String name : loads.keySet()) {
+            versions.merge(name, 1L, Long::sum);
+            loads.remove(name);
+        }
+    }
+
+    public synchronized int size() {
+        return queryTemplates.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of query templates to cache.  If the cache holds more than maxSize templates, then the
+     * least recently used templates are evicted.
+     *
+     * @param maxSize The maximum number of query templates.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+
+        this.maxSize = maxSize;
+        while (queryTemplates.size() > maxSize) {
+            String eldest = queryTemplates.keySet().iterator().next();
+            queryTemplates.remove(eldest);
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Resets the hit, miss, and eviction counters to 0.
+     */
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "Cache of " + size() + "/" + maxSize + " templates from " + queryTemplateDao;
+    }
+
+    /**
+     * Loads query templates from the other QueryTemplateDao, or waits for the loads that other threads started.  The
+     * templates that no other thread is loading are loaded with one call, which is getQueryTemplateByName() if there is
+     * one of them and getQueryTemplatesByNames() if there are more.
+     *
+     * @return The loaded query templates by name.  A name that has no query template is not in the Map.
+     */
+    private Map<String, SelectStatement> loadAll(Collection<String> names) {
+        Map<String, CompletableFuture<SelectStatement>> ownLoads = new LinkedHashMap<>();
+        Map<String, CompletableFuture<SelectStatement>> otherLoads = new LinkedHashMap<>();
+        for (String name : names) {
+            CompletableFuture<SelectStatement> load = new CompletableFuture<>();
+            CompletableFuture<SelectStatement> existingLoad = loads.putIfAbsent(name, load);
+            if (existingLoad == null) {
+                ownLoads.put(name, load);
+            } else if (! ownLoads.containsKey(name)) {
+                otherLoads.put(name, existingLoad);
+            }
+        }
+
+        Map<String, SelectStatement> loadedTemplates = new HashMap<>();
+        if (! ownLoads.isEmpty()) {
+            Map<String, Long> loadVersions = new HashMap<>();
+            for (String name : ownLoads.keySet()) {
+                loadVersions.put(name, versions.getOrDefault(name, 0L));
+            }
+
+            try {
+                if (ownLoads.size() == 1) {
+                    String name = ownLoads.keySet().iterator().next();
+                    loadedTemplates.put(name, queryTemplateDao.getQueryTemplateByName(name));
+                } else {
+                    loadedTemplates.putAll(queryTemplateDao.getQueryTemplatesByNames(ownLoads.keySet()));
+                }
+                loadedTemplates.keySet().retainAll(ownLoads.keySet());
+                loadedTemplates.values().removeIf(Objects::isNull);
+
+                synchronized (this) {
+                    loadedTemplates.forEach((name, queryTemplate) -> {
+                        if (versions.getOrDefault(name, 0L).equals(loadVersions.get(name))) {
+                            queryTemplates.put(name, queryTemplate);
+                        }
+                    });
+                }
+                ownLoads.forEach((name, load) -> load.complete(loadedTemplates.get(name)));
+            } catch (RuntimeException e) {
+                ownLoads.values().forEach(load -> load.completeExceptionally(e));
+                throw e;
+            } finally {
+                ownLoads.forEach(loads::remove);
+            }
+        }
+
+        for (Map.Entry<String, CompletableFuture<SelectStatement>> otherLoad : otherLoads.entrySet()) {
+            SelectStatement queryTemplate;
+            try {
+                queryTemplate = otherLoad.getValue().join();
+            } catch (CompletionException e) {
+                throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+            }
+            if (queryTemplate != null) {
+                loadedTemplates.put(otherLoad.getKey(), queryTemplate);
+            }
+        }
+        return loadedTemplates;
+    }
+
+    private SelectStatement copy(SelectStatement queryTemplate) {
+        SelectStatement copy = queryTemplate.copy();
+        copy.setQueryTemplateDao(this);
+        return copy;
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.exceptions.ColumnNameNotFoundException;
+import com.querybuilder4j.exceptions.DataTypeNotFoundException;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable index of the columns of a set of tables.  Every table and column is given an int id, and the JDBC type
+ * and quoting flag of every column are stored in primitive arrays indexed by the column id.  None of the lookup methods
+ * allocate, including the lookup of a "table.column" String.
+ */
+public final class ColumnCatalog {
+
+    private final String[] tableNames;
+
+    private final TableSchema[] tableSchemas;
+
+    /**
+     * The column id of the first column of each table.  The column ids of table i are tableOffsets[i] (inclusive) to
+     * tableOffsets[i + 1] (exclusive).
+     */
+    private final int[] tableOffsets;
+
+    private final int[] columnTypes;
+
+    private final byte[] columnQuoting;
+
+    /**
+     * @param tableSchemas A Map with the keys being table names and the values being the tables' schemas.
+     */
+    public ColumnCatalog(Map<String, TableSchema> tableSchemas) {
+        this.tableNames = new String[tableSchemas.size()];
+        int i = 0;
+        for (String table : tableSchemas.keySet()) {
+            this.tableNames[i++] = table.intern();
+        }
+        Arrays.sort(this.tableNames);
+
+        this.tableSchemas = new TableSchema[tableNames.length];
+        this.tableOffsets = new int[tableNames.length + 1];
+        for (int t=0; t<tableNames.length; t++) {
+            this.tableSchemas[t] = tableSchemas.get(tableNames[t]);
+            this.tableOffsets[t + 1] = this.tableOffsets[t] + this.tableSchemas[t].size();
+        }
+
+        int numberOfColumns = this.tableOffsets[tableNames.length];
+        this.columnTypes = new int[numberOfColumns];
+        this.columnQuoting = new byte[numberOfColumns];
+        for (int t=0; t<tableNames.length; t++) {
+            TableSchema tableSchema = this.tableSchemas[t];
+            for (int c=0; c<tableSchema.size(); c++) {
+                this.columnTypes[tableOffsets[t] + c] = tableSchema.getColumnType(c);
+                this.columnQuoting[tableOffsets[t] + c] = tableSchema.getQuoting(c);
+            }
+        }
+    }
+
+    public int getNumberOfTables() {
+        return tableNames.length;
+    }
+
+    public int getNumberOfColumns() {
+        return columnTypes.length;
+    }
+
+    /**
+     * Returns the id of a table or -1 if the catalog does not have the table.
+     *
+     * @param table The table name.
+     * @return int
+     */
+    public int getTableId(String table) {
+        return (table == null) ? -1 : getTableId(table, 0, table.length());
+    }
+
+    /**
+     * Returns the id of a column or -1 if the catalog does not have the table or the table does not have the column.
+     *
+     * @param table The table name.
+     * @param column The column name.
+     * @return int
+     */
+    public int getColumnId(String table, String column) {
+        int tableId = getTableId(table);
+        if (tableId == -1 || column == null) {
+            return -1;
+        }
+
+        return toColumnId(tableId, tableSchemas[tableId].indexOf(column));
+    }
+
+    /**
+     * Returns the id of a column in "table.column" format or -1 if the column is not in that format, the catalog does not
+     * have the table, or the table does not have the column.
+     *
+     * @param fullyQualifiedName The column in "table.column" format.
+     * @return int
+     */
+    public int getColumnId(String fullyQualifiedName) {
+        if (fullyQualifiedName == null) {
+            return -1;
+        }
+
+        int dotIndex = fullyQualifiedName.indexOf('.');
+        if (dotIndex == -1 || dotIndex != fullyQualifiedName.lastIndexOf('.')) {
+            return -1;
+        }
+
+        int tableId = getTableId(fullyQualifiedName, 0, dotIndex);
+        if (tableId == -1) {
+            return -1;
+        }
+
+        int index = tableSchemas[tableId].indexOf(fullyQualifiedName, dotIndex + 1, fullyQualifiedName.length());
+        return toColumnId(tableId, index);
+    }
+
+    public String getTableName(int tableId) {
+        return tableNames[tableId];
+    }
+
+    public TableSchema getTableSchema(int tableId) {
+        return tableSchemas[tableId];
+    }
+
+    public int getColumnType(int columnId) {
+        return columnTypes[columnId];
+    }
+
+    /**
+     * Returns whether filters for the column should be wrapped in single quotes.
+     *
+     * @param columnId The column id.
+     * @return boolean
+     * @throws DataTypeNotFoundException If the column's JDBC type is not in Constants.TYPE_MAPPINGS.
+     */
+    public boolean isQuoted(int columnId) throws DataTypeNotFoundException {
+        byte quoting = columnQuoting[columnId];
+        if (quoting == TableSchema.UNKNOWN_TYPE) {
+            throw new DataTypeNotFoundException(String.format("Data type, %s, is not recognized", columnTypes[columnId]));
+        }
+        return quoting == TableSchema.QUOTED;
+    }
+
+    /**
+     * Returns the id of a column, throwing an exception if the catalog does not have the column.
+     *
+     * @param table The table name.
+     * @param column The column name.
+     * @return int
+     * @throws ColumnNameNotFoundException If the catalog does not have the table or the table does not have the column.
+     */
+    public int getRequiredColumnId(String table, String column) throws ColumnNameNotFoundException {
+        int columnId = getColumnId(table, column);
+        if (columnId == -1) {
+            throw new ColumnNameNotFoundException("Could not find column:  " + column);
+        }
+        return columnId;
+    }
+
+    /**
+     * Returns the id of a column in "table.column" format, throwing an exception if the catalog does not have the column.
+     *
+     * @param fullyQualifiedName The column in "table.column" format.
+     * @return int
+     * @throws ColumnNameNotFoundException If the column is not in "table.column" format, the catalog does not have the
+     *                                     table, or the table does not have the column.
+     */
+    public int getRequiredColumnId(String fullyQualifiedName) throws ColumnNameNotFoundException {
+        int columnId = getColumnId(fullyQualifiedName);
+        if (columnId == -1) {
+            throw new ColumnNameNotFoundException("Could not find column:  " + fullyQualifiedName);
+        }
+        return columnId;
+    }
+
+    private int getTableId(String s, int beginIndex, int endIndex) {
+        int low = 0;
+        int high = tableNames.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = TableSchema.compareRegion(s, beginIndex, endIndex, tableNames[mid]);
+
+            if (comparison > 0) {
+                low = mid + 1;
+            } else if (comparison < 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    private int toColumnId(int tableId, int index) {
+        return (index == -1) ? -1 : tableOffsets[tableId] + index;
+    }
+
+}
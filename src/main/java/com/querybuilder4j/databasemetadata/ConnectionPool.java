@@ -0,0 +1,335 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.config.Constants;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * A small, bounded DataSource for callers that only have a Properties object with the database url, username, and
+ * password.  At most maxSize connections are open at one time.  Closing a connection that was borrowed from the pool
+ * returns it to the pool instead of closing it.
+ *
+ * Applications that already have a pooled DataSource should pass that DataSource to SelectStatement.toSql() or
+ * DatabaseMetaData instead of using this class.
+ */
+public class ConnectionPool implements DataSource {
+
+    public static final int DEFAULT_MAX_SIZE = 4;
+
+    /**
+     * How long an idle connection can sit in the pool before it is validated again when it is borrowed.
+     */
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * The pools created by forProperties() with the key being the database url and username.
+     */
+    private static final Map<String, ConnectionPool> POOLS = new ConcurrentHashMap<>();
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<IdleConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private volatile int loginTimeout = 30;
+    private volatile PrintWriter logWriter;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password, int maxSize) {
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Returns the process-wide pool for the database url and username in the properties parameter, creating it if it
+     * does not exist yet.  The pool's size is read from the connectionPoolSize property.
+     *
+     * If the pool exists, but was created with another password or size, such as after the password is rotated, then
+     * it is closed and replaced by a new pool.  Connections that were borrowed from the old pool keep working and are
+     * closed when they are returned.
+     *
+     * @param properties The database connection properties.
+     * @return ConnectionPool
+     */
+    public static ConnectionPool forProperties(Properties properties) {
+        String url = properties.getProperty(Constants.DATABASE_URL);
+        String username = properties.getProperty(Constants.DATABASE_USERNAME);
+        String password = properties.getProperty(Constants.DATABASE_PASSWORD);
+        String poolSize = properties.getProperty(Constants.CONNECTION_POOL_SIZE);
+        int maxSize = (poolSize == null) ? DEFAULT_MAX_SIZE : Integer.parseInt(poolSize);
+
+        return POOLS.compute(url + "|" + username, (key, pool) -> {
+            if (pool != null && !pool.isClosed() && Objects.equals(pool.password, password) && pool.maxSize == maxSize) {
+                return pool;
+            }
+            if (pool != null) {
+                pool.close();
+            }
+            return new ConnectionPool(url, username, password, maxSize);
+        });
+    }
+
+    /**
+     * Closes the idle connections of every pool created by forProperties() and forgets the pools.  This is intended to
+     * be called when the application shuts down.
+     */
+    public static void closeAll() {
+        POOLS.values().forEach(ConnectionPool::close);
+        POOLS.clear();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new connection if there are no idle connections.  If maxSize
+     * connections are already borrowed, then this method waits up to loginTimeout seconds for one to be returned.
+     *
+     * @return Connection
+     * @throws SQLException If the pool is closed or a connection could not be borrowed in time or could not be opened.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool for " + url + " is closed");
+        }
+
+        try {
+            if (! permits.tryAcquire(loginTimeout, TimeUnit.SECONDS)) {
+                throw new SQLException(String.format("Timed out waiting for a connection to %s.  All %s connections are in use.",
+                        url, maxSize));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection to " + url, ex);
+        }
+
+        try {
+            return wrap(borrowIdleConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("ConnectionPool only opens connections with the pool's own credentials");
+    }
+
+    /**
+     * Closes the pool and every idle connection in it.  Borrowed connections are closed when they are returned, and
+     * getConnection() throws an SQLException.
+     */
+    public void close() {
+        closed = true;
+        closeIdleConnections();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void closeIdleConnections() {
+        IdleConnection idleConnection;
+        while ((idleConnection = idleConnections.pollFirst()) != null) {
+            closeQuietly(idleConnection.connection);
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ConnectionPool does not wrap " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private Connection borrowIdleConnection() throws SQLException {
+        IdleConnection idleConnection;
+        while ((idleConnection = idleConnections.pollFirst()) != null) {
+            if (isUsable(idleConnection)) {
+                return idleConnection.connection;
+            }
+            closeQuietly(idleConnection.connection);
+        }
+
+        return DriverManager.getConnection(url, username, password);
+    }
+
+    private boolean isUsable(IdleConnection idleConnection) {
+        try {
+            if (idleConnection.connection.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - idleConnection.idleSinceMillis > VALIDATE_AFTER_IDLE_MILLIS) {
+                return idleConnection.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            }
+            return true;
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a connection to the pool.  If the connection was left in a transaction, then the transaction is rolled
+     * back.  If the connection cannot be reset or the pool is closed, then it is closed instead of being returned.
+     */
+    private void release(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                return;
+            }
+            if (closed) {
+                closeQuietly(connection);
+                return;
+            }
+
+            if (! connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+
+            idleConnections.offerFirst(new IdleConnection(connection, System.currentTimeMillis()));
+
+            // The pool may have been closed after it was checked, and then its idle connections were closed before
+            // this one was added.
+            if (closed) {
+                closeIdleConnections();
+            }
+        } catch (SQLException ex) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new PooledConnectionHandler(connection));
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) { }
+    }
+
+
+    /**
+     * Intercepts close() so that the connection is returned to the pool.  Every other method is passed through to the
+     * real connection.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private boolean closed;
+
+        private PooledConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (! closed) {
+                        closed = true;
+                        release(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + connection;
+                default:
+                    if (closed) { throw new SQLException("Connection is closed"); }
+            }
+
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long idleSinceMillis;
+
+        private IdleConnection(Connection connection, long idleSinceMillis) {
+            this.connection = connection;
+            this.idleSinceMillis = idleSinceMillis;
+        }
+    }
+}
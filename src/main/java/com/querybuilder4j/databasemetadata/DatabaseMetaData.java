@@ -3,17 +3,51 @@ package com.querybuilder4j.databasemetadata;
 import com.querybuilder4j.config.Constants;
 import com.querybuilder4j.statements.DatabaseType;
 import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.utils.BackgroundExecutor;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class DatabaseMetaData {
 
+    /**
+     * The number of tables whose schemas are loaded in one bulk call by warmUp().
+     */
+    public static final int WARM_UP_CHUNK_SIZE = 100;
+
     private final Properties properties;
 
+    /**
+     * The DataSource that table schemas are loaded with.  If a DataSource is not provided, then this is the process-wide
+     * ConnectionPool for the database url and username in properties.
+     */
+    private final DataSource dataSource;
+
+    /**
+     * The DataSource passed to the constructor, which may be null.
+     */
+    private final DataSource providedDataSource;
+
     private TablesMetaData tablesMetaData = new TablesMetaData();
 
     public DatabaseMetaData(Properties properties, SelectStatement stmt) {
+        this(properties, null, stmt);
+    }
+
+    /**
+     * @param properties The database properties.  The databaseType property is required.  The url, username, and
+     *                   password properties are only required if dataSource is null.
+     * @param dataSource The DataSource to load table schemas with.  If null, then the process-wide ConnectionPool for the
+     *                   database url and username in properties is used.
+     * @param stmt The SelectStatement whose tables' schemas should be loaded.
+     */
+    public DatabaseMetaData(Properties properties, DataSource dataSource, SelectStatement stmt) {
         this.properties = properties;
+        this.providedDataSource = dataSource;
+        this.dataSource = (dataSource == null) ? ConnectionPool.forProperties(properties) : dataSource;
 
         // Create list with all columns in it - from both columns and criteria collections.
 //        List<String> allColumns = new ArrayList<>();
@@ -27,6 +61,25 @@ public class DatabaseMetaData {
         return properties;
     }
 
+    /**
+     * Returns the DataSource that table schemas are loaded with.  Callers can use it to execute the generated SQL, so
+     * that metadata and execution share the same connections.
+     *
+     * @return DataSource
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Returns the DataSource that was passed to the constructor or null if one was not passed.
+     *
+     * @return DataSource
+     */
+    public DataSource getProvidedDataSource() {
+        return providedDataSource;
+    }
+
     public TablesMetaData getTablesMetaData() {
         return tablesMetaData;
     }
@@ -38,10 +91,15 @@ public class DatabaseMetaData {
     /**
      * Gets all table schemas for the tables included in the columns and criteria parameters.
      * The function assumes that the columns are in the "table.column" format.
+     *
+     * Table schemas are read from the process-wide MetaDataCache first.  The schemas of all tables that are not cached
+     * (or whose cache entry has expired) are then loaded from the database in one bulk call.
      */
     //todo:  are columns needed in tablesAndColumns?  Only the table is used in the method.
     private void setTablesMetaData(List<String> tablesAndColumns) {
-        MetaDataDaoImpl metaDataDao = new MetaDataDaoImpl(properties);
+        MetaDataCache metaDataCache = MetaDataCache.getInstance();
+        String url = getMetaDataCacheKey();
+        Set<String> uncachedTables = new LinkedHashSet<>();
 
         for (String col : tablesAndColumns){
             String[] tableAndColumn = col.split("\\.");
@@ -52,28 +110,190 @@ public class DatabaseMetaData {
             }
 
             String table = tableAndColumn[0];
-            if (! this.tablesMetaData.getTableColumnsTypes().containsKey(table)) {
-                Map<String, Integer> tableSchema = metaDataDao.getTableSchema(table);
-                this.tablesMetaData.getTableColumnsTypes().put(table, tableSchema);
+            if (! this.tablesMetaData.containsTable(table) && ! uncachedTables.contains(table)) {
+                TableSchema tableSchema = metaDataCache.get(url, table);
+
+                if (tableSchema == null) {
+                    uncachedTables.add(table);
+                } else {
+                    this.tablesMetaData.putTableSchema(table, tableSchema);
+                }
             }
         }
+
+        if (! uncachedTables.isEmpty()) {
+            MetaDataDaoImpl metaDataDao = new MetaDataDaoImpl(properties, dataSource);
+            Map<String, Map<String, Integer>> tableSchemas = metaDataDao.getTableSchemas(uncachedTables);
+
+            tableSchemas.forEach((table, columnTypes) -> {
+                TableSchema tableSchema = new TableSchema(columnTypes);
+                metaDataCache.put(url, table, tableSchema);
+                this.tablesMetaData.putTableSchema(table, tableSchema);
+            });
+        }
+    }
+
+    /**
+     * Loads the schemas of tables into the MetaDataCache in the background, so that the first statements that use the
+     * tables do not have to wait for their metadata.  Tables that are already cached are skipped.  The rest are split
+     * into chunks of WARM_UP_CHUNK_SIZE tables and each chunk is loaded in one bulk call, with at most
+     * connectionPoolSize (or ConnectionPool.DEFAULT_MAX_SIZE) chunks being loaded at one time.
+     *
+     * @param properties The database properties.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @param tables The table names.
+     * @return A CompletableFuture that completes when every table's schema is cached.  Readiness checks can wait on it.
+     */
+    public static CompletableFuture<Void> warmUp(Properties properties, DataSource dataSource, Collection<String> tables) {
+        MetaDataCache metaDataCache = MetaDataCache.getInstance();
+        String url = getMetaDataCacheKey(properties, dataSource);
+
+        List<String> uncachedTables = new ArrayList<>();
+        for (String table : new LinkedHashSet<>(tables)) {
+            if (! metaDataCache.contains(url, table)) {
+                uncachedTables.add(table);
+            }
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i=0; i<uncachedTables.size(); i+=WARM_UP_CHUNK_SIZE) {
+            chunks.add(uncachedTables.subList(i, Math.min(i + WARM_UP_CHUNK_SIZE, uncachedTables.size())));
+        }
+
+        String poolSize = properties.getProperty(Constants.CONNECTION_POOL_SIZE);
+        int maxConcurrency = (poolSize == null) ? ConnectionPool.DEFAULT_MAX_SIZE : Integer.parseInt(poolSize);
+        MetaDataDaoImpl metaDataDao = new MetaDataDaoImpl(properties, dataSource);
+
+        return BackgroundExecutor.forEachBounded(chunks, maxConcurrency, chunk ->
+                metaDataDao.getTableSchemas(chunk).forEach((table, tableSchema) -> metaDataCache.put(url, table, tableSchema)));
+    }
+
+    /**
+     * Loads the schemas of every table and view in the database's catalog into the MetaDataCache in the background.
+     * See warmUp().
+     *
+     * @param properties The database properties.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @return A CompletableFuture that completes when every table's schema is cached.
+     */
+    public static CompletableFuture<Void> warmUpAllTables(Properties properties, DataSource dataSource) {
+        return CompletableFuture
+                .supplyAsync(() -> new MetaDataDaoImpl(properties, dataSource).getAllTableNames(), BackgroundExecutor.getInstance())
+                .thenCompose(tables -> warmUp(properties, dataSource, tables));
+    }
+
+    String getMetaDataCacheKey() {
+        return getMetaDataCacheKey(properties, providedDataSource);
+    }
+
+    /**
+     * Returns the key that identifies a database in the MetaDataCache, which is the database url.  If a DataSource
+     * is provided without a url property, then the DataSource's identity is used instead.
+     *
+     * @param properties The database properties.
+     * @param dataSource The DataSource passed by the caller, which may be null.
+     * @return String
+     */
+    public static String getMetaDataCacheKey(Properties properties, DataSource dataSource) {
+        String url = properties.getProperty(Constants.DATABASE_URL);
+        if (url == null && dataSource != null) {
+            return dataSource.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(dataSource));
+        }
+        return url;
     }
 
 
     public class TablesMetaData {
         /**
-         * A Map with the values being the stmt's table columns and the values being their JDBC types.
+         * A Map with the keys being the stmt's tables and the values being their schemas.
          */
-        private Map<String, Map<String, Integer>> tableColumnsTypes = new HashMap<>();
+        private Map<String, TableSchema> tableSchemas = new HashMap<>();
+
+        /**
+         * The ColumnCatalog of tableSchemas, which is built the first time it is needed.
+         */
+        private ColumnCatalog columnCatalog;
+
+        /**
+         * The Map returned by getTableColumnsTypes(), which is built the first time it is needed.
+         */
+        private Map<String, Map<String, Integer>> tableColumnsTypes;
 
         public TablesMetaData() { }
 
+        /**
+         * Returns an unmodifiable Map with the keys being the stmt's tables and the values being unmodifiable Maps of the
+         * tables' column names and JDBC types.  The Map is built the first time it is needed and rebuilt after tables are
+         * added.
+         *
+         * Unlike earlier versions, the returned Map cannot be used to add tables.
+         *
+         * @return Map
+         * @deprecated Use getTableSchemas() to read the tables and putTableSchema() to add them.
+         */
+        @Deprecated
         public Map<String, Map<String, Integer>> getTableColumnsTypes() {
+            if (tableColumnsTypes == null) {
+                Map<String, Map<String, Integer>> tableColumnsTypes = new HashMap<>();
+                tableSchemas.forEach((table, tableSchema) ->
+                        tableColumnsTypes.put(table, Collections.unmodifiableMap(tableSchema.toMap())));
+                this.tableColumnsTypes = Collections.unmodifiableMap(tableColumnsTypes);
+            }
             return tableColumnsTypes;
         }
 
         public void setTableColumnsTypes(Map<String, Map<String, Integer>> tableColumnsTypes) {
-            this.tableColumnsTypes = tableColumnsTypes;
+            Map<String, TableSchema> tableSchemas = new HashMap<>();
+            tableColumnsTypes.forEach((table, columnTypes) -> tableSchemas.put(table, new TableSchema(columnTypes)));
+            this.tableSchemas = tableSchemas;
+            this.columnCatalog = null;
+            this.tableColumnsTypes = null;
+        }
+
+        public Map<String, TableSchema> getTableSchemas() {
+            return Collections.unmodifiableMap(tableSchemas);
+        }
+
+        public boolean containsTable(String table) {
+            return tableSchemas.containsKey(table);
+        }
+
+        public void putTableSchema(String table, TableSchema tableSchema) {
+            tableSchemas.put(table, tableSchema);
+            columnCatalog = null;
+            tableColumnsTypes = null;
+        }
+
+        /**
+         * Returns a ColumnCatalog of the stmt's tables.
+         *
+         * @return ColumnCatalog
+         */
+        public ColumnCatalog getColumnCatalog() {
+            if (columnCatalog == null) {
+                columnCatalog = new ColumnCatalog(tableSchemas);
+            }
+            return columnCatalog;
+        }
+
+        /**
+         * Writes the table schemas to a binary snapshot file.  See SchemaSnapshot for the file format.
+         *
+         * @param path The snapshot file.
+         * @throws IOException If the file cannot be written.
+         */
+        public void writeSnapshot(Path path) throws IOException {
+            SchemaSnapshot.write(getTableColumnsTypes(), path);
+        }
+
+        /**
+         * Reads the table schemas in a binary snapshot file and adds them to the table schemas.
+         *
+         * @param path The snapshot file.
+         * @throws IOException If the file cannot be read or is not a snapshot file.
+         */
+        public void readSnapshot(Path path) throws IOException {
+            SchemaSnapshot.read(path).forEach((table, columnTypes) -> putTableSchema(table, new TableSchema(columnTypes)));
         }
     }
 }
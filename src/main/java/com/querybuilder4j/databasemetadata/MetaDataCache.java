@@ -0,0 +1,323 @@
+package com.querybuilder4j.databasemetadata;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process-wide, thread-safe cache of table schemas.  The key is the database url plus the table name and the value is
+ * the table's compact TableSchema.
+ *
+ * The cache is bounded by maxSize (least recently used entries are evicted first) and each entry expires after
+ * timeToLiveMillis.  Entries can also be invalidated explicitly, for example after a table is altered.
+ *
+ * Each database also has a schema version, which changes whenever a cached table schema of the database is replaced by a
+ * different schema or is removed from the cache.  Caches of SQL that was validated against the table schemas include the
+ * schema version in their keys, so that the SQL is built again after a schema may have changed.
+ */
+public class MetaDataCache {
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final MetaDataCache INSTANCE = new MetaDataCache(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE_MILLIS);
+
+    /**
+     * The cached table schemas in access order so that the eldest entry is the least recently used entry.  All access
+     * to this field must be synchronized on this object.
+     */
+    private final LinkedHashMap<Key, CachedSchema> entries = new LinkedHashMap<Key, CachedSchema>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedSchema> eldest) {
+            if (size() > maxSize) {
+                evictionCount.incrementAndGet();
+                schemaChanged(eldest.getKey().url);
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * The schema versions of the databases whose schemas have changed since invalidateAll() was last called.  All access
+     * to this field must be synchronized on this object.
+     */
+    private final Map<String, Long> schemaVersions = new HashMap<>();
+
+    /**
+     * The last schema version that was given to a database.  Schema versions are never reused, so a version can not
+     * match a version from before a change.
+     */
+    private long lastSchemaVersion;
+
+    /**
+     * The schema version of the databases that have not changed since invalidateAll() was last called.
+     */
+    private long clearedSchemaVersion;
+
+    private volatile int maxSize;
+
+    private volatile long timeToLiveMillis;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public MetaDataCache(int maxSize, long timeToLiveMillis) {
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+        if (timeToLiveMillis < 0) { throw new IllegalArgumentException("timeToLiveMillis cannot be negative"); }
+
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Returns the cache shared by every DatabaseMetaData object in the JVM.
+     *
+     * @return MetaDataCache
+     */
+    public static MetaDataCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets a table's schema from the cache.
+     *
+     * @param url The database url.
+     * @param table The table name.
+     * @return The TableSchema or null if the table is not cached or has expired.
+     */
+    public synchronized TableSchema get(String url, String table) {
+        Key key = new Key(url, table);
+        CachedSchema entry = entries.get(key);
+
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        if (isExpired(entry)) {
+            entries.remove(key);
+            schemaChanged(url);
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return entry.tableSchema;
+    }
+
+    /**
+     * Returns whether a table's schema is cached and has not expired.  Unlike get(), this does not count a hit or a
+     * miss, so it can be used to skip tables that are already cached without skewing the statistics.
+     *
+     * @param url The database url.
+     * @param table The table name.
+     * @return boolean
+     */
+    public synchronized boolean contains(String url, String table) {
+        CachedSchema entry = entries.get(new Key(url, table));
+        return entry != null && ! isExpired(entry);
+    }
+
+    /**
+     * Puts a table's schema in the cache.
+     *
+     * @param url The database url.
+     * @param table The table name.
+     * @param tableSchema A Map with the keys being column names and the values being JDBC types.
+     */
+    public void put(String url, String table, Map<String, Integer> tableSchema) {
+        put(url, table, new TableSchema(tableSchema));
+    }
+
+    /**
+     * Puts a table's schema in the cache.
+     *
+     * @param url The database url.
+     * @param table The table name.
+     * @param tableSchema The table's schema.
+     */
+    public synchronized void put(String url, String table, TableSchema tableSchema) {
+        CachedSchema oldSchema = entries.put(new Key(url, table), new CachedSchema(tableSchema, System.currentTimeMillis()));
+        if (oldSchema != null && ! oldSchema.tableSchema.equals(tableSchema)) {
+            schemaChanged(url);
+        }
+    }
+
+    /**
+     * Returns the schema version of a database.  The version changes when one of the database's cached table schemas is
+     * replaced by a different schema or is invalidated, expires, or is evicted.  Caching a table that was not cached
+     * before does not change the version.
+     *
+     * @param url The database url.
+     * @return long
+     */
+    public synchronized long getSchemaVersion(String url) {
+        Long schemaVersion = schemaVersions.get(url);
+        return (schemaVersion == null) ? clearedSchemaVersion : schemaVersion;
+    }
+
+    /**
+     * Returns every table schema in the cache for a database that has not expired.  This does not change the hit and
+     * miss counters or the least recently used order.
+     *
+     * @param url The database url.
+     * @return A Map with the keys being table names and the values being the tables' schemas.
+     */
+    public synchronized Map<String, TableSchema> getTableSchemas(String url) {
+        Map<String, TableSchema> tableSchemas = new HashMap<>();
+        for (Map.Entry<Key, CachedSchema> entry : entries.entrySet()) {
+            if (Objects.equals(entry.getKey().url, url) && ! isExpired(entry.getValue())) {
+                tableSchemas.put(entry.getKey().table, entry.getValue().tableSchema);
+            }
+        }
+        return tableSchemas;
+    }
+
+    /**
+     * Removes one table's schema from the cache.
+     *
+     * @param url The database url.
+     * @param table The table name.
+     */
+    public synchronized void invalidate(String url, String table) {
+        if (entries.remove(new Key(url, table)) != null) {
+            schemaChanged(url);
+        }
+    }
+
+    /**
+     * Removes every table schema for a database from the cache.
+     *
+     * @param url The database url.
+     */
+    public synchronized void invalidate(String url) {
+        entries.keySet().removeIf(key -> Objects.equals(key.url, url));
+        schemaChanged(url);
+    }
+
+    /**
+     * Removes every table schema from the cache.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        schemaVersions.clear();
+        clearedSchemaVersion = ++lastSchemaVersion;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of table schemas to cache.  If the cache holds more than maxSize entries, then the least
+     * recently used entries are evicted.
+     *
+     * @param maxSize The maximum number of table schemas.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+
+        this.maxSize = maxSize;
+        while (entries.size() > maxSize) {
+            Key eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+            evictionCount.incrementAndGet();
+            schemaChanged(eldest.url);
+        }
+    }
+
+    public long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    /**
+     * Sets how long a table schema stays in the cache after it was loaded.  A value of 0 means entries never expire.
+     *
+     * @param timeToLiveMillis The time to live in milliseconds.
+     */
+    public void setTimeToLiveMillis(long timeToLiveMillis) {
+        if (timeToLiveMillis < 0) { throw new IllegalArgumentException("timeToLiveMillis cannot be negative"); }
+
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Resets the hit, miss, and eviction counters to 0.
+     */
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    /**
+     * Gives a database a new schema version.  The caller must hold this object's lock.
+     */
+    private void schemaChanged(String url) {
+        schemaVersions.put(url, ++lastSchemaVersion);
+    }
+
+    private boolean isExpired(CachedSchema entry) {
+        long ttl = timeToLiveMillis;
+        return ttl != 0 && System.currentTimeMillis() - entry.loadedAtMillis > ttl;
+    }
+
+
+    private static final class Key {
+        private final String url;
+        private final String table;
+
+        private Key(String url, String table) {
+            this.url = url;
+            this.table = table;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key that = (Key) o;
+            return Objects.equals(this.url, that.url) && Objects.equals(this.table, that.table);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(url) + Objects.hashCode(table);
+        }
+    }
+
+    private static final class CachedSchema {
+        private final TableSchema tableSchema;
+        private final long loadedAtMillis;
+
+        private CachedSchema(TableSchema tableSchema, long loadedAtMillis) {
+            this.tableSchema = tableSchema;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+}
@@ -1,26 +1,146 @@
 package com.querybuilder4j.databasemetadata;
 
 import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.statements.DatabaseType;
 import com.querybuilder4j.utils.ResultSetToHashMapConverter;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class MetaDataDaoImpl {
     private final String url;
     private final String username;
     private final String password;
+    private final DatabaseType databaseType;
+    private final DataSource dataSource;
 
+    /**
+     * A Map with the keys being the (lower case) data type names found in information_schema.columns and the values
+     * being the JDBC type that the PostgreSQL, Redshift, and SQL Server JDBC drivers report for that data type in
+     * DatabaseMetaData.getColumns().  MYSQL_DATA_TYPE_NAMES and SQL_SERVER_DATA_TYPE_NAMES hold the data types that
+     * those databases' drivers report differently.  If a table has a column with a data type that is not in the
+     * database's Map, then the table's schema is loaded with DatabaseMetaData.getColumns() instead.
+     *
+     * The JDBC types only need to agree with the drivers on whether a column is quoted and on how its values are bound,
+     * so a few data types are mapped even though a driver may report another type that behaves the same way, such as
+     * Types.INTEGER for a MySQL int unsigned column, which Connector/J reports as Types.BIGINT.
+     */
+    private static final Map<String, Integer> DATA_TYPE_NAMES = new HashMap<String, Integer>() {{
+        put("bigint", Types.BIGINT);
+        put("int8", Types.BIGINT);
+        put("bit", Types.BIT);
+        put("boolean", Types.BIT);
+        put("bool", Types.BIT);
+        put("char", Types.CHAR);
+        put("character", Types.CHAR);
+        put("bpchar", Types.CHAR);
+        put("nchar", Types.NCHAR);
+        put("date", Types.DATE);
+        put("year", Types.DATE);
+        put("datetime", Types.TIMESTAMP);
+        put("datetime2", Types.TIMESTAMP);
+        put("smalldatetime", Types.TIMESTAMP);
+        put("timestamp", Types.TIMESTAMP);
+        put("timestamp without time zone", Types.TIMESTAMP);
+        put("timestamp with time zone", Types.TIMESTAMP);
+        put("time", Types.TIME);
+        put("time without time zone", Types.TIME);
+        put("decimal", Types.DECIMAL);
+        put("money", Types.DECIMAL);
+        put("smallmoney", Types.DECIMAL);
+        put("numeric", Types.NUMERIC);
+        put("double", Types.DOUBLE);
+        put("double precision", Types.DOUBLE);
+        put("float", Types.DOUBLE);
+        put("float8", Types.DOUBLE);
+        put("real", Types.REAL);
+        put("float4", Types.REAL);
+        put("int", Types.INTEGER);
+        put("integer", Types.INTEGER);
+        put("int4", Types.INTEGER);
+        put("mediumint", Types.INTEGER);
+        put("smallint", Types.SMALLINT);
+        put("int2", Types.SMALLINT);
+        put("tinyint", Types.TINYINT);
+        put("varchar", Types.VARCHAR);
+        put("character varying", Types.VARCHAR);
+        put("text", Types.VARCHAR);
+        put("nvarchar", Types.NVARCHAR);
+        put("tinytext", Types.VARCHAR);
+        put("mediumtext", Types.LONGVARCHAR);
+        put("longtext", Types.LONGVARCHAR);
+        put("ntext", Types.LONGNVARCHAR);
+        put("enum", Types.CHAR);
+        put("set", Types.CHAR);
+        put("uniqueidentifier", Types.CHAR);
+        put("uuid", Types.OTHER);
+        put("json", Types.OTHER);
+        put("jsonb", Types.OTHER);
+        put("bytea", Types.BINARY);
+        put("binary", Types.BINARY);
+        put("varbinary", Types.VARBINARY);
+        put("blob", Types.LONGVARBINARY);
+        put("longblob", Types.LONGVARBINARY);
+    }};
 
+    /**
+     * The data types of MySQL.  Connector/J reports float as REAL, text as LONGVARCHAR, and tinyint(1) as BIT.  The
+     * information_schema query returns tinyint(1) as the data type name of a tinyint(1) column.
+     */
+    private static final Map<String, Integer> MYSQL_DATA_TYPE_NAMES = new HashMap<String, Integer>(DATA_TYPE_NAMES) {{
+        put("float", Types.REAL);
+        put("text", Types.LONGVARCHAR);
+        put("tinyint(1)", Types.BIT);
+    }};
+
+    /**
+     * The data types of SQL Server.  The SQL Server JDBC driver reports text as LONGVARCHAR.
+     */
+    private static final Map<String, Integer> SQL_SERVER_DATA_TYPE_NAMES = new HashMap<String, Integer>(DATA_TYPE_NAMES) {{
+        put("text", Types.LONGVARCHAR);
+    }};
+
+
+    /**
+     * Creates a MetaDataDaoImpl that borrows its connections from the process-wide ConnectionPool for the database url
+     * and username in the properties parameter.
+     *
+     * @param properties The database connection properties.
+     */
     public MetaDataDaoImpl(Properties properties) {
+        this(properties, null);
+    }
+
+    /**
+     * Creates a MetaDataDaoImpl that borrows its connections from the dataSource parameter.  The properties parameter
+     * is still used for the database type.
+     *
+     * @param properties The database properties.
+     * @param dataSource The DataSource to get connections from.  If null, then the process-wide ConnectionPool for the
+     *                   database url and username in the properties parameter is used.
+     */
+    public MetaDataDaoImpl(Properties properties, DataSource dataSource) {
         this.url = properties.getProperty(Constants.DATABASE_URL);
         this.username = properties.getProperty(Constants.DATABASE_USERNAME);
         this.password = properties.getProperty(Constants.DATABASE_PASSWORD);
+        this.dataSource = (dataSource == null) ? ConnectionPool.forProperties(properties) : dataSource;
+
+        String databaseTypeString = properties.getProperty(Constants.DATABASE_TYPE);
+        this.databaseType = (databaseTypeString == null) ? null : Enum.valueOf(DatabaseType.class, databaseTypeString);
     }
 
     public String getUrl() {
@@ -35,17 +155,271 @@ public class MetaDataDaoImpl {
         return password;
     }
 
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
     public Map<String, Integer> getTableSchema(String table) {
         try (Connection conn = getConnection()) {
-            ResultSet columnMetaData = conn.getMetaData().getColumns(null, null, table, "%");
+            return getTableSchema(conn, table);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static Map<String, Integer> getTableSchema(Connection conn, String table) throws SQLException {
+        try (ResultSet columnMetaData = conn.getMetaData().getColumns(null, null, table, "%")) {
             return ResultSetToHashMapConverter.toHashMap(columnMetaData);
+        }
+    }
+
+    /**
+     * Gets the schemas of many tables with one connection and (usually) one round-trip to the database.
+     *
+     * For databases that have an information_schema, the column types of all the tables are read with one query.  For
+     * other databases, or if a table has a column with a data type that is not recognized, the table's schema is read
+     * with a DatabaseMetaData.getColumns() call for the table, so that the rest of the catalog is not scanned.
+     *
+     * @param tables The table names.
+     * @return A Map with the keys being the table names and the values being Maps of column names and JDBC types.  A
+     * table that could not be found in the database has an empty Map, just like getTableSchema().
+     */
+    public Map<String, Map<String, Integer>> getTableSchemas(Collection<String> tables) {
+        Set<String> uniqueTables = new LinkedHashSet<>(tables);
+
+        if (uniqueTables.isEmpty()) {
+            return new HashMap<>();
+        } else if (uniqueTables.size() == 1) {
+            String table = uniqueTables.iterator().next();
+            Map<String, Map<String, Integer>> tableSchemas = new HashMap<>();
+            tableSchemas.put(table, getTableSchema(table));
+            return tableSchemas;
+        }
+
+        try (Connection conn = getConnection()) {
+            Map<String, Map<String, Integer>> tableSchemas = new HashMap<>();
+            Set<String> unresolvedTables = uniqueTables;
+
+            String informationSchemaQuery = getInformationSchemaColumnsQuery(uniqueTables.size());
+            if (informationSchemaQuery != null) {
+                try {
+                    unresolvedTables = loadFromInformationSchema(conn, informationSchemaQuery, uniqueTables, tableSchemas);
+                } catch (SQLException ex) {
+                    // The information_schema could not be read (permissions, an older database version, etc), so read
+                    // all of the tables' schemas with getColumns() instead.
+                    tableSchemas.clear();
+                    unresolvedTables = uniqueTables;
+                }
+            }
+
+            for (String table : unresolvedTables) {
+                tableSchemas.put(table, getTableSchema(conn, table));
+            }
+
+            for (String table : uniqueTables) {
+                tableSchemas.putIfAbsent(table, new HashMap<>());
+            }
+
+            return tableSchemas;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Runs the information_schema query and puts the schema of each table whose data types are all recognized in the
+     * tableSchemas parameter.
+     *
+     * @return The tables that have a column with an unrecognized data type.
+     */
+    private Set<String> loadFromInformationSchema(Connection conn, String sql, Set<String> tables,
+                                                  Map<String, Map<String, Integer>> tableSchemas) throws SQLException {
+        Set<String> unresolvedTables = new LinkedHashSet<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (String table : tables) {
+                ps.setString(i++, table);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString(1);
+                    String dataTypeName = rs.getString(3);
+                    Integer dataType = getDataType(databaseType, dataTypeName);
+
+                    if (dataType == null) {
+                        unresolvedTables.add(table);
+                    } else {
+                        tableSchemas.computeIfAbsent(table, k -> new HashMap<>()).put(rs.getString(2), dataType);
+                    }
+                }
+            }
+        }
+
+        unresolvedTables.forEach(tableSchemas::remove);
+        return unresolvedTables;
+    }
+
+    /**
+     * Gets a cheap signature of each table's definition.  The signature changes when a column is added, dropped,
+     * renamed, or has its data type changed, so comparing signatures tells which tables need to be reloaded without
+     * reloading every table.
+     *
+     * For databases with an information_schema (or Oracle's ALL_TAB_COLUMNS), the signature is the number of columns
+     * plus a checksum of the column names and data types, which is computed by the database so that only one row per
+     * table is returned.  For other databases, the signature is computed from a DatabaseMetaData.getColumns() call for
+     * each table.
+     *
+     * @param tables The table names.
+     * @return A Map with the keys being the table names and the values being the signatures.  A table that could not be
+     * found in the database, such as a table that was dropped or renamed, is not in the Map.
+     */
+    public Map<String, String> getTableSignatures(Collection<String> tables) {
+        Set<String> uniqueTables = new LinkedHashSet<>(tables);
+        Map<String, String> signatures = new HashMap<>();
+
+        if (uniqueTables.isEmpty()) {
+            return signatures;
+        }
+
+        String signatureQuery = getSignatureQuery(uniqueTables.size());
+        try (Connection conn = getConnection()) {
+            if (signatureQuery != null) {
+                try (PreparedStatement ps = conn.prepareStatement(signatureQuery)) {
+                    int i = 1;
+                    for (String table : uniqueTables) {
+                        ps.setString(i++, table);
+                    }
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            signatures.put(rs.getString(1), rs.getLong(2) + ":" + rs.getString(3));
+                        }
+                    }
+                }
+            } else {
+                for (String table : uniqueTables) {
+                    Map<String, Integer> tableSchema = getTableSchema(conn, table);
+                    if (! tableSchema.isEmpty()) {
+                        signatures.put(table, tableSchema.size() + ":" + new TreeMap<>(tableSchema).hashCode());
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+
+        return signatures;
+    }
+
+    /**
+     * Gets the names of all tables and views in the connection's catalog.
+     *
+     * @return A List of table names in the order the database returns them.
+     */
+    public List<String> getAllTableNames() {
+        List<String> tables = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             ResultSet tableMetaData = conn.getMetaData().getTables(conn.getCatalog(), null, "%", new String[] { "TABLE", "VIEW" })) {
+            while (tableMetaData.next()) {
+                tables.add(tableMetaData.getString("TABLE_NAME"));
+            }
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
+
+        return tables;
+    }
+
+    /**
+     * Returns the query that gets the table name, number of columns, and a checksum of the column names and data types
+     * of each table or null if the database does not have a cheap way of computing a checksum.
+     *
+     * @param numberOfTables The number of tables, which is the number of parameters in the query's IN clause.
+     * @return String
+     */
+    private String getSignatureQuery(int numberOfTables) {
+        if (databaseType == null) {
+            return null;
+        }
+
+        String parameters = String.join(", ", Collections.nCopies(numberOfTables, "?"));
+        switch (databaseType) {
+            case MySql:
+                return "SELECT table_name, COUNT(*), SUM(CRC32(CONCAT(column_name, ':', data_type))) " +
+                        "FROM information_schema.columns " +
+                        "WHERE table_schema = DATABASE() AND table_name IN (" + parameters + ") GROUP BY table_name";
+            case PostgreSQL:
+                return "SELECT table_name, COUNT(*), MD5(STRING_AGG(column_name || ':' || data_type, ',' ORDER BY column_name)) " +
+                        "FROM information_schema.columns " +
+                        "WHERE table_name IN (" + parameters + ") GROUP BY table_name";
+            case Redshift:
+                return "SELECT table_name, COUNT(*), MD5(LISTAGG(column_name || ':' || data_type, ',') WITHIN GROUP (ORDER BY column_name)) " +
+                        "FROM information_schema.columns " +
+                        "WHERE table_name IN (" + parameters + ") GROUP BY table_name";
+            case SqlServer:
+                return "SELECT table_name, COUNT(*), CHECKSUM_AGG(CHECKSUM(column_name, data_type)) " +
+                        "FROM information_schema.columns " +
+                        "WHERE table_name IN (" + parameters + ") GROUP BY table_name";
+            case Oracle:
+                return "SELECT table_name, COUNT(*), SUM(ORA_HASH(column_name || ':' || data_type)) " +
+                        "FROM all_tab_columns " +
+                        "WHERE table_name IN (" + parameters + ") GROUP BY table_name";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the information_schema query that gets the table name, column name, and data type name of every column in
+     * the tables or null if the database does not have an information_schema.
+     *
+     * @param numberOfTables The number of tables, which is the number of parameters in the query's IN clause.
+     * @return String
+     */
+    private String getInformationSchemaColumnsQuery(int numberOfTables) {
+        if (databaseType == null) {
+            return null;
+        }
+
+        String parameters = String.join(", ", Collections.nCopies(numberOfTables, "?"));
+        switch (databaseType) {
+            case MySql:
+                return "SELECT table_name, column_name, " +
+                        "CASE WHEN column_type LIKE 'tinyint(1)%' THEN 'tinyint(1)' ELSE data_type END " +
+                        "FROM information_schema.columns " +
+                        "WHERE table_schema = DATABASE() AND table_name IN (" + parameters + ")";
+            case PostgreSQL: case Redshift: case SqlServer:
+                return "SELECT table_name, column_name, data_type FROM information_schema.columns " +
+                        "WHERE table_name IN (" + parameters + ")";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the JDBC type that the database's JDBC driver reports for a data type name from information_schema.columns,
+     * or null if the data type is not recognized.
+     *
+     * @param databaseType The database type.
+     * @param dataTypeName The data type name.
+     * @return Integer
+     */
+    static Integer getDataType(DatabaseType databaseType, String dataTypeName) {
+        if (dataTypeName == null) {
+            return null;
+        }
+
+        Map<String, Integer> dataTypeNames = (databaseType == DatabaseType.MySql) ? MYSQL_DATA_TYPE_NAMES
+                : (databaseType == DatabaseType.SqlServer) ? SQL_SERVER_DATA_TYPE_NAMES
+                : DATA_TYPE_NAMES;
+        return dataTypeNames.get(dataTypeName.toLowerCase());
     }
 
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(this.url, this.username, this.password);
+        return this.dataSource.getConnection();
     }
-    
+
 }
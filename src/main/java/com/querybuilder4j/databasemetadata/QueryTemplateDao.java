@@ -2,7 +2,10 @@ package com.querybuilder4j.databasemetadata;
 
 import com.querybuilder4j.statements.SelectStatement;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface QueryTemplateDao {
 
@@ -10,4 +13,34 @@ public interface QueryTemplateDao {
     boolean save(String primaryKey, String json);
     List<String> getNames(Integer limit, Integer offset, boolean ascending) throws Exception;
 
+    /**
+     * Returns many query templates at once.  SubQueryParser fetches the templates of each level of subqueries with one
+     * call, so a QueryTemplateDao that reads templates from a database should override this method to read them in one
+     * round trip.  The default implementation calls getQueryTemplateByName() for each name.
+     *
+     * @param names The names of the query templates.
+     * @return The query templates by name.  A name that has no query template is not in the Map.
+     */
+    default Map<String, SelectStatement> getQueryTemplatesByNames(Collection<String> names) {
+        Map<String, SelectStatement> queryTemplates = new LinkedHashMap<>();
+        for (String name : names) {
+            SelectStatement queryTemplate = getQueryTemplateByName(name);
+            if (queryTemplate != null) {
+                queryTemplates.put(name, queryTemplate);
+            }
+        }
+        return queryTemplates;
+    }
+
+    /**
+     * Returns the QueryTemplateDao that this QueryTemplateDao wraps and delegates to, or null if it does not wrap one.
+     * A QueryTemplateDao that wraps another one, such as a cache, should return it, so that features of the wrapped
+     * QueryTemplateDao, such as the SubQueryCache of a watched QueryTemplateDao, are still found.
+     *
+     * @return QueryTemplateDao
+     */
+    default QueryTemplateDao getWrappedQueryTemplateDao() {
+        return null;
+    }
+
 }
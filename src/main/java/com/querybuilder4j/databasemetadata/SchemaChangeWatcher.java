@@ -0,0 +1,160 @@
+package com.querybuilder4j.databasemetadata;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the tables of one database that are in the MetaDataCache and reloads only the tables whose definitions
+ * changed.  This makes it safe to use a long time to live (or none at all) for the MetaDataCache.
+ *
+ * Each check asks the database for a cheap signature of every cached table (see MetaDataDaoImpl.getTableSignatures())
+ * and compares it to the signature from the previous check.  The first check that sees a table has no previous
+ * signature, so it loads the table's schema once and compares it to the cached schema instead, which picks up a change
+ * made between the table being cached and that check.  A cached table that has no signature was dropped or renamed, so
+ * it is removed from the MetaDataCache.
+ */
+public class SchemaChangeWatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaChangeWatcher.class.getName());
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "qb4j-schema-change-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String url;
+
+    private final MetaDataDaoImpl metaDataDao;
+
+    private final MetaDataCache metaDataCache;
+
+    /**
+     * The signature of each watched table from the previous check.
+     */
+    private final Map<String, String> signatures = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> scheduledCheck;
+
+    public SchemaChangeWatcher(Properties properties, DataSource dataSource) {
+        this(properties, dataSource, MetaDataCache.getInstance());
+    }
+
+    public SchemaChangeWatcher(Properties properties, DataSource dataSource, MetaDataCache metaDataCache) {
+        this.url = DatabaseMetaData.getMetaDataCacheKey(properties, dataSource);
+        this.metaDataDao = new MetaDataDaoImpl(properties, dataSource);
+        this.metaDataCache = metaDataCache;
+    }
+
+    /**
+     * Checks for schema changes now and then every period on a background daemon thread.  If a check fails, then the
+     * failure is logged and the next check runs as scheduled.
+     *
+     * @param period The time between checks.
+     * @param unit The unit of period.
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (scheduledCheck != null) {
+            throw new IllegalStateException("The SchemaChangeWatcher has already been started");
+        }
+
+        scheduledCheck = EXECUTOR.scheduleWithFixedDelay(() -> {
+            try {
+                checkForChanges();
+            } catch (Exception ex) {
+                LOGGER.log(Level.WARNING, "Could not check for schema changes in " + url, ex);
+            }
+        }, 0, period, unit);
+    }
+
+    /**
+     * Stops checking for schema changes.
+     */
+    public synchronized void stop() {
+        if (scheduledCheck != null) {
+            scheduledCheck.cancel(false);
+            scheduledCheck = null;
+        }
+    }
+
+    /**
+     * Compares the signature of each cached table to its signature from the previous check and reloads the tables whose
+     * signatures changed into the MetaDataCache.  A table without a previous signature is reloaded if its schema in the
+     * database differs from its cached schema.  A table that no longer exists in the database is removed from the
+     * MetaDataCache.
+     *
+     * @return The tables that were reloaded or removed.
+     */
+    public synchronized Set<String> checkForChanges() {
+        Map<String, TableSchema> cachedSchemas = metaDataCache.getTableSchemas(url);
+        Set<String> cachedTables = cachedSchemas.keySet();
+
+        // Forget tables that are no longer cached so that they get a new baseline if they are cached again.
+        signatures.keySet().retainAll(cachedTables);
+
+        if (cachedTables.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<String> changedTables = new LinkedHashSet<>();
+        Set<String> newTables = new LinkedHashSet<>();
+        Map<String, String> newSignatures = metaDataDao.getTableSignatures(cachedTables);
+        newSignatures.forEach((table, newSignature) -> {
+            String oldSignature = signatures.put(table, newSignature);
+            if (oldSignature == null) {
+                newTables.add(table);
+            } else if (! oldSignature.equals(newSignature)) {
+                changedTables.add(table);
+            }
+        });
+
+        // A table without a signature was dropped or renamed, so there is no schema to reload.
+        Set<String> droppedTables = new LinkedHashSet<>(cachedTables);
+        droppedTables.removeAll(newSignatures.keySet());
+        if (! droppedTables.isEmpty()) {
+            droppedTables.forEach(table -> {
+                signatures.remove(table);
+                metaDataCache.invalidate(url, table);
+            });
+            LOGGER.log(Level.INFO, "Removed the schemas of dropped tables in {0}:  {1}", new Object[] { url, droppedTables });
+        }
+
+        // The signatures are taken before the schemas are loaded, so a change made after the new tables' schemas are
+        // loaded is seen by the next check.
+        Map<String, Map<String, Integer>> tableSchemas = new HashMap<>();
+        if (! newTables.isEmpty()) {
+            metaDataDao.getTableSchemas(newTables).forEach((table, tableSchema) -> {
+                if (! new TableSchema(tableSchema).equals(cachedSchemas.get(table))) {
+                    changedTables.add(table);
+                    tableSchemas.put(table, tableSchema);
+                }
+            });
+        }
+
+        if (! changedTables.isEmpty()) {
+            Set<String> unloadedTables = new LinkedHashSet<>(changedTables);
+            unloadedTables.removeAll(tableSchemas.keySet());
+            if (! unloadedTables.isEmpty()) {
+                tableSchemas.putAll(metaDataDao.getTableSchemas(unloadedTables));
+            }
+            tableSchemas.forEach((table, tableSchema) -> metaDataCache.put(url, table, tableSchema));
+            LOGGER.log(Level.INFO, "Reloaded the schemas of changed tables in {0}:  {1}", new Object[] { url, changedTables });
+        }
+
+        changedTables.addAll(droppedTables);
+        return changedTables;
+    }
+
+}
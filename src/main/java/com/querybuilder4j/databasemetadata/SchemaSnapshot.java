@@ -0,0 +1,252 @@
+package com.querybuilder4j.databasemetadata;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads and writes table schemas (table name, column names, and JDBC types) to a compact binary file, so that a new
+ * JVM can validate statements and build SQL without querying the database for its metadata first.
+ *
+ * The file format is:
+ *
+ *     int     magic number (0x51423453)
+ *     short   format version
+ *     int     number of tables
+ *     for each table:
+ *         short + bytes   table name (UTF-8, with an unsigned length)
+ *         int             number of columns
+ *         for each column:
+ *             short + bytes   column name (UTF-8, with an unsigned length)
+ *             int             JDBC type
+ *
+ * Snapshots are read in one pass through a read-only memory-mapped buffer, which avoids copying the file into a heap
+ * buffer before parsing it.  The parsed schemas are ordinary heap objects, so every JVM that reads a snapshot has its
+ * own copy of them.  Snapshots are written to a temporary file that is then moved over the old snapshot, so readers
+ * never see a partially written file.
+ */
+public class SchemaSnapshot {
+
+    private static final int MAGIC_NUMBER = 0x51423453;
+
+    private static final short FORMAT_VERSION = 1;
+
+    /**
+     * The smallest number of bytes that a table or a column takes in a snapshot file, which is an empty name and an int.
+     */
+    private static final int MIN_ENTRY_SIZE = 6;
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaSnapshot.class.getName());
+
+    private static final ScheduledExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "qb4j-schema-snapshot-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Writes table schemas to a snapshot file.
+     *
+     * @param tableSchemas A Map with the keys being table names and the values being Maps of column names and JDBC types.
+     * @param path The snapshot file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Map<String, Map<String, Integer>> tableSchemas, Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path tempFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC_NUMBER);
+                out.writeShort(FORMAT_VERSION);
+                out.writeInt(tableSchemas.size());
+
+                for (Map.Entry<String, Map<String, Integer>> tableSchema : tableSchemas.entrySet()) {
+                    writeString(out, tableSchema.getKey());
+                    out.writeInt(tableSchema.getValue().size());
+
+                    for (Map.Entry<String, Integer> column : tableSchema.getValue().entrySet()) {
+                        writeString(out, column.getKey());
+                        out.writeInt(column.getValue());
+                    }
+                }
+            }
+
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads the table schemas in a snapshot file.
+     *
+     * @param path The snapshot file.
+     * @return A Map with the keys being table names and the values being Maps of column names and JDBC types.
+     * @throws IOException If the file cannot be read or is not a snapshot file.
+     */
+    public static Map<String, Map<String, Integer>> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC_NUMBER) {
+                throw new IOException(path + " is not a schema snapshot file");
+            }
+
+            short formatVersion = buffer.getShort();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException(String.format("Schema snapshot format version %s is not supported", formatVersion));
+            }
+
+            int numberOfTables = readCount(buffer, path);
+            Map<String, Map<String, Integer>> tableSchemas = new HashMap<>(numberOfTables * 2);
+
+            for (int i=0; i<numberOfTables; i++) {
+                String table = readString(buffer, path);
+                int numberOfColumns = readCount(buffer, path);
+                Map<String, Integer> tableSchema = new HashMap<>(numberOfColumns * 2);
+
+                for (int j=0; j<numberOfColumns; j++) {
+                    String column = readString(buffer, path);
+                    tableSchema.put(column, buffer.getInt());
+                }
+
+                tableSchemas.put(table, tableSchema);
+            }
+
+            return tableSchemas;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException(path + " is truncated", ex);
+        }
+    }
+
+    /**
+     * Writes every table schema in the MetaDataCache for a database to a snapshot file.
+     *
+     * @param properties The database properties.
+     * @param dataSource The DataSource that was passed to SelectStatement.toSql() or null if one was not passed.
+     * @param path The snapshot file.
+     * @return The number of tables written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static int exportCache(Properties properties, DataSource dataSource, Path path) throws IOException {
+        String url = DatabaseMetaData.getMetaDataCacheKey(properties, dataSource);
+        Map<String, Map<String, Integer>> tableSchemas = new HashMap<>();
+        MetaDataCache.getInstance().getTableSchemas(url).forEach((table, tableSchema) -> tableSchemas.put(table, tableSchema.toMap()));
+        write(tableSchemas, path);
+        return tableSchemas.size();
+    }
+
+    /**
+     * Reads a snapshot file and puts its table schemas in the MetaDataCache for a database.  After this, statements
+     * that only use tables in the snapshot are validated and built without querying the database for metadata (until
+     * the cache entries expire).
+     *
+     * @param properties The database properties.
+     * @param dataSource The DataSource that will be passed to SelectStatement.toSql() or null if one will not be passed.
+     * @param path The snapshot file.
+     * @return The number of tables loaded.
+     * @throws IOException If the file cannot be read or is not a snapshot file.
+     */
+    public static int importIntoCache(Properties properties, DataSource dataSource, Path path) throws IOException {
+        String url = DatabaseMetaData.getMetaDataCacheKey(properties, dataSource);
+        Map<String, Map<String, Integer>> tableSchemas = read(path);
+        tableSchemas.forEach((table, tableSchema) -> MetaDataCache.getInstance().put(url, table, tableSchema));
+        return tableSchemas.size();
+    }
+
+    /**
+     * Periodically reloads the schemas of the tables in a snapshot file from the database, puts them in the
+     * MetaDataCache, and rewrites the snapshot file.  This runs on a background daemon thread.  If a refresh fails,
+     * then the failure is logged and the snapshot file is left as it was.
+     *
+     * @param properties The database properties.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @param path The snapshot file.
+     * @param period The time between refreshes.
+     * @param unit The unit of period.
+     * @return A ScheduledFuture that can be cancelled to stop refreshing.
+     */
+    public static ScheduledFuture<?> scheduleRefresh(Properties properties, DataSource dataSource, Path path,
+                                                     long period, TimeUnit unit) {
+        return REFRESH_EXECUTOR.scheduleWithFixedDelay(() -> {
+            try {
+                refresh(properties, dataSource, path);
+            } catch (Exception ex) {
+                LOGGER.log(Level.WARNING, "Could not refresh the schema snapshot at " + path, ex);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Reloads the schemas of the tables in a snapshot file from the database, puts them in the MetaDataCache, and
+     * rewrites the snapshot file.
+     *
+     * @param properties The database properties.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @param path The snapshot file.
+     * @return The number of tables refreshed.
+     * @throws IOException If the snapshot file cannot be read or written.
+     */
+    public static int refresh(Properties properties, DataSource dataSource, Path path) throws IOException {
+        String url = DatabaseMetaData.getMetaDataCacheKey(properties, dataSource);
+        Map<String, Map<String, Integer>> tableSchemas = new MetaDataDaoImpl(properties, dataSource)
+                .getTableSchemas(read(path).keySet());
+
+        tableSchemas.forEach((table, tableSchema) -> MetaDataCache.getInstance().put(url, table, tableSchema));
+        write(tableSchemas, path);
+        return tableSchemas.size();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Name is too long for a schema snapshot:  " + s);
+        }
+
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer, Path path) throws IOException {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length > buffer.remaining()) {
+            throw new IOException(path + " is truncated");
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a number of tables or columns and checks that the rest of the file is long enough to hold that many, so
+     * that a corrupt count cannot make the reader allocate a huge Map.
+     */
+    private static int readCount(MappedByteBuffer buffer, Path path) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / MIN_ENTRY_SIZE) {
+            throw new IOException(String.format("%s is corrupt:  it cannot hold %s entries", path, count));
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.config.Constants;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable, compact table schema.  The column names are interned and sorted, and the JDBC types and quoting flags
+ * are stored in primitive arrays that are parallel to the column names.  Column lookups are binary searches that do not
+ * allocate.
+ *
+ * The quoting flag of each column is resolved from Constants.TYPE_MAPPINGS once, when the TableSchema is created, so
+ * that the type mappings do not have to be looked up for every criterion.
+ */
+public final class TableSchema {
+
+    /**
+     * The quoting flag of a column whose filters should not be wrapped in single quotes, such as an INTEGER column.
+     */
+    public static final byte NOT_QUOTED = 0;
+
+    /**
+     * The quoting flag of a column whose filters should be wrapped in single quotes, such as a VARCHAR column.
+     */
+    public static final byte QUOTED = 1;
+
+    /**
+     * The quoting flag of a column whose JDBC type is not in Constants.TYPE_MAPPINGS.
+     */
+    public static final byte UNKNOWN_TYPE = 2;
+
+    private final String[] columnNames;
+
+    private final int[] columnTypes;
+
+    private final byte[] columnQuoting;
+
+    /**
+     * @param columnTypes A Map with the keys being column names and the values being JDBC types.  A column whose JDBC
+     *                    type is null is given Types.OTHER, like a column whose type the driver reports as OTHER.
+     */
+    public TableSchema(Map<String, Integer> columnTypes) {
+        String[] names = new String[columnTypes.size()];
+        int numberOfColumns = 0;
+        for (String columnName : columnTypes.keySet()) {
+            if (columnName != null) {
+                names[numberOfColumns++] = columnName.intern();
+            }
+        }
+
+        this.columnNames = Arrays.copyOf(names, numberOfColumns);
+        Arrays.sort(this.columnNames);
+
+        this.columnTypes = new int[numberOfColumns];
+        this.columnQuoting = new byte[numberOfColumns];
+        for (int i=0; i<numberOfColumns; i++) {
+            Integer columnType = columnTypes.get(this.columnNames[i]);
+            if (columnType == null) {
+                columnType = Types.OTHER;
+            }
+            this.columnTypes[i] = columnType;
+            this.columnQuoting[i] = toQuotingFlag(columnType);
+        }
+    }
+
+    public int size() {
+        return columnNames.length;
+    }
+
+    /**
+     * Returns the index of a column or -1 if the table does not have the column.
+     *
+     * @param column The column name.
+     * @return int
+     */
+    public int indexOf(String column) {
+        return (column == null) ? -1 : indexOf(column, 0, column.length());
+    }
+
+    /**
+     * Returns the index of the column whose name is the characters of s from beginIndex (inclusive) to endIndex
+     * (exclusive) or -1 if the table does not have the column.  This lets a "table.column" String be looked up without
+     * splitting it.
+     *
+     * @param s A String that contains the column name.
+     * @param beginIndex The index of the first character of the column name.
+     * @param endIndex The index after the last character of the column name.
+     * @return int
+     */
+    public int indexOf(String s, int beginIndex, int endIndex) {
+        int low = 0;
+        int high = columnNames.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = compareRegion(s, beginIndex, endIndex, columnNames[mid]);
+
+            if (comparison > 0) {
+                low = mid + 1;
+            } else if (comparison < 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    public String getColumnName(int index) {
+        return columnNames[index];
+    }
+
+    public int getColumnType(int index) {
+        return columnTypes[index];
+    }
+
+    /**
+     * Returns the quoting flag of a column, which is NOT_QUOTED, QUOTED, or UNKNOWN_TYPE.
+     *
+     * @param index The index of the column.
+     * @return byte
+     */
+    public byte getQuoting(int index) {
+        return columnQuoting[index];
+    }
+
+    /**
+     * Returns the schema as a new Map with the keys being column names and the values being JDBC types.
+     *
+     * @return Map
+     */
+    public Map<String, Integer> toMap() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (int i=0; i<columnNames.length; i++) {
+            map.put(columnNames[i], columnTypes[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TableSchema that = (TableSchema) o;
+        return Arrays.equals(this.columnNames, that.columnNames) && Arrays.equals(this.columnTypes, that.columnTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(columnNames) + Arrays.hashCode(columnTypes);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    static byte toQuotingFlag(int columnType) {
+        Boolean isQuoted = Constants.TYPE_MAPPINGS.get(columnType);
+        if (isQuoted == null) {
+            return UNKNOWN_TYPE;
+        }
+        return isQuoted ? QUOTED : NOT_QUOTED;
+    }
+
+    /**
+     * Compares the characters of s from beginIndex to endIndex to other the same way that String.compareTo() does.
+     */
+    static int compareRegion(String s, int beginIndex, int endIndex, String other) {
+        int length = endIndex - beginIndex;
+        int otherLength = other.length();
+        int limit = Math.min(length, otherLength);
+
+        for (int i=0; i<limit; i++) {
+            char c1 = s.charAt(beginIndex + i);
+            char c2 = other.charAt(i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+
+        return length - otherLength;
+    }
+
+}
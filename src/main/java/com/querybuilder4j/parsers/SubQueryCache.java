@@ -0,0 +1,355 @@
+package com.querybuilder4j.parsers;
+
+import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.databasemetadata.DatabaseMetaData;
+import com.querybuilder4j.databasemetadata.MetaDataCache;
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
+import com.querybuilder4j.sqlbuilders.PreparedSql;
+import com.querybuilder4j.statements.SelectStatement;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache of the SQL of built subqueries, so that a popular subquery, such as
+ * $activeCustomers(), is fetched, validated, and rendered once per change of its query template instead of once per
+ * statement.
+ *
+ * The key is the subquery's call, with its arguments sorted by parameter name and its argument subqueries replaced by
+ * their own calls, plus whether it was built as prepared SQL or as common table expressions, the database type, the
+ * database url, the database's schema version in the MetaDataCache, and the IN list properties.
+ *
+ * A SubQueryCache holds the subqueries of one source of query templates.  SubQueryParser uses the cache of the
+ * statement's QueryTemplateDao, or of a QueryTemplateDao that it wraps, that is a SubQueryCacheProvider, such as the
+ * QueryTemplateDao that watch() returns.  Each cached subquery remembers every query template that its SQL was built
+ * from, including the templates of its argument subqueries and of the subqueries that its template calls.  Saving a
+ * template through the watched QueryTemplateDao, or calling invalidate(), removes every subquery that was built from it.
+ *
+ * The cache is bounded by maxSize and the least recently used subquery is evicted first.
+ */
+public final class SubQueryCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    /**
+     * The cached subqueries in access order so that the eldest entry is the least recently used entry.  All access to
+     * this field must be synchronized on this object.
+     */
+    private final LinkedHashMap<Key, CachedSubQuery> entries = new LinkedHashMap<Key, CachedSubQuery>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedSubQuery> eldest) {
+            if (size() > maxSize) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * The value of invalidationCounter when each query template was last invalidated.
+     */
+    private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+
+    private final AtomicLong invalidationCounter = new AtomicLong();
+
+    private volatile int maxSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public SubQueryCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The maximum number of subqueries to cache.
+     */
+    public SubQueryCache(int maxSize) {
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a QueryTemplateDao that reads query templates from another QueryTemplateDao, uses this cache for the
+     * subqueries of the statements that it is set on, and invalidates a template's subqueries when the template is
+     * saved through it.
+     *
+     * @param queryTemplateDao The QueryTemplateDao to read and save query templates with.
+     * @return QueryTemplateDao
+     */
+    public QueryTemplateDao watch(QueryTemplateDao queryTemplateDao) {
+        return new WatchedQueryTemplateDao(queryTemplateDao, this);
+    }
+
+    /**
+     * Removes every subquery that was built from a query template.
+     *
+     * @param templateName The name of the query template.
+     */
+    public void invalidate(String templateName) {
+        invalidatedAt.put(templateName, invalidationCounter.incrementAndGet());
+
+        synchronized (this) {
+            Iterator<CachedSubQuery> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().templateNames.contains(templateName)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every subquery from the cache.
+     */
+    public void invalidateAll() {
+        long invalidation = invalidationCounter.incrementAndGet();
+        synchronized (this) {
+            for (CachedSubQuery entry : entries.values()) {
+                for (String templateName : entry.templateNames) {
+                    invalidatedAt.put(templateName, invalidation);
+                }
+            }
+            entries.clear();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of subqueries to cache.  If the cache holds more than maxSize entries, then the least
+     * recently used entries are evicted.
+     *
+     * @param maxSize The maximum number of subqueries.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+
+        this.maxSize = maxSize;
+        while (entries.size() > maxSize) {
+            Key eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Resets the hit, miss, and eviction counters to 0.
+     */
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    synchronized CachedSubQuery get(Key key) {
+        CachedSubQuery entry = entries.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns a stamp to pass to put() for a subquery that is about to be built.
+     */
+    long getInvalidationStamp() {
+        return invalidationCounter.get();
+    }
+
+    /**
+     * Caches a built subquery, unless one of its templates was invalidated after the stamp was taken, in which case
+     * the subquery may have been built from the template before it was saved.
+     */
+    void put(Key key, CachedSubQuery entry, long invalidationStamp) {
+        synchronized (this) {
+            for (String templateName : entry.templateNames) {
+                if (invalidatedAt.getOrDefault(templateName, -1L) > invalidationStamp) {
+                    return;
+                }
+            }
+            entries.put(key, entry);
+        }
+    }
+
+
+    Key newKey(String subQueryCall, boolean prepared, boolean commonTableExpressions, Properties properties,
+               DataSource dataSource) {
+        String url = DatabaseMetaData.getMetaDataCacheKey(properties, dataSource);
+        return new Key(subQueryCall,
+                prepared,
+                commonTableExpressions,
+                properties.getProperty(Constants.DATABASE_TYPE),
+                url,
+                MetaDataCache.getInstance().getSchemaVersion(url),
+                properties.getProperty(Constants.IN_LIST_MAX_SIZE),
+                properties.getProperty(Constants.IN_LIST_VALUES_THRESHOLD),
+                properties.getProperty(Constants.IN_LIST_ARRAY_BINDING));
+    }
+
+
+    static final class Key {
+        private final String subQueryCall;
+        private final boolean prepared;
+        private final boolean commonTableExpressions;
+        private final String databaseType;
+        private final String url;
+        private final long schemaVersion;
+        private final String inListMaxSize;
+        private final String inListValuesThreshold;
+        private final String inListArrayBinding;
+
+        private Key(String subQueryCall, boolean prepared, boolean commonTableExpressions, String databaseType, String url,
+                    long schemaVersion, String inListMaxSize, String inListValuesThreshold, String inListArrayBinding) {
+            this.subQueryCall = subQueryCall;
+            this.prepared = prepared;
+            this.commonTableExpressions = commonTableExpressions;
+            this.databaseType = databaseType;
+            this.url = url;
+            this.schemaVersion = schemaVersion;
+            this.inListMaxSize = inListMaxSize;
+            this.inListValuesThreshold = inListValuesThreshold;
+            this.inListArrayBinding = inListArrayBinding;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key that = (Key) o;
+            return this.prepared == that.prepared
+                    && this.commonTableExpressions == that.commonTableExpressions
+                    && this.schemaVersion == that.schemaVersion
+                    && this.subQueryCall.equals(that.subQueryCall)
+                    && Objects.equals(this.databaseType, that.databaseType)
+                    && Objects.equals(this.url, that.url)
+                    && Objects.equals(this.inListMaxSize, that.inListMaxSize)
+                    && Objects.equals(this.inListValuesThreshold, that.inListValuesThreshold)
+                    && Objects.equals(this.inListArrayBinding, that.inListArrayBinding);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subQueryCall, prepared, commonTableExpressions, databaseType, url, schemaVersion);
+        }
+    }
+
+    static final class CachedSubQuery {
+        final String sql;
+
+        /**
+         * The subquery's PreparedSql if it was built as prepared SQL, otherwise null.
+         */
+        final PreparedSql preparedSql;
+
+        /**
+         * The names of every query template that the subquery's SQL was built from.
+         */
+        final Set<String> templateNames;
+
+        /**
+         * The common table expressions that the subquery is written as if subqueries are written as common table
+         * expressions, otherwise null.
+         */
+        final Map<String, PreparedSql> commonTableExpressions;
+
+        CachedSubQuery(String sql, PreparedSql preparedSql, Set<String> templateNames, Map<String, PreparedSql> commonTableExpressions) {
+            this.sql = sql;
+            this.preparedSql = preparedSql;
+            this.templateNames = Collections.unmodifiableSet(new HashSet<>(templateNames));
+            this.commonTableExpressions = commonTableExpressions;
+        }
+    }
+
+    /**
+     * A QueryTemplateDao that invalidates a SubQueryCache when a query template is saved.
+     */
+    private static final class WatchedQueryTemplateDao implements QueryTemplateDao, SubQueryCacheProvider {
+
+        private final QueryTemplateDao queryTemplateDao;
+
+        private final SubQueryCache subQueryCache;
+
+        private WatchedQueryTemplateDao(QueryTemplateDao queryTemplateDao, SubQueryCache subQueryCache) {
+            this.queryTemplateDao = queryTemplateDao;
+            this.subQueryCache = subQueryCache;
+        }
+
+        @Override
+        public SelectStatement getQueryTemplateByName(String name) {
+            return queryTemplateDao.getQueryTemplateByName(name);
+        }
+
+        @Override
+        public Map<String, SelectStatement> getQueryTemplatesByNames(Collection<String> names) {
+            return queryTemplateDao.getQueryTemplatesByNames(names);
+        }
+
+        @Override
+        public boolean save(String primaryKey, String json) {
+            try {
+                return queryTemplateDao.save(primaryKey, json);
+            } finally {
+                subQueryCache.invalidate(primaryKey);
+            }
+        }
+
+        @Override
+        public List<String> getNames(Integer limit, Integer offset, boolean ascending) throws Exception {
+            return queryTemplateDao.getNames(limit, offset, ascending);
+        }
+
+        @Override
+        public SubQueryCache getSubQueryCache() {
+            return subQueryCache;
+        }
+
+        @Override
+        public QueryTemplateDao getWrappedQueryTemplateDao() {
+            return queryTemplateDao;
+        }
+
+        @Override
+        public String toString() {
+            return "Watched " + queryTemplateDao;
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.querybuilder4j.parsers;
+
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
+
+/**
+ * Implemented by a QueryTemplateDao whose query templates' subqueries are cached in a SubQueryCache.  SubQueryParser
+ * checks a statement's QueryTemplateDao, and the QueryTemplateDaos that it wraps, for this interface.  A
+ * SubQueryCacheProvider must invalidate its SubQueryCache when a query template is saved.  Use SubQueryCache.watch() to
+ * get a QueryTemplateDao that does both.
+ */
+public interface SubQueryCacheProvider {
+
+    SubQueryCache getSubQueryCache();
+
+    /**
+     * Returns the SubQueryCache of a QueryTemplateDao or of the first QueryTemplateDao that it wraps that is a
+     * SubQueryCacheProvider.
+     *
+     * @param queryTemplateDao The QueryTemplateDao, which may be null.
+     * @return The SubQueryCache or null if subqueries are built for every statement.
+     */
+    static SubQueryCache of(QueryTemplateDao queryTemplateDao) {
+        for (QueryTemplateDao dao = queryTemplateDao; dao != null; dao = dao.getWrappedQueryTemplateDao()) {
+            if (dao instanceof SubQueryCacheProvider) {
+                return ((SubQueryCacheProvider) dao).getSubQueryCache();
+            }
+        }
+        return null;
+    }
+
+}
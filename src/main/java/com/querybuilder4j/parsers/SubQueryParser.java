@@ -1,9 +1,32 @@
 package com.querybuilder4j.parsers;
 
+import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.databasemetadata.ConnectionPool;
+import com.querybuilder4j.databasemetadata.DatabaseMetaData;
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
+import com.querybuilder4j.sqlbuilders.PreparedSql;
+import com.querybuilder4j.sqlbuilders.SqlDialect;
 import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.utils.BackgroundExecutor;
+import com.querybuilder4j.utils.MurmurHash3;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SubQueryParser {
 
@@ -11,56 +34,262 @@ public class SubQueryParser {
      * A Map of the stmt's subqueries with the key being the subquery id (subquery0, subquery1, etc) and the value being
      * the subquery deserialized into a SelectStatement object.
      */
-    protected Map<String, SelectStatement> unbuiltSubQueries = new HashMap<>();
+    protected Map<String, SelectStatement> unbuiltSubQueries = new ConcurrentHashMap<>();
 
     /**
      * A Map of the stmt's subqueries with the key being the subquery id (subquery0, subquery1, etc) and the value being
-     * the SELECT SQL string generated from the SelectStatement object in the subQueries field of this class.
+     * the SELECT SQL string generated from the SelectStatement object in the subQueries field of this class.  Subqueries
+     * are built concurrently, so this is a ConcurrentHashMap.
      */
-    protected Map<String, String> builtSubQueries = new HashMap<>();
+    protected Map<String, String> builtSubQueries = new ConcurrentHashMap<>();
+
+    /**
+     * A Map of the stmt's subqueries with the key being the subquery id and the value being the PreparedSql generated
+     * from the subquery.  This is only populated if the subqueries are built in prepared mode.
+     */
+    protected Map<String, PreparedSql> builtPreparedSubQueries = new ConcurrentHashMap<>();
+
+    /**
+     * A Map of the stmt's subqueries with the key being the subquery id and the value being the common table
+     * expressions that the subquery is written as, by name, in the order that they must be written in a WITH clause.
+     * The subquery's own common table expression is last and the ones that its SQL selects from are before it.  This is
+     * only populated if subqueries are written as common table expressions.
+     */
+    private final Map<String, Map<String, PreparedSql>> commonTableExpressionsBySubQueryId = new ConcurrentHashMap<>();
+
+    /**
+     * A Map of the stmt's subqueries with the key being the subquery id and the value being the names of the query
+     * templates that the subquery's SQL was built from:  the subquery's template and the templates of the subqueries
+     * that it calls.
+     */
+    private final Map<String, Set<String>> templateNamesBySubQueryId = new ConcurrentHashMap<>();
+
+    /**
+     * The key from getSubQueryKey() of each subquery id whose key has been computed.  Guarded by this object.
+     */
+    private final Map<String, String> subQueryKeys = new HashMap<>();
+
+    /**
+     * The id of a built subquery for each key from getSubQueryKey(), so that a subquery whose call is identical to a
+     * built one takes its SQL.  Guarded by this object.
+     */
+    private final Map<String, String> builtSubQueryIdsByKey = new HashMap<>();
+
+    /**
+     * The query templates that this parser fetched, by name, so that each template is fetched once.
+     */
+    private final Map<String, SelectStatement> queryTemplatesByName = new ConcurrentHashMap<>();
+
+    /**
+     * The names of the query templates that the subqueries of each subquery statement were built from.  A subquery's
+     * own SubQueryParser puts its template names here, so that they can be recorded with the subquery's SQL.
+     */
+    private final Map<SelectStatement, Set<String>> templateNamesByChildStatement =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * The common table expressions that the SQL of each subquery statement selects from.  A subquery's own
+     * SubQueryParser puts them here when its SQL is written, because they are written in the WITH clause of the root
+     * statement.
+     */
+    private final Map<SelectStatement, Map<String, PreparedSql>> commonTableExpressionsByChildStatement =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Whether the subqueries are built with ? placeholders and bind parameters instead of inlined filter values.
+     */
+    protected final boolean prepared;
+
+    /**
+     * Whether each distinct subquery is written once as a common table expression and selected from by name.  See
+     * Constants.SUBQUERIES_AS_COMMON_TABLE_EXPRESSIONS.
+     */
+    protected final boolean commonTableExpressions;
 
     /**
      * The SelectStatement that encapsulates the data to generate the SELECT SQL string.
      */
     protected SelectStatement stmt;
 
+    /**
+     * The SubQueryParser of the statement that stmt is a subquery of, or null.
+     */
+    private final SubQueryParser parent;
+
     public SubQueryParser(SelectStatement stmt) throws Exception {
+        this(stmt, false);
+    }
+
+    /**
+     * @param stmt The SelectStatement whose subqueries should be built.
+     * @param prepared Whether the subqueries should be built with ? placeholders and bind parameters.  If true, then
+     *                 getBuiltPreparedSubQueries() has the bind parameters of each subquery.
+     * @throws Exception If a subquery cannot be found or built.
+     */
+    public SubQueryParser(SelectStatement stmt, boolean prepared) throws Exception {
+        this(stmt, prepared, null);
+    }
+
+    /**
+     * Creates the SubQueryParser of a subquery.  The subqueries that the subquery shares with its parent, which are the
+     * ones that the parent passed to it as arguments, are taken from the parent's SubQueryParser instead of being built
+     * again.
+     *
+     * Subqueries are not fetched or built until they are needed:  getBuiltSubQuery() builds a subquery the first time
+     * that SqlRenderer writes it, and buildSubQueries() builds all of them.  A statement that fails before its WHERE
+     * clause is written does not read its query templates at all.
+     *
+     * @param stmt The SelectStatement whose subqueries should be built.
+     * @param prepared Whether the subqueries should be built with ? placeholders and bind parameters.
+     * @param parent The SubQueryParser of the statement that stmt is a subquery of, or null.
+     * @throws Exception If a subquery cannot be found or built.
+     */
+    public SubQueryParser(SelectStatement stmt, boolean prepared, SubQueryParser parent) throws Exception {
         this.stmt = stmt;
+        this.prepared = prepared;
+        this.parent = parent;
+        this.commonTableExpressions = usesCommonTableExpressions(stmt.getDatabaseMetaData());
 
-        // First, get all SelectStatements that are listed in subqueries.  Later we will replace the params in each subquery.
-        // TODO:  this eager loads the subqueries.  It may be beneficial to consider having a class boolean field for lazy loading.
-        if (this.stmt.getSubQueries().size() != 0 && this.stmt.getQueryTemplateDao() != null) {
+        if (parent != null && parent.prepared == prepared && parent.commonTableExpressions == commonTableExpressions) {
             this.stmt.getSubQueries().forEach((subQueryId, subQueryCall) -> {
-                String subQueryName = subQueryCall.substring(0, subQueryCall.indexOf("("));
-                SelectStatement queryTemplate = this.stmt.getQueryTemplateDao().getQueryTemplateByName(subQueryName);
-
-                if (queryTemplate == null) {
-                    throw new RuntimeException(String.format("Could not find subquery named %s in SqlBuilder's queryTemplateDao", subQueryName));
-                } else {
-                    this.unbuiltSubQueries.put(subQueryId, queryTemplate);
+                String builtSubQuery = parent.builtSubQueries.get(subQueryId);
+                if (builtSubQuery != null && subQueryCall.equals(parent.stmt.getSubQueries().get(subQueryId))) {
+                    this.builtSubQueries.put(subQueryId, builtSubQuery);
+                    this.templateNamesBySubQueryId.put(subQueryId,
+                            parent.templateNamesBySubQueryId.getOrDefault(subQueryId, Collections.emptySet()));
+                    if (prepared) {
+                        this.builtPreparedSubQueries.put(subQueryId, parent.builtPreparedSubQueries.get(subQueryId));
+                    }
+                    if (commonTableExpressions) {
+                        this.commonTableExpressionsBySubQueryId.put(subQueryId, parent.commonTableExpressionsBySubQueryId.get(subQueryId));
+                    }
                 }
             });
         }
-
-        buildSubQueries();
     }
 
+    /**
+     * Returns the subqueries that are built so far.
+     *
+     * @return Map<String, String>
+     */
     public Map<String, String> getBuiltSubQueries() {
         return builtSubQueries;
     }
 
     /**
-     * Determines if all subqueries are built.
-     * @return boolean
+     * Returns the subqueries that are built so far in prepared mode.
+     *
+     * @return Map<String, PreparedSql>
      */
-    private boolean allSubQueriesAreBuilt() {
-        for (String subquery : unbuiltSubQueries.keySet()) {
-            if (! builtSubQueries.containsKey(subquery)) {
-                return false;
+    public Map<String, PreparedSql> getBuiltPreparedSubQueries() {
+        return builtPreparedSubQueries;
+    }
+
+    /**
+     * Returns the SQL of a subquery, building it and the subqueries that are passed to it as arguments if they are not
+     * built yet.  This is safe to call from many threads.
+     *
+     * @param subQueryId The subquery id, such as $0.
+     * @return The subquery's SQL or null if the stmt has no subquery with the id.
+     * @throws Exception If the subquery cannot be found or built.
+     */
+    public String getBuiltSubQuery(String subQueryId) throws Exception {
+        String sql = builtSubQueries.get(subQueryId);
+        if (sql == null && this.stmt.getSubQueries().containsKey(subQueryId)) {
+            buildSubQueries(Collections.singleton(subQueryId));
+            sql = builtSubQueries.get(subQueryId);
+        }
+        return sql;
+    }
+
+    /**
+     * Same as getBuiltSubQuery(), but returns the subquery's PreparedSql.
+     *
+     * @param subQueryId The subquery id, such as $0.
+     * @return The subquery's PreparedSql or null if the stmt has no subquery with the id or this parser is not in
+     *         prepared mode.
+     * @throws Exception If the subquery cannot be found or built.
+     */
+    public PreparedSql getBuiltPreparedSubQuery(String subQueryId) throws Exception {
+        return (getBuiltSubQuery(subQueryId) == null) ? null : builtPreparedSubQueries.get(subQueryId);
+    }
+
+    public boolean isPrepared() {
+        return prepared;
+    }
+
+    public boolean usesCommonTableExpressions() {
+        return commonTableExpressions;
+    }
+
+    /**
+     * Returns the name of a subquery's common table expression, building the subquery if it is not built yet.
+     *
+     * @param subQueryId The subquery id, such as $0.
+     * @return The name or null if the stmt has no subquery with the id or subqueries are not written as common table
+     *         expressions.
+     * @throws Exception If the subquery cannot be found or built.
+     */
+    public String getCommonTableExpressionName(String subQueryId) throws Exception {
+        if (getBuiltSubQuery(subQueryId) == null) {
+            return null;
+        }
+
+        String name = null;
+        for (String commonTableExpressionName : commonTableExpressionsBySubQueryId.getOrDefault(subQueryId, Collections.emptyMap()).keySet()) {
+            name = commonTableExpressionName;
+        }
+        return name;
+    }
+
+    /**
+     * Returns the common table expressions of subqueries and of the subqueries that their SQL selects from, by name, in
+     * the order that they must be written in a WITH clause.  The subqueries are built if they are not built yet.
+     *
+     * If the stmt is itself a subquery, then the common table expressions are written in the WITH clause of the root
+     * statement, so they are handed to the parent's SubQueryParser and an empty Map is returned.
+     *
+     * @param subQueryIds The ids of the subqueries that the stmt's SQL selects from.
+     * @return Map<String, PreparedSql>
+     * @throws Exception If a subquery cannot be found or built, or if two different subqueries have the same name.
+     */
+    public Map<String, PreparedSql> getCommonTableExpressions(Collection<String> subQueryIds) throws Exception {
+        buildSubQueries(subQueryIds);
+
+        Map<String, PreparedSql> commonTableExpressions = new LinkedHashMap<>();
+        for (String subQueryId : subQueryIds) {
+            Map<String, PreparedSql> subQueryCommonTableExpressions = commonTableExpressionsBySubQueryId.get(subQueryId);
+            if (subQueryCommonTableExpressions == null) {
+                continue;
+            }
+
+            for (Map.Entry<String, PreparedSql> commonTableExpression : subQueryCommonTableExpressions.entrySet()) {
+                PreparedSql existing = commonTableExpressions.putIfAbsent(commonTableExpression.getKey(), commonTableExpression.getValue());
+                if (existing != null && ! (existing.getSql().equals(commonTableExpression.getValue().getSql()) &&
+                        existing.getParameters().equals(commonTableExpression.getValue().getParameters()))) {
+                    throw new Exception("Two different subqueries have the common table expression name, " + commonTableExpression.getKey());
+                }
             }
         }
 
-        return true;
+        if (parent != null) {
+            parent.commonTableExpressionsByChildStatement.put(this.stmt, commonTableExpressions);
+            return Collections.emptyMap();
+        }
+        return commonTableExpressions;
+    }
+
+    /**
+     * Returns the names of the query templates that the SQL of the stmt's subqueries was built from, including the
+     * templates of the subqueries that those templates call.
+     *
+     * @return Set<String>
+     */
+    public Set<String> getTemplateNames() {
+        Set<String> templateNames = new HashSet<>();
+        templateNamesBySubQueryId.values().forEach(templateNames::addAll);
+        return templateNames;
     }
 
     /**
@@ -70,11 +299,7 @@ public class SubQueryParser {
      * @return boolean
      */
     public static boolean argIsSubQuery(String arg) {
-        if (arg == null || arg.isEmpty()) {
-            return false;
-        } else {
-            return 0 == arg.toLowerCase().indexOf("$");
-        }
+        return arg != null && ! arg.isEmpty() && arg.charAt(0) == '$';
     }
 
     /**
@@ -98,32 +323,142 @@ public class SubQueryParser {
 
     /**
      * Convenience method for retrieving a subQuery SelectStatement by id, calling the SelectStatement setters (if needed),
-     * calling toSql() to build the SelectStatement's SQL string, and putting the id and SQL string in the builtSubQueries
-     * field.
+     * building the SelectStatement's SQL string, and putting the id and SQL string in the builtSubQueries field.  The
+     * subqueries that are passed to the subquery as arguments must already be built, because the subquery reuses them.
+     *
+     * If the stmt's QueryTemplateDao has a SubQueryCache, then the subquery is put in the cache.
      *
      * @param subQueryId The idea of the subquery.
+     * @param subQueryKey The key of the subquery's call from getSubQueryKey().
      * @param subQueryName The name of the subquery.
      * @param subQueryArgs An array of subquery args in "param=arg" format.
+     * @param invalidationStamp The SubQueryCache's invalidation stamp from before the subquery's template was fetched.
      * @throws Exception If a subquery name cannot be found.
      */
-    private void buildSubQuery(String subQueryId, String subQueryName, String[] subQueryArgs) throws Exception {
-        SelectStatement stmt = unbuiltSubQueries.get(subQueryId);
+    private void buildSubQuery(String subQueryId, String subQueryKey, String subQueryName, String[] subQueryArgs,
+                               long invalidationStamp) throws Exception {
+        QueryTemplateDao queryTemplateDao = this.stmt.getQueryTemplateDao();
+        DatabaseMetaData databaseMetaData = this.stmt.getDatabaseMetaData();
+        SelectStatement queryTemplate = queryTemplatesByName.get(subQueryName);
+        if (queryTemplate == null) {
+            throw new RuntimeException(String.format("Could not find subquery named %s in the queryTemplateDao", subQueryName));
+        }
 
-        if (stmt == null) {
-            String message = String.format("Could not find statement object with name:  %s", subQueryName);
-            throw new Exception(message);
+        // Each subquery is built from its own copy, because building a subquery changes its statement and subqueries
+        // are built concurrently.
+        SelectStatement stmt = queryTemplate.copy();
+        unbuiltSubQueries.put(subQueryId, stmt);
+        if (subQueryArgs.length != 0) {
+            stmt.setCriteriaArguments(getSubQueryArgs(subQueryArgs));
+            stmt.setQueryTemplateDao(queryTemplateDao);
+            stmt.setSubQueries(getRelevantSubQueries(subQueryArgs));
+        }
+
+        String sql;
+        PreparedSql preparedSql = null;
+        if (prepared) {
+            preparedSql = stmt.toPreparedSubQuerySql(databaseMetaData.getProperties(), databaseMetaData.getProvidedDataSource(), this);
+            sql = preparedSql.getSql();
         } else {
-            if (subQueryArgs.length != 0) {
-                stmt.setCriteriaArguments(getSubQueryArgs(subQueryArgs));
-                stmt.setQueryTemplateDao(this.stmt.getQueryTemplateDao());
-                stmt.setSubQueries(getRelevantSubQueries(subQueryArgs));
+            sql = stmt.toSubQuerySql(databaseMetaData.getProperties(), databaseMetaData.getProvidedDataSource(), this);
+        }
+
+        Set<String> templateNames = new HashSet<>();
+        templateNames.add(subQueryName);
+        for (String argSubQueryId : getRelevantSubQueries(subQueryArgs).keySet()) {
+            templateNames.addAll(templateNamesBySubQueryId.getOrDefault(argSubQueryId, Collections.emptySet()));
+        }
+        Set<String> childTemplateNames = templateNamesByChildStatement.remove(stmt);
+        if (childTemplateNames != null) {
+            templateNames.addAll(childTemplateNames);
+        }
+
+        // The subquery is written after the common table expressions that its SQL selects from.
+        Map<String, PreparedSql> commonTableExpressions = null;
+        if (this.commonTableExpressions) {
+            commonTableExpressions = new LinkedHashMap<>();
+            Map<String, PreparedSql> childCommonTableExpressions = commonTableExpressionsByChildStatement.remove(stmt);
+            if (childCommonTableExpressions != null) {
+                commonTableExpressions.putAll(childCommonTableExpressions);
             }
+            commonTableExpressions.put(getCommonTableExpressionName(subQueryName, subQueryKey),
+                    (preparedSql != null) ? preparedSql : new PreparedSql(sql, Collections.emptyList()));
+            commonTableExpressions = Collections.unmodifiableMap(commonTableExpressions);
+        }
 
-            String sql = stmt.toSql(this.stmt.getDatabaseMetaData().getProperties());
-            builtSubQueries.put(subQueryId, sql);
+        putBuiltSubQuery(subQueryId, sql, preparedSql, templateNames, commonTableExpressions);
+        SubQueryCache subQueryCache = SubQueryCacheProvider.of(queryTemplateDao);
+        if (subQueryCache != null) {
+            subQueryCache.put(newCacheKey(subQueryCache, subQueryKey),
+                    new SubQueryCache.CachedSubQuery(sql, preparedSql, templateNames, commonTableExpressions), invalidationStamp);
         }
     }
 
+    /**
+     * Takes a subquery from the stmt's SubQueryCache, if it has one and the subquery is in it.
+     *
+     * @return Whether the subquery was in the cache.
+     */
+    private boolean putCachedSubQuery(SubQueryCache subQueryCache, String subQueryId, String subQueryKey) {
+        SubQueryCache.CachedSubQuery entry = (subQueryCache == null) ? null : subQueryCache.get(newCacheKey(subQueryCache, subQueryKey));
+        if (entry == null) {
+            return false;
+        }
+
+        putBuiltSubQuery(subQueryId, entry.sql, entry.preparedSql, entry.templateNames, entry.commonTableExpressions);
+        return true;
+    }
+
+    private SubQueryCache.Key newCacheKey(SubQueryCache subQueryCache, String subQueryKey) {
+        DatabaseMetaData databaseMetaData = this.stmt.getDatabaseMetaData();
+        return subQueryCache.newKey(subQueryKey, prepared, commonTableExpressions, databaseMetaData.getProperties(),
+                databaseMetaData.getProvidedDataSource());
+    }
+
+    /**
+     * Fetches the templates of subqueries that are not fetched yet with one call of the stmt's QueryTemplateDao.
+     */
+    private void fetchQueryTemplates(Collection<String> subQueryIds) {
+        Set<String> subQueryNames = new LinkedHashSet<>();
+        for (String subQueryId : subQueryIds) {
+            String subQueryCall = this.stmt.getSubQueries().get(subQueryId);
+            String subQueryName = subQueryCall.substring(0, subQueryCall.indexOf("("));
+            if (! queryTemplatesByName.containsKey(subQueryName)) {
+                subQueryNames.add(subQueryName);
+            }
+        }
+        if (subQueryNames.isEmpty()) {
+            return;
+        }
+
+        this.stmt.getQueryTemplateDao().getQueryTemplatesByNames(subQueryNames).forEach((name, queryTemplate) -> {
+            if (queryTemplate != null) {
+                queryTemplatesByName.put(name, queryTemplate);
+            }
+        });
+    }
+
+    /**
+     * Records a subquery that is built or taken from the cache.  Its template names are also added to the parent's
+     * record of this stmt, because the parent's subquery is built from them too.
+     */
+    private void putBuiltSubQuery(String subQueryId, String sql, PreparedSql preparedSql, Set<String> templateNames,
+                                  Map<String, PreparedSql> commonTableExpressions) {
+        templateNamesBySubQueryId.put(subQueryId, templateNames);
+        if (commonTableExpressions != null) {
+            commonTableExpressionsBySubQueryId.put(subQueryId, commonTableExpressions);
+        }
+        if (parent != null) {
+            parent.templateNamesByChildStatement.computeIfAbsent(this.stmt, s -> ConcurrentHashMap.newKeySet())
+                    .addAll(templateNames);
+        }
+        // The SQL is put last, because getBuiltSubQuery() reads it without a lock.
+        if (preparedSql != null) {
+            builtPreparedSubQueries.put(subQueryId, preparedSql);
+        }
+        builtSubQueries.put(subQueryId, sql);
+    }
+
     /**
      * Returns a Map of a subquery's arguments with the keys being the parameters and the values being the arguments.
      *
@@ -146,39 +481,210 @@ public class SubQueryParser {
         return args;
     }
 
+    /**
+     * Returns the args of a subquery call in "param=arg" format.  If the call has no args, then the array is empty.
+     *
+     * @param subQueryCall The subquery call, such as "getRevenue(year=2019)".
+     * @return String[]
+     */
+    private static String[] getSubQueryArgs(String subQueryCall) {
+        String[] subQueryArgs = subQueryCall.substring(subQueryCall.indexOf("(") + 1, subQueryCall.indexOf(")")).split(";");
+
+        // If there are no args, then there will be one element in subQueryArgs and it will be an empty string.
+        if (subQueryArgs.length == 1 && subQueryArgs[0].equals("")) {
+            return new String[0];
+        }
+        return subQueryArgs;
+    }
+
+    /**
+     * Returns a key that is the same for every subquery id whose call has the same name and the same args, with the
+     * args sorted by parameter name and the subquery ids in its args replaced by their own keys.  For example, if $0 is get2014FiscalYear() and $1 is
+     * getDepartmentsByYear(year=$0), then the key of $1 is getDepartmentsByYear(year=get2014FiscalYear()).
+     */
+    private String getSubQueryKey(String subQueryId, Map<String, String> keys, Set<String> visiting) throws Exception {
+        String key = keys.get(subQueryId);
+        if (key != null) {
+            return key;
+        }
+        if (! visiting.add(subQueryId)) {
+            throw new Exception("The subquery calls reference each other in a cycle:  " + this.stmt.getSubQueries());
+        }
+
+        String subQueryCall = this.stmt.getSubQueries().get(subQueryId);
+        Map<String, String> argKeys = new TreeMap<>();
+        for (String paramAndArg : getSubQueryArgs(subQueryCall)) {
+            String[] paramAndArgArray = paramAndArg.split("=", 2);
+            String arg = (paramAndArgArray.length == 2) ? paramAndArgArray[1].trim() : "";
+            argKeys.put(paramAndArgArray[0].trim(),
+                    (this.stmt.getSubQueries().containsKey(arg)) ? getSubQueryKey(arg, keys, visiting) : arg);
+        }
+        StringBuilder keyBuilder = new StringBuilder(subQueryCall.substring(0, subQueryCall.indexOf("("))).append('(');
+        argKeys.forEach((param, argKey) -> {
+            if (keyBuilder.charAt(keyBuilder.length() - 1) != '(') { keyBuilder.append(';'); }
+            keyBuilder.append(param).append('=').append(argKey);
+        });
+        key = keyBuilder.append(')').toString();
+
+        visiting.remove(subQueryId);
+        keys.put(subQueryId, key);
+        return key;
+    }
+
     /**
      * This method controls building subqueries.
      *
      * The overall flow is that each subquery in this.stmt.subQueries, which contains the
      * raw query name call and arguments, is retrieved using this.queryTemplateDao and deserialized into a SelectStatement,
-     * which is added to this.unbuiltSubQueries to await being built.
+     * which is added to this.unbuiltSubQueries while it is built.  Each query template is retrieved once, and not at all
+     * if its subqueries are in the QueryTemplateDao's SubQueryCache.  The templates of a level are retrieved with one
+     * call of getQueryTemplatesByNames().
+     *
+     * The subqueries form a graph, because a subquery can be passed to another subquery as an argument.  The graph is
+     * built in levels:  each level is the subqueries whose argument subqueries are all built.  Subqueries whose calls
+     * are identical, including the calls of their argument subqueries, are only built once.  The other subqueries of a
+     * level are built concurrently, with at most connectionPoolSize (or ConnectionPool.DEFAULT_MAX_SIZE) being built at
+     * one time, because building a subquery can load table schemas.  A chain of subqueries is built in about the time
+     * of its longest path.
      *
-     * Then, each subquery in this.unbuiltSubQueries is
-     * built by calling the toSql() method on each subquery because they are each a SelectStatement object.  When a subquery is
-     * built, the resulting SELECT SQL string is added to this.builtSubQueries.
+     * When a subquery is built, the resulting SELECT SQL string is added to this.builtSubQueries.
      *
-     * Lastly, this.builtSubQueries is referenced by the this.createWhereClause() method to create the WHERE clause of the
-     * SELECT SQL string.
+     * Lastly, this.builtSubQueries is referenced by SqlRenderer to create the WHERE clause of the
+     * SELECT SQL string.  SqlRenderer calls getBuiltSubQuery(), which builds only the subquery that it is writing, so
+     * this method is only needed to build every subquery ahead of time, like CompiledStatement does.
      *
-     * @throws Exception If the index of "(", ")", or ";" cannot be found.
+     * @throws Exception If the index of "(", ")", or ";" cannot be found, or if the subquery calls form a cycle.
      */
-    protected void buildSubQueries() throws Exception {
-        while (! allSubQueriesAreBuilt()) {
-            for (Map.Entry<String, String> subQuery : this.stmt.getSubQueries().entrySet()) {
-                String subQueryId = subQuery.getKey();
-                String subQueryName = subQuery.getValue().substring(0, subQuery.getValue().indexOf("("));
-                String[] subQueryArgs = subQuery.getValue().substring(subQuery.getValue().indexOf("(") + 1, subQuery.getValue().indexOf(")")).split(";");
+    public void buildSubQueries() throws Exception {
+        buildSubQueries(this.stmt.getSubQueries().keySet());
+    }
+
+    /**
+     * Builds subqueries and the subqueries that are passed to them as arguments, if they are not built yet.  See
+     * buildSubQueries().  Building the subqueries that a statement's SQL writes together, rather than one at a time,
+     * fetches the templates of each level with one call of the QueryTemplateDao.
+     *
+     * @param subQueryIds The ids of the subqueries to build.
+     * @throws Exception If a subquery cannot be found or built, or if the subquery calls form a cycle.
+     */
+    public synchronized void buildSubQueries(Collection<String> subQueryIds) throws Exception {
+        if (this.stmt.getQueryTemplateDao() == null) {
+            return;
+        }
+
+        Map<String, String> subQueries = this.stmt.getSubQueries();
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        Deque<String> unvisitedSubQueryIds = new ArrayDeque<>(subQueryIds);
+        while (! unvisitedSubQueryIds.isEmpty()) {
+            String subQueryId = unvisitedSubQueryIds.pop();
+            if (builtSubQueries.containsKey(subQueryId) || dependencies.containsKey(subQueryId)) {
+                continue;
+            }
+            getSubQueryKey(subQueryId, subQueryKeys, new LinkedHashSet<>());
+
+            Set<String> subQueryDependencies = new LinkedHashSet<>();
+            for (String paramAndArg : getSubQueryArgs(subQueries.get(subQueryId))) {
+                String[] paramAndArgArray = paramAndArg.split("=", 2);
+                String arg = (paramAndArgArray.length == 2) ? paramAndArgArray[1].trim() : "";
+                if (subQueries.containsKey(arg)) {
+                    subQueryDependencies.add(arg);
+                    unvisitedSubQueryIds.push(arg);
+                }
+            }
+            dependencies.put(subQueryId, subQueryDependencies);
+        }
 
-                // If there are no args, then there will be one element in subQueryArgs and it will be an empty string.
-                if (subQueryArgs.length == 1 && subQueryArgs[0].equals("")) {
-                    subQueryArgs = new String[0];
+        int maxConcurrency = getMaxConcurrency();
+        while (! dependencies.isEmpty()) {
+            // The subqueries whose argument subqueries are built, with one subquery id for each distinct call.
+            Map<String, String> readySubQueryIdsByKey = new LinkedHashMap<>();
+            List<String> readySubQueryIds = new ArrayList<>();
+            for (Map.Entry<String, Set<String>> subQuery : dependencies.entrySet()) {
+                if (builtSubQueries.keySet().containsAll(subQuery.getValue())) {
+                    readySubQueryIds.add(subQuery.getKey());
+                    String key = subQueryKeys.get(subQuery.getKey());
+                    if (! builtSubQueryIdsByKey.containsKey(key)) {
+                        readySubQueryIdsByKey.putIfAbsent(key, subQuery.getKey());
+                    }
                 }
+            }
+            if (readySubQueryIds.isEmpty()) {
+                throw new Exception("The subquery calls reference each other in a cycle:  " + subQueries);
+            }
+
+            // The subqueries of the level that are in the SubQueryCache are taken from it, and the templates of the
+            // others are fetched with one call.
+            SubQueryCache subQueryCache = SubQueryCacheProvider.of(this.stmt.getQueryTemplateDao());
+            long invalidationStamp = (subQueryCache == null) ? 0 : subQueryCache.getInvalidationStamp();
+            List<String> unbuiltSubQueryIds = new ArrayList<>();
+            for (String subQueryId : readySubQueryIdsByKey.values()) {
+                if (! putCachedSubQuery(subQueryCache, subQueryId, subQueryKeys.get(subQueryId))) {
+                    unbuiltSubQueryIds.add(subQueryId);
+                }
+            }
+            fetchQueryTemplates(unbuiltSubQueryIds);
+
+            try {
+                BackgroundExecutor.forEachBoundedAndWait(unbuiltSubQueryIds, maxConcurrency, subQueryId -> {
+                    String subQueryCall = subQueries.get(subQueryId);
+                    try {
+                        buildSubQuery(subQueryId, subQueryKeys.get(subQueryId), subQueryCall.substring(0, subQueryCall.indexOf("(")),
+                                getSubQueryArgs(subQueryCall), invalidationStamp);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                });
+            } catch (CompletionException e) {
+                Throwable cause = (e.getCause() instanceof CompletionException) ? e.getCause().getCause() : e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+            builtSubQueryIdsByKey.putAll(readySubQueryIdsByKey);
 
-                if (! builtSubQueries.containsKey(subQueryId)) {
-                    buildSubQuery(subQueryId, subQueryName, subQueryArgs);
+            // Subqueries with the same call share the SQL of the one that was built.
+            for (String subQueryId : readySubQueryIds) {
+                String builtSubQueryId = builtSubQueryIdsByKey.get(subQueryKeys.get(subQueryId));
+                if (! builtSubQueryId.equals(subQueryId)) {
+                    putBuiltSubQuery(subQueryId, builtSubQueries.get(builtSubQueryId),
+                            builtPreparedSubQueries.get(builtSubQueryId), templateNamesBySubQueryId.get(builtSubQueryId),
+                            commonTableExpressionsBySubQueryId.get(builtSubQueryId));
                 }
+                dependencies.remove(subQueryId);
             }
+        }
+    }
 
+    /**
+     * Returns the name of a subquery's common table expression.  The name is derived from the subquery's key, so that a
+     * subquery has the same name in every statement and a cached subquery whose SQL selects from another subquery's
+     * common table expression stays correct.  It is at most 30 characters, which is Oracle's limit before 12.2, so it
+     * is the first 8 characters of the subquery's name and the first 64 bits of the MurmurHash3 of the key.
+     */
+    static String getCommonTableExpressionName(String subQueryName, String subQueryKey) {
+        String name = subQueryName.replaceAll("[^A-Za-z0-9_]", "_");
+        if (name.length() > 8) {
+            name = name.substring(0, 8);
         }
+        return String.format("qb4j_%s_%016x", name, new MurmurHash3().putString(subQueryKey).hash()[0]);
+    }
+
+    private static boolean usesCommonTableExpressions(DatabaseMetaData databaseMetaData) {
+        Properties properties = (databaseMetaData == null) ? null : databaseMetaData.getProperties();
+        if (properties == null || ! Boolean.parseBoolean(properties.getProperty(Constants.SUBQUERIES_AS_COMMON_TABLE_EXPRESSIONS))) {
+            return false;
+        }
+
+        String majorVersion = properties.getProperty(Constants.DATABASE_MAJOR_VERSION);
+        return SqlDialect.of(databaseMetaData.getDatabaseType())
+                .supportsCommonTableExpressions((majorVersion == null) ? null : Integer.valueOf(majorVersion.trim()));
+    }
+
+    private int getMaxConcurrency() {
+        DatabaseMetaData databaseMetaData = this.stmt.getDatabaseMetaData();
+        Properties properties = (databaseMetaData == null) ? null : databaseMetaData.getProperties();
+        String poolSize = (properties == null) ? null : properties.getProperty(Constants.CONNECTION_POOL_SIZE);
+        return (poolSize == null) ? ConnectionPool.DEFAULT_MAX_SIZE : Integer.parseInt(poolSize);
     }
 }
@@ -0,0 +1,101 @@
+package com.querybuilder4j.querytree;
+
+import java.util.Objects;
+
+/**
+ * A reference to a table's column, with an optional alias.  The "table.column" names of a SelectStatement are split
+ * once when the statement is lowered into a QueryTree, so renderers do not have to split them again.
+ *
+ * A ColumnRef is immutable.
+ */
+public final class ColumnRef {
+
+    /**
+     * The table name or null if the column name was not qualified with a table.
+     */
+    private final String table;
+
+    private final String column;
+
+    /**
+     * The alias or an empty String if the column has no alias.
+     */
+    private final String alias;
+
+    public ColumnRef(String table, String column, String alias) {
+        this.table = table;
+        this.column = Objects.requireNonNull(column, "column");
+        this.alias = (alias == null) ? "" : alias;
+    }
+
+    /**
+     * Returns the ColumnRef of a column name in "table.column" format.
+     *
+     * @param tableAndColumn The column name.
+     * @return ColumnRef
+     */
+    public static ColumnRef of(String tableAndColumn) {
+        return of(tableAndColumn, "");
+    }
+
+    /**
+     * Returns the ColumnRef of a column name in "table.column" format with an alias.  If the name has no period, then
+     * the whole name is the column.
+     *
+     * @param tableAndColumn The column name.
+     * @param alias The alias or an empty String.
+     * @return ColumnRef
+     */
+    public static ColumnRef of(String tableAndColumn, String alias) {
+        int dotIndex = tableAndColumn.indexOf('.');
+        if (dotIndex == -1) {
+            return new ColumnRef(null, tableAndColumn, alias);
+        }
+        return new ColumnRef(tableAndColumn.substring(0, dotIndex), tableAndColumn.substring(dotIndex + 1), alias);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public boolean hasAlias() {
+        return ! alias.isEmpty();
+    }
+
+    /**
+     * Returns the column name in "table.column" format.
+     *
+     * @return String
+     */
+    public String getFullyQualifiedName() {
+        return (table == null) ? column : table + "." + column;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ColumnRef that = (ColumnRef) o;
+        return Objects.equals(this.table, that.table) && this.column.equals(that.column) && this.alias.equals(that.alias);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(table, column, alias);
+    }
+
+    @Override
+    public String toString() {
+        return (hasAlias()) ? getFullyQualifiedName() + " AS " + alias : getFullyQualifiedName();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.querybuilder4j.querytree;
+
+import com.querybuilder4j.statements.Operator;
+
+import java.util.Objects;
+
+/**
+ * A condition on one column, such as "table"."column" IN ('a','b').
+ *
+ * The filter is kept as the criterion's comma-separated String of values and subquery ids rather than split into a
+ * List, because an IN filter can have tens of thousands of values and renderers scan it in place.
+ */
+public final class Condition extends Predicate {
+
+    private final ColumnRef column;
+
+    private final Operator operator;
+
+    /**
+     * The comma-separated values and subquery ids, or null for operators that have no filter, such as IS NULL.
+     */
+    private final String filter;
+
+    public Condition(ColumnRef column, Operator operator, String filter) {
+        this.column = Objects.requireNonNull(column, "column");
+        this.operator = Objects.requireNonNull(operator, "operator");
+        this.filter = filter;
+    }
+
+    public ColumnRef getColumn() {
+        return column;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Returns a copy of this Condition with another operator and filter.
+     *
+     * @param operator The operator.
+     * @param filter The filter.
+     * @return Condition
+     */
+    public Condition with(Operator operator, String filter) {
+        return new Condition(column, operator, filter);
+    }
+
+    @Override
+    public String toString() {
+        return (filter == null) ? column + " " + operator : column + " " + operator + " " + filter;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.querybuilder4j.querytree;
+
+import com.querybuilder4j.statements.Join;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A join of the QueryTree's table to a target table on pairs of columns, which are joined with AND.
+ *
+ * A JoinNode is immutable.
+ */
+public final class JoinNode {
+
+    private final Join.JoinType joinType;
+
+    private final String targetTable;
+
+    private final List<ColumnRef> parentColumns;
+
+    private final List<ColumnRef> targetColumns;
+
+    /**
+     * @param joinType The join type.
+     * @param targetTable The table that is joined.
+     * @param parentColumns The columns of the parent table.
+     * @param targetColumns The columns of the target table, in the same order as the parent columns that they equal.
+     * @throws RuntimeException If there are differing numbers of parent and target columns.
+     */
+    public JoinNode(Join.JoinType joinType, String targetTable, List<ColumnRef> parentColumns, List<ColumnRef> targetColumns) {
+        if (parentColumns.size() != targetColumns.size()) {
+            throw new RuntimeException("The parent and target join columns have differing number of elements.");
+        }
+
+        this.joinType = joinType;
+        this.targetTable = targetTable;
+        this.parentColumns = Collections.unmodifiableList(new ArrayList<>(parentColumns));
+        this.targetColumns = Collections.unmodifiableList(new ArrayList<>(targetColumns));
+    }
+
+    /**
+     * Returns the JoinNode of a Join.
+     *
+     * @param join The Join.
+     * @return JoinNode
+     */
+    public static JoinNode of(Join join) {
+        return new JoinNode(join.getJoinType(), join.getTargetTable(), toColumnRefs(join.getParentJoinColumns()),
+                toColumnRefs(join.getTargetJoinColumns()));
+    }
+
+    public Join.JoinType getJoinType() {
+        return joinType;
+    }
+
+    public String getTargetTable() {
+        return targetTable;
+    }
+
+    public List<ColumnRef> getParentColumns() {
+        return parentColumns;
+    }
+
+    public List<ColumnRef> getTargetColumns() {
+        return targetColumns;
+    }
+
+    private static List<ColumnRef> toColumnRefs(List<String> columns) {
+        List<ColumnRef> columnRefs = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            columnRefs.add(ColumnRef.of(column));
+        }
+        return columnRefs;
+    }
+
+}
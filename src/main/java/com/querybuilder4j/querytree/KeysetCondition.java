@@ -0,0 +1,69 @@
+package com.querybuilder4j.querytree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A condition that a row sorts after the last row of the previous page, which is how keyset pagination skips the rows
+ * of the previous pages.  For the sort keys a ASC, b ASC and the last-seen values 1 and 'x', it is the row value
+ * comparison (a, b) > (1, 'x'), which is written in the expanded form (a > 1 OR (a = 1 AND b > 'x')) by databases that
+ * do not support row value comparisons or when the sort keys have different directions.
+ *
+ * Unlike an offset, the condition can use an index on the sort keys, so every page costs the same as the first one.
+ */
+public final class KeysetCondition extends Predicate {
+
+    private final List<SortKey> sortKeys;
+
+    /**
+     * The last-seen value of each sort key, in the order of the sort keys.
+     */
+    private final List<String> values;
+
+    /**
+     * @param sortKeys The ORDER BY columns.
+     * @param values The last-seen value of each sort key.
+     * @throws IllegalArgumentException If there are no sort keys or not one value for each sort key.
+     */
+    public KeysetCondition(List<SortKey> sortKeys, List<String> values) {
+        if (sortKeys.isEmpty()) { throw new IllegalArgumentException("A keyset condition requires at least one sort key"); }
+        if (sortKeys.size() != values.size()) {
+            throw new IllegalArgumentException(String.format("There are %s sort keys, but %s keyset values",
+                    sortKeys.size(), values.size()));
+        }
+
+        this.sortKeys = Collections.unmodifiableList(new ArrayList<>(sortKeys));
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    public List<SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns whether every sort key has the same direction, which is when the condition can be written as one row
+     * value comparison.
+     *
+     * @return boolean
+     */
+    public boolean hasUniformDirection() {
+        boolean descending = sortKeys.get(0).isDescending();
+        for (SortKey sortKey : sortKeys) {
+            if (sortKey.isDescending() != descending) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "KEYSET " + sortKeys.size() + " " + values;
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.querybuilder4j.querytree;
+
+/**
+ * A node of a QueryTree's WHERE clause:  a Condition on one column, a KeysetCondition that seeks past the last row of
+ * the previous page, or a PredicateGroup of predicates.
+ *
+ * Predicates are immutable.
+ */
+public abstract class Predicate {
+
+    Predicate() {}
+
+}
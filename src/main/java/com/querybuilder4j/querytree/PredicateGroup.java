@@ -0,0 +1,143 @@
+package com.querybuilder4j.querytree;
+
+import com.querybuilder4j.statements.Conjunction;
+import com.querybuilder4j.statements.Criteria;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A sequence of predicates joined by conjunctions, such as a AND (b OR c).  The terms are kept in order and are not
+ * reassociated, so a group renders exactly the conjunctions that were given.  The conjunction of the first term is not
+ * written.
+ *
+ * The WHERE clause of a QueryTree is its root PredicateGroup.  Nested groups are written in parenthesis.
+ *
+ * A PredicateGroup is immutable.
+ */
+public final class PredicateGroup extends Predicate {
+
+    private static final Comparator<Criteria> CRITERIA_BY_ID = Comparator.comparing(Criteria::getId,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * A predicate and the conjunction that joins it to the previous term.
+     */
+    public static final class Term {
+        private final Conjunction conjunction;
+        private final Predicate predicate;
+
+        public Term(Conjunction conjunction, Predicate predicate) {
+            this.conjunction = conjunction;
+            this.predicate = predicate;
+        }
+
+        public Conjunction getConjunction() {
+            return conjunction;
+        }
+
+        public Predicate getPredicate() {
+            return predicate;
+        }
+    }
+
+    private final List<Term> terms;
+
+    public PredicateGroup(List<Term> terms) {
+        this.terms = Collections.unmodifiableList(new ArrayList<>(terms));
+    }
+
+    /**
+     * Returns the predicate tree of a statement's criteria, or null if there are no criteria.  The criteria are ordered
+     * by id.  A criterion that is the parent of other criteria starts a nested group, which holds the parent followed by
+     * its children.  A criterion is only a child if its parent comes before it, so that a list of criteria whose parents
+     * are missing or out of order still renders every criterion.  The criteria are not changed.
+     *
+     * @param criteria The statement's criteria.
+     * @return PredicateGroup
+     */
+    public static PredicateGroup of(List<Criteria> criteria) {
+        if (criteria.isEmpty()) {
+            return null;
+        }
+
+        List<Criteria> sortedCriteria = new ArrayList<>(criteria);
+        sortedCriteria.sort(CRITERIA_BY_ID);
+
+        List<Criteria> roots = new ArrayList<>();
+        Map<Integer, List<Criteria>> childrenByParentId = new HashMap<>();
+        Map<Integer, Criteria> criteriaById = new HashMap<>();
+        for (Criteria criterion : sortedCriteria) {
+            Integer parentId = criterion.getParentId();
+            if (parentId != null && criteriaById.containsKey(parentId)) {
+                childrenByParentId.computeIfAbsent(parentId, (id) -> new ArrayList<>()).add(criterion);
+            } else {
+                roots.add(criterion);
+            }
+
+            if (criterion.getId() != null) {
+                criteriaById.putIfAbsent(criterion.getId(), criterion);
+            }
+        }
+
+        List<Term> terms = new ArrayList<>(roots.size());
+        for (Criteria root : roots) {
+            terms.add(toTerm(root, childrenByParentId));
+        }
+        return new PredicateGroup(terms);
+    }
+
+    public List<Term> getTerms() {
+        return terms;
+    }
+
+    /**
+     * Returns whether a term after the first is joined with OR.  A predicate that is added to such a group with AND must
+     * wrap the group in parenthesis first, because AND takes precedence over OR.
+     *
+     * @return boolean
+     */
+    public boolean hasOrTerm() {
+        for (int i=1; i<terms.size(); i++) {
+            if (terms.get(i).getConjunction() == Conjunction.Or) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a copy of this group with another term added to the end.
+     *
+     * @param conjunction The conjunction that joins the predicate to the last term.
+     * @param predicate The predicate.
+     * @return PredicateGroup
+     */
+    public PredicateGroup and(Conjunction conjunction, Predicate predicate) {
+        List<Term> terms = new ArrayList<>(this.terms.size() + 1);
+        terms.addAll(this.terms);
+        terms.add(new Term(conjunction, predicate));
+        return new PredicateGroup(terms);
+    }
+
+    private static Term toTerm(Criteria criterion, Map<Integer, List<Criteria>> childrenByParentId) {
+        Condition condition = new Condition(ColumnRef.of(criterion.getColumn()), criterion.getOperator(), criterion.getFilter());
+
+        List<Criteria> children = (criterion.getId() == null) ? null : childrenByParentId.get(criterion.getId());
+        if (children == null) {
+            return new Term(criterion.getConjunction(), condition);
+        }
+
+        List<Term> terms = new ArrayList<>(children.size() + 1);
+        terms.add(new Term(null, condition));
+        for (Criteria child : children) {
+            terms.add(toTerm(child, childrenByParentId));
+        }
+        return new Term(criterion.getConjunction(), new PredicateGroup(terms));
+    }
+
+}
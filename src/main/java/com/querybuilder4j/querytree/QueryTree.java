@@ -0,0 +1,260 @@
+package com.querybuilder4j.querytree;
+
+import com.querybuilder4j.statements.Column;
+import com.querybuilder4j.statements.Conjunction;
+import com.querybuilder4j.statements.Join;
+import com.querybuilder4j.statements.Operator;
+import com.querybuilder4j.statements.SelectStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A typed, immutable representation of a SELECT statement:  the select list, the table, the joins, a predicate tree
+ * for the WHERE clause, the GROUP BY and ORDER BY columns, and the limit and offset.
+ *
+ * A SelectStatement is lowered into a QueryTree with of(), after its parameters are replaced and it is validated.
+ * QueryTreePasses rewrite the tree and a SqlRenderer writes it in a database's dialect, so neither has to change the
+ * statement's criteria or search SQL strings.
+ */
+public final class QueryTree {
+
+    private final boolean distinct;
+
+    private final List<ColumnRef> columns;
+
+    private final String table;
+
+    private final List<JoinNode> joins;
+
+    /**
+     * The conditions of the WHERE clause or null if there is no WHERE clause.
+     */
+    private final PredicateGroup where;
+
+    private final List<ColumnRef> groupBy;
+
+    private final List<SortKey> orderBy;
+
+    private final Long limit;
+
+    private final Long offset;
+
+    public QueryTree(boolean distinct, List<ColumnRef> columns, String table, List<JoinNode> joins, PredicateGroup where,
+                     List<ColumnRef> groupBy, List<SortKey> orderBy, Long limit, Long offset) {
+        this.distinct = distinct;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.table = table;
+        this.joins = Collections.unmodifiableList(new ArrayList<>(joins));
+        this.where = where;
+        this.groupBy = Collections.unmodifiableList(new ArrayList<>(groupBy));
+        this.orderBy = Collections.unmodifiableList(new ArrayList<>(orderBy));
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    /**
+     * Lowers a SelectStatement into a QueryTree.  The criteria become a predicate tree that is grouped by the criteria's
+     * parent ids.  Excluding joins add a condition that the join columns of the excluded side are null, and suppressing
+     * nulls adds a condition that at least one selected column is not null.  Keyset values add a KeysetCondition on
+     * the ORDER BY columns.  The statement is not changed.
+     *
+     * @param stmt The SelectStatement.
+     * @return QueryTree
+     * @throws RuntimeException If a join has differing numbers of parent and target columns.
+     * @throws IllegalArgumentException If there are keyset values, but not one for each ORDER BY column.
+     */
+    public static QueryTree of(SelectStatement stmt) {
+        List<ColumnRef> columns = new ArrayList<>(stmt.getColumns().size());
+        List<ColumnRef> columnNames = new ArrayList<>(stmt.getColumns().size());
+        for (Column column : stmt.getColumns()) {
+            ColumnRef columnRef = ColumnRef.of(column.getFullyQualifiedName(), column.getAlias());
+            columns.add(columnRef);
+            columnNames.add((columnRef.hasAlias()) ? new ColumnRef(columnRef.getTable(), columnRef.getColumn(), "") : columnRef);
+        }
+
+        List<JoinNode> joins = new ArrayList<>(stmt.getJoins().size());
+        for (Join join : stmt.getJoins()) {
+            joins.add(JoinNode.of(join));
+        }
+
+        PredicateGroup where = PredicateGroup.of(stmt.getCriteria());
+        for (JoinNode join : joins) {
+            where = and(where, getExcludedRowsCondition(join));
+        }
+        if (stmt.isSuppressNulls()) {
+            where = and(where, anyOf(columnNames, Operator.isNotNull, true));
+        }
+
+        // The direction is written once after the last column, as the statement's ascending flag has always been.
+        List<SortKey> orderBy = new ArrayList<>();
+        if (stmt.isOrderBy()) {
+            for (int i=0; i<columnNames.size(); i++) {
+                SortKey.Direction direction = SortKey.Direction.UNSPECIFIED;
+                if (i == columnNames.size() - 1) {
+                    direction = (stmt.isAscending()) ? SortKey.Direction.ASC : SortKey.Direction.DESC;
+                }
+                orderBy.add(new SortKey(columnNames.get(i), direction));
+            }
+        }
+
+        List<String> keysetValues = stmt.getKeysetValues();
+        if (keysetValues != null && ! keysetValues.isEmpty()) {
+            where = and(where, new KeysetCondition(orderBy, keysetValues));
+        }
+
+        return new QueryTree(stmt.isDistinct(), columns, stmt.getTable(), joins, where,
+                (stmt.isGroupBy()) ? columnNames : Collections.emptyList(), orderBy, stmt.getLimit(), stmt.getOffset());
+    }
+
+    /**
+     * Returns the condition that an excluding join adds to the WHERE clause, which is that the join columns of the
+     * excluded side are null, or null if the join is not an excluding join.
+     */
+    private static Predicate getExcludedRowsCondition(JoinNode join) {
+        switch (join.getJoinType()) {
+            case LEFT_EXCLUDING:
+                return anyOf(join.getTargetColumns(), Operator.isNull, false);
+            case RIGHT_EXCLUDING:
+                return anyOf(join.getParentColumns(), Operator.isNull, false);
+            case FULL_OUTER_EXCLUDING:
+                List<ColumnRef> allJoinColumns = new ArrayList<>(join.getParentColumns());
+                allJoinColumns.addAll(join.getTargetColumns());
+                return anyOf(allJoinColumns, Operator.isNull, false);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns a group of conditions on the columns joined with OR, or the condition on the only column unless
+     * alwaysGroup is true.  Returns null if there are no columns.
+     */
+    private static Predicate anyOf(List<ColumnRef> columns, Operator operator, boolean alwaysGroup) {
+        if (columns.isEmpty()) {
+            return null;
+        }
+        if (columns.size() == 1 && ! alwaysGroup) {
+            return new Condition(columns.get(0), operator, null);
+        }
+
+        List<PredicateGroup.Term> terms = new ArrayList<>(columns.size());
+        for (ColumnRef column : columns) {
+            terms.add(new PredicateGroup.Term(Conjunction.Or, new Condition(column, operator, null)));
+        }
+        return new PredicateGroup(terms);
+    }
+
+    /**
+     * Adds a predicate to a WHERE clause with AND.  If the WHERE clause has conditions joined with OR, then it is
+     * wrapped in parenthesis first, because AND takes precedence over OR and the predicate must hold for every row.
+     */
+    private static PredicateGroup and(PredicateGroup where, Predicate predicate) {
+        if (predicate == null) {
+            return where;
+        }
+        if (where == null) {
+            return new PredicateGroup(Collections.singletonList(new PredicateGroup.Term(null, predicate)));
+        }
+
+        if (where.hasOrTerm()) {
+            return new PredicateGroup(Arrays.asList(new PredicateGroup.Term(null, where),
+                    new PredicateGroup.Term(Conjunction.And, predicate)));
+        }
+        return where.and(Conjunction.And, predicate);
+    }
+
+    /**
+     * Applies passes to this tree in order.
+     *
+     * @param passes The QueryTreePasses.
+     * @return The rewritten QueryTree.
+     */
+    public QueryTree apply(List<QueryTreePass> passes) {
+        QueryTree tree = this;
+        for (QueryTreePass pass : passes) {
+            tree = pass.apply(tree);
+        }
+        return tree;
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    public List<ColumnRef> getColumns() {
+        return columns;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public List<JoinNode> getJoins() {
+        return joins;
+    }
+
+    public PredicateGroup getWhere() {
+        return where;
+    }
+
+    public List<ColumnRef> getGroupBy() {
+        return groupBy;
+    }
+
+    public List<SortKey> getOrderBy() {
+        return orderBy;
+    }
+
+    public Long getLimit() {
+        return limit;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns a copy of this tree with other SELECT columns.
+     *
+     * @param columns The SELECT columns.
+     * @return QueryTree
+     */
+    public QueryTree withColumns(List<ColumnRef> columns) {
+        return new QueryTree(distinct, columns, table, joins, where, groupBy, orderBy, limit, offset);
+    }
+
+    /**
+     * Returns a copy of this tree with another WHERE clause.
+     *
+     * @param where The conditions of the WHERE clause or null for no WHERE clause.
+     * @return QueryTree
+     */
+    public QueryTree withWhere(PredicateGroup where) {
+        return new QueryTree(distinct, columns, table, joins, where, groupBy, orderBy, limit, offset);
+    }
+
+    /**
+     * Returns a copy of this tree with another ORDER BY clause.
+     *
+     * @param orderBy The ORDER BY columns or an empty List for no ORDER BY clause.
+     * @return QueryTree
+     */
+    public QueryTree withOrderBy(List<SortKey> orderBy) {
+        return new QueryTree(distinct, columns, table, joins, where, groupBy, orderBy, limit, offset);
+    }
+
+    /**
+     * Returns a copy of this tree with another limit and offset.
+     *
+     * @param limit The limit or null for no limit.
+     * @param offset The offset or null for no offset.
+     * @return QueryTree
+     */
+    public QueryTree withPagination(Long limit, Long offset) {
+        return new QueryTree(distinct, columns, table, joins, where, groupBy, orderBy, limit, offset);
+    }
+
+}
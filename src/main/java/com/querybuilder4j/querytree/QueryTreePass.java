@@ -0,0 +1,18 @@
+package com.querybuilder4j.querytree;
+
+/**
+ * A rewrite of a QueryTree, such as an optimization, that runs after a SelectStatement is lowered into a QueryTree and
+ * before the tree is rendered.  A pass returns a new tree, or the same tree if it has nothing to rewrite, and must not
+ * change the results of the query.
+ */
+public interface QueryTreePass {
+
+    /**
+     * Rewrites a QueryTree.
+     *
+     * @param tree The QueryTree.
+     * @return The rewritten QueryTree or the tree parameter if nothing was rewritten.
+     */
+    QueryTree apply(QueryTree tree);
+
+}
@@ -0,0 +1,64 @@
+package com.querybuilder4j.querytree;
+
+import com.querybuilder4j.statements.Operator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites IN and NOT IN conditions that have exactly one value, such as "department" IN ('Police'), into = and <>
+ * conditions.  Some databases plan an equality better than a one-value IN list, and the rewritten condition does not
+ * depend on the dialect's IN list strategy.  Conditions whose filter is a subquery are not rewritten.
+ */
+public final class SingleValueInPass implements QueryTreePass {
+
+    @Override
+    public QueryTree apply(QueryTree tree) {
+        PredicateGroup where = tree.getWhere();
+        if (where == null) {
+            return tree;
+        }
+
+        PredicateGroup rewrittenWhere = rewrite(where);
+        return (rewrittenWhere == where) ? tree : tree.withWhere(rewrittenWhere);
+    }
+
+    private PredicateGroup rewrite(PredicateGroup group) {
+        List<PredicateGroup.Term> terms = null;
+        for (int i=0; i<group.getTerms().size(); i++) {
+            PredicateGroup.Term term = group.getTerms().get(i);
+            Predicate predicate = term.getPredicate();
+            Predicate rewrittenPredicate = predicate;
+            if (predicate instanceof PredicateGroup) {
+                rewrittenPredicate = rewrite((PredicateGroup) predicate);
+            } else if (predicate instanceof Condition) {
+                rewrittenPredicate = rewrite((Condition) predicate);
+            }
+
+            if (rewrittenPredicate != predicate && terms == null) {
+                terms = new ArrayList<>(group.getTerms().subList(0, i));
+            }
+            if (terms != null) {
+                terms.add((rewrittenPredicate == predicate) ? term : new PredicateGroup.Term(term.getConjunction(), rewrittenPredicate));
+            }
+        }
+        return (terms == null) ? group : new PredicateGroup(terms);
+    }
+
+    private Condition rewrite(Condition condition) {
+        Operator operator = condition.getOperator();
+        if (operator != Operator.in && operator != Operator.notIn) {
+            return condition;
+        }
+
+        String filter = condition.getFilter();
+        boolean isOneValue = filter != null && ! filter.isEmpty() && filter.indexOf(',') == -1
+                && filter.charAt(0) != '$' && filter.charAt(0) != '@';
+        if (! isOneValue) {
+            return condition;
+        }
+
+        return condition.with((operator == Operator.in) ? Operator.equalTo : Operator.notEqualTo, filter);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.querybuilder4j.querytree;
+
+import java.util.Objects;
+
+/**
+ * A column of an ORDER BY clause and its direction.
+ *
+ * A SortKey is immutable.
+ */
+public final class SortKey {
+
+    public enum Direction {
+        /**
+         * No direction is written, so the database sorts ascending.
+         */
+        UNSPECIFIED {
+            @Override
+            public String toString() {
+                return "";
+            }
+        },
+        ASC {
+            @Override
+            public String toString() {
+                return " ASC";
+            }
+        },
+        DESC {
+            @Override
+            public String toString() {
+                return " DESC";
+            }
+        }
+    }
+
+    private final ColumnRef column;
+
+    private final Direction direction;
+
+    public SortKey(ColumnRef column, Direction direction) {
+        this.column = Objects.requireNonNull(column, "column");
+        this.direction = Objects.requireNonNull(direction, "direction");
+    }
+
+    public ColumnRef getColumn() {
+        return column;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns whether the column is sorted in descending order.
+     *
+     * @return boolean
+     */
+    public boolean isDescending() {
+        return direction == Direction.DESC;
+    }
+
+}
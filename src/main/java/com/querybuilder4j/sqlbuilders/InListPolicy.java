@@ -0,0 +1,159 @@
+package com.querybuilder4j.sqlbuilders;
+
+import com.querybuilder4j.config.Constants;
+
+import java.util.Properties;
+
+/**
+ * Decides how a dialect writes IN and NOT IN criteria, based on the number of values in the filter.  Each SqlDialect has
+ * a default InListPolicy, and the limits can be changed with the inListMaxSize, inListValuesThreshold, and
+ * inListArrayBinding properties.
+ *
+ * An InListPolicy is immutable.
+ */
+public final class InListPolicy {
+
+    /**
+     * The largest number of values in one IN list.  Longer lists are split into IN lists joined by OR.
+     */
+    private final int maxListSize;
+
+    /**
+     * The largest number of bind parameters in one prepared statement.  The values of an IN list that would pass this
+     * limit are inlined as literals instead of bound.
+     */
+    private final int maxParameters;
+
+    /**
+     * The number of values above which the IN list is written as a VALUES derived table.
+     */
+    private final int valuesThreshold;
+
+    /**
+     * Whether prepared SQL binds the values of an IN list as one array parameter.
+     */
+    private final boolean arrayBinding;
+
+    /**
+     * Whether the database needs the VALUES rows wrapped in SELECT ... FROM, as SqlServer does, rather than accepting
+     * VALUES as a subquery by itself.
+     */
+    private final boolean selectFromValues;
+
+    /**
+     * Whether the database types the VALUES rows of quoted literals as text, as PostgreSQL does, so that it cannot
+     * compare them to a date or uuid column unless they are cast to the column's type.
+     */
+    private final boolean castValues;
+
+    public InListPolicy(int maxListSize, int maxParameters, int valuesThreshold, boolean arrayBinding,
+                        boolean selectFromValues, boolean castValues) {
+        if (maxListSize < 1) {
+            throw new IllegalArgumentException("maxListSize must be at least 1");
+        }
+        this.maxListSize = maxListSize;
+        this.maxParameters = maxParameters;
+        this.valuesThreshold = valuesThreshold;
+        this.arrayBinding = arrayBinding;
+        this.selectFromValues = selectFromValues;
+        this.castValues = castValues;
+    }
+
+    /**
+     * Returns a copy of this InListPolicy with the limits in the properties parameter, or this InListPolicy if the
+     * properties do not set any.
+     *
+     * @param properties The database properties.
+     * @return InListPolicy
+     */
+    public InListPolicy withProperties(Properties properties) {
+        if (properties == null) {
+            return this;
+        }
+
+        String maxListSize = properties.getProperty(Constants.IN_LIST_MAX_SIZE);
+        String valuesThreshold = properties.getProperty(Constants.IN_LIST_VALUES_THRESHOLD);
+        String arrayBinding = properties.getProperty(Constants.IN_LIST_ARRAY_BINDING);
+        if (maxListSize == null && valuesThreshold == null && arrayBinding == null) {
+            return this;
+        }
+
+        return new InListPolicy(
+                (maxListSize == null) ? this.maxListSize : Integer.parseInt(maxListSize.trim()),
+                this.maxParameters,
+                (valuesThreshold == null) ? this.valuesThreshold : Integer.parseInt(valuesThreshold.trim()),
+                (arrayBinding == null) ? this.arrayBinding : Boolean.parseBoolean(arrayBinding.trim()),
+                this.selectFromValues,
+                this.castValues);
+    }
+
+    /**
+     * Returns the strategy to write an IN list with.
+     *
+     * @param size The number of values in the IN list.
+     * @param prepared Whether the SQL is built with ? placeholders.
+     * @return InListStrategy
+     */
+    public InListStrategy choose(int size, boolean prepared) {
+        return choose(size, prepared, true);
+    }
+
+    /**
+     * Returns the strategy to write an IN list with.
+     *
+     * @param size The number of values in the IN list.
+     * @param prepared Whether the SQL is built with ? placeholders.
+     * @param typedValues Whether the values can be written as an array parameter or VALUES rows of the column's type.
+     *                    If not, the values are written in IN lists.
+     * @return InListStrategy
+     */
+    public InListStrategy choose(int size, boolean prepared, boolean typedValues) {
+        if (prepared && arrayBinding && typedValues) {
+            return InListStrategy.ARRAY_PARAMETER;
+        }
+        if (size > valuesThreshold && typedValues) {
+            return InListStrategy.VALUES_TABLE;
+        }
+        if (size > maxListSize) {
+            return InListStrategy.CHUNKED_OR;
+        }
+        return InListStrategy.LITERAL;
+    }
+
+    /**
+     * Returns whether the values of an IN list in prepared SQL are inlined instead of bound, because binding them would
+     * pass the database's limit of bind parameters.
+     *
+     * @param size The number of values in the IN list.
+     * @param parameterCount The number of bind parameters before the IN list.
+     * @return boolean
+     */
+    public boolean inlinesParameters(int size, int parameterCount) {
+        return (long) parameterCount + size > maxParameters;
+    }
+
+    public int getMaxListSize() {
+        return maxListSize;
+    }
+
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    public int getValuesThreshold() {
+        return valuesThreshold;
+    }
+
+    public boolean isArrayBinding() {
+        return arrayBinding;
+    }
+
+    public boolean isSelectFromValues() {
+        return selectFromValues;
+    }
+
+    public boolean isCastValues() {
+        return castValues;
+    }
+
+}
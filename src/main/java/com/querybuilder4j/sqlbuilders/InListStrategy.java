@@ -0,0 +1,32 @@
+package com.querybuilder4j.sqlbuilders;
+
+/**
+ * The ways that SqlRenderer can write an IN or NOT IN criterion whose filter is a list of values.  InListPolicy picks
+ * one based on the number of values.
+ */
+public enum InListStrategy {
+
+    /**
+     * column IN (value1,value2,...)
+     */
+    LITERAL,
+
+    /**
+     * (column IN (value1,...,valueN) OR column IN (valueN+1,...)), for databases that limit the number of values in an
+     * IN list, such as Oracle's limit of 1,000.  NOT IN lists are joined with AND.
+     */
+    CHUNKED_OR,
+
+    /**
+     * column = ANY(?), with all values bound as one array parameter.  NOT IN is written as column <> ALL(?).  This is
+     * only used for prepared SQL, and gives the database one SQL string, and so one cached plan, for any number of
+     * values.
+     */
+    ARRAY_PARAMETER,
+
+    /**
+     * column IN (VALUES (value1),(value2),...), which the database treats as a derived table that it can hash or join
+     * instead of comparing against a long list.
+     */
+    VALUES_TABLE
+}
@@ -0,0 +1,71 @@
+package com.querybuilder4j.sqlbuilders;
+
+/**
+ * The SQL of one page of a statement's rows and the SQL that counts all of the statement's rows, which paged grids
+ * need to show the number of pages.  Create one with CompiledStatement.toPagedSql().
+ *
+ * The count is either a separate query, whose SQL is getCountSql(), or a window count, which is a column of the page
+ * query named TOTAL_COUNT_COLUMN that holds the count in every row.  A window count saves a round trip to the
+ * database, but a page past the last row has no rows and so no count.
+ */
+public final class PagedSql {
+
+    /**
+     * The name of the column of a window count.
+     */
+    public static final String TOTAL_COUNT_COLUMN = "qb4j_total_count";
+
+    /**
+     * How the rows of a statement are counted.
+     */
+    public enum CountStrategy {
+        /**
+         * SELECT COUNT(*) in a separate query.
+         */
+        COUNT_QUERY,
+
+        /**
+         * A COUNT(*) OVER() column of the page query.  A separate query is used instead if the dialect does not
+         * support window functions, the statement is DISTINCT, because DISTINCT is applied after the window function,
+         * or the statement is a keyset page, because its WHERE clause skips the rows of the previous pages.
+         */
+        WINDOW_FUNCTION
+    }
+
+    private final String pageSql;
+
+    private final String countSql;
+
+    public PagedSql(String pageSql, String countSql) {
+        this.pageSql = pageSql;
+        this.countSql = countSql;
+    }
+
+    public String getPageSql() {
+        return pageSql;
+    }
+
+    /**
+     * Returns the SQL that counts the statement's rows, or null if the page query has a window count.
+     *
+     * @return String
+     */
+    public String getCountSql() {
+        return countSql;
+    }
+
+    /**
+     * Returns whether the count is the TOTAL_COUNT_COLUMN of the page query rather than a separate query.
+     *
+     * @return boolean
+     */
+    public boolean hasWindowCount() {
+        return countSql == null;
+    }
+
+    @Override
+    public String toString() {
+        return (countSql == null) ? pageSql : pageSql + "; " + countSql;
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.querybuilder4j.sqlbuilders;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A SELECT SQL string with a ? placeholder for each criteria filter value and the values to bind to the placeholders,
+ * in placeholder order.  Because the SQL string does not change when the filter values change, the database can reuse
+ * its cached execution plan.
+ */
+public final class PreparedSql {
+
+    private final String sql;
+
+    private final List<Parameter> parameters;
+
+    public PreparedSql(String sql, List<Parameter> parameters) {
+        this.sql = sql;
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Parameter> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Binds the parameters to a PreparedStatement that was created from getSql().
+     *
+     * @param preparedStatement The PreparedStatement.
+     * @throws SQLException If a parameter cannot be bound.
+     */
+    public void bind(PreparedStatement preparedStatement) throws SQLException {
+        for (int i=0; i<parameters.size(); i++) {
+            parameters.get(i).bind(preparedStatement, i + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + parameters;
+    }
+
+    /**
+     * A value to bind to a ? placeholder and the JDBC type of the column it is compared to.
+     */
+    public static final class Parameter {
+
+        private final Object value;
+
+        private final int jdbcType;
+
+        /**
+         * The JDBC type of the elements if this is an array parameter.  Otherwise, this is the same as jdbcType.
+         */
+        private final int elementJdbcType;
+
+        public Parameter(Object value, int jdbcType) {
+            this(value, jdbcType, jdbcType);
+        }
+
+        private Parameter(Object value, int jdbcType, int elementJdbcType) {
+            this.value = value;
+            this.jdbcType = jdbcType;
+            this.elementJdbcType = elementJdbcType;
+        }
+
+        /**
+         * Creates a Parameter from a criterion's filter value.  Values for number and boolean columns are parsed into
+         * the matching Java type, ignoring surrounding whitespace like SqlCleanser.canParseNonQuotedFilter() does.
+         * Values for all other columns are kept as Strings, and bind() passes the column's JDBC type along with the
+         * values of date, time, and other non-character columns so that the driver sends them with that type.
+         *
+         * @param filter The filter value.
+         * @param jdbcType The JDBC type of the criterion's column per java.sql.Types.
+         * @return Parameter
+         * @throws IllegalArgumentException If the value is not a valid value of the column's type, such as 1.5 for a
+         *                                  BIGINT column or abc for a DECIMAL column.
+         */
+        public static Parameter of(String filter, int jdbcType) {
+            try {
+                switch (jdbcType) {
+                    case Types.BIGINT:   return new Parameter(new BigDecimal(filter.trim()).longValueExact(), jdbcType);
+                    case Types.BIT:
+                    case Types.INTEGER:
+                    case Types.SMALLINT:
+                    case Types.TINYINT:  return new Parameter(new BigDecimal(filter.trim()).intValueExact(), jdbcType);
+                    case Types.BOOLEAN:  return new Parameter(Boolean.parseBoolean(filter.trim()), jdbcType);
+                    case Types.DOUBLE:
+                    case Types.FLOAT:
+                    case Types.REAL:     return new Parameter(Double.parseDouble(filter), jdbcType);
+                    case Types.DECIMAL:
+                    case Types.NUMERIC:  return new Parameter(new BigDecimal(filter.trim()), jdbcType);
+                    default:             return new Parameter(filter, jdbcType);
+                }
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException(String.format("The filter value, %s, is not a valid value of a column of JDBC type %s",
+                        filter, jdbcType), e);
+            }
+        }
+
+        /**
+         * Creates an array Parameter from the values of an IN list, such as for PostgreSQL's column = ANY(?).  Each
+         * value is parsed like of() parses it.
+         *
+         * @param filters The filter values.
+         * @param elementJdbcType The JDBC type of the criterion's column per java.sql.Types.
+         * @return Parameter
+         */
+        public static Parameter ofArray(List<String> filters, int elementJdbcType) {
+            Object[] values = new Object[filters.size()];
+            for (int i=0; i<values.length; i++) {
+                values[i] = of(filters.get(i), elementJdbcType).getValue();
+            }
+            return new Parameter(values, Types.ARRAY, elementJdbcType);
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public int getJdbcType() {
+            return jdbcType;
+        }
+
+        public int getElementJdbcType() {
+            return elementJdbcType;
+        }
+
+        void bind(PreparedStatement preparedStatement, int index) throws SQLException {
+            if (value == null) {
+                preparedStatement.setNull(index, jdbcType);
+            } else if (jdbcType == Types.ARRAY) {
+                String elementTypeName = getSqlTypeName(elementJdbcType);
+                Array array = preparedStatement.getConnection().createArrayOf((elementTypeName == null) ? "varchar" : elementTypeName,
+                        (Object[]) value);
+                preparedStatement.setArray(index, array);
+            } else if (value instanceof String && isCharacterType(jdbcType)) {
+                preparedStatement.setString(index, (String) value);
+            } else {
+                preparedStatement.setObject(index, value, jdbcType);
+            }
+        }
+
+        /**
+         * Returns whether a String can be bound to a column of a JDBC type with setString().  Drivers such as PgJDBC send
+         * a setString() value as varchar, which the database does not compare to a date, timestamp, or uuid column.
+         */
+        static boolean isCharacterType(int jdbcType) {
+            switch (jdbcType) {
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.CLOB:
+                case Types.NCLOB:    return true;
+                default:             return false;
+            }
+        }
+
+        /**
+         * Returns the SQL type name of a JDBC type, as Connection.createArrayOf() and PostgreSQL's CAST expect it, or
+         * null if the JDBC type does not tell the SQL type, such as Types.OTHER for a uuid or enum column.
+         */
+        static String getSqlTypeName(int jdbcType) {
+            switch (jdbcType) {
+                case Types.BIGINT:   return "bigint";
+                case Types.BIT:
+                case Types.BOOLEAN:  return "boolean";
+                case Types.INTEGER:  return "integer";
+                case Types.SMALLINT:
+                case Types.TINYINT:  return "smallint";
+                case Types.DOUBLE:
+                case Types.FLOAT:    return "float8";
+                case Types.REAL:     return "float4";
+                case Types.DECIMAL:
+                case Types.NUMERIC:  return "numeric";
+                case Types.DATE:     return "date";
+                case Types.TIME:     return "time";
+                case Types.TIMESTAMP: return "timestamp";
+                case Types.TIME_WITH_TIMEZONE: return "timetz";
+                case Types.TIMESTAMP_WITH_TIMEZONE: return "timestamptz";
+                default:             return (isCharacterType(jdbcType)) ? "varchar" : null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Parameter that = (Parameter) o;
+            return jdbcType == that.jdbcType && elementJdbcType == that.elementJdbcType &&
+                    Objects.deepEquals(value, that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.deepHashCode(new Object[] { value }) + jdbcType;
+        }
+
+        @Override
+        public String toString() {
+            return ((value instanceof Object[]) ? Arrays.toString((Object[]) value) : value) + ":" + jdbcType;
+        }
+    }
+
+}
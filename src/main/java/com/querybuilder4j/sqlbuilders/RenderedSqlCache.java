@@ -0,0 +1,262 @@
+package com.querybuilder4j.sqlbuilders;
+
+import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.databasemetadata.DatabaseMetaData;
+import com.querybuilder4j.databasemetadata.MetaDataCache;
+import com.querybuilder4j.parsers.SubQueryParser;
+import com.querybuilder4j.statements.Criteria;
+import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.statements.StatementFingerprint;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache of the SQL that SelectStatement.toSql() builds.  Applications that send the same
+ * statements many times, such as dashboards, can build SQL with RenderedSqlCache.toSql() instead of
+ * SelectStatement.toSql().  When the cache holds the SQL of an identical statement, the SQL is returned without
+ * validating the statement, building its subqueries, or rendering it.
+ *
+ * The key is the statement's StatementFingerprint, including its literal values, plus the database type, the database
+ * url, the database's schema version in the MetaDataCache, the IN list properties, and the common table expression
+ * properties.  So the SQL is built again after a table schema of the database is reloaded with changes or invalidated.
+ *
+ * Statements that call query templates as subqueries are built with toSql() every time and are not cached, because
+ * nothing in the key changes when a template is saved, and two QueryTemplateDaos can have different templates with the
+ * same name.  Their subqueries can still be cached with a SubQueryCache.
+ *
+ * The cache is bounded by maxSize and the least recently used SQL is evicted first.  Statements that fail validation are
+ * not cached.
+ */
+public final class RenderedSqlCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    /**
+     * The cached SQL in access order so that the eldest entry is the least recently used entry.  All access to this field
+     * must be synchronized on this object.
+     */
+    private final LinkedHashMap<Key, String> entries = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            if (size() > maxSize) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final MetaDataCache metaDataCache;
+
+    private volatile int maxSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public RenderedSqlCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public RenderedSqlCache(int maxSize) {
+        this(maxSize, MetaDataCache.getInstance());
+    }
+
+    /**
+     * @param maxSize The maximum number of SQL strings to cache.
+     * @param metaDataCache The MetaDataCache whose schema versions are part of the key.  This should be the cache that
+     *                      the statements' table schemas are loaded into.
+     */
+    public RenderedSqlCache(int maxSize, MetaDataCache metaDataCache) {
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+
+        this.maxSize = maxSize;
+        this.metaDataCache = metaDataCache;
+    }
+
+    public String toSql(SelectStatement stmt, Properties properties) {
+        return toSql(stmt, properties, null);
+    }
+
+    /**
+     * Returns the SQL of a statement from the cache or, if it is not cached, builds it with stmt.toSql() and caches it.
+     *
+     * A statement whose SQL is returned from the cache is not changed, whereas toSql() replaces the parameters and
+     * subquery calls in the criteria of the statements that it builds.
+     *
+     * @param stmt The SelectStatement.
+     * @param properties The database properties.  The databaseType property is required.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @return String
+     */
+    public String toSql(SelectStatement stmt, Properties properties, DataSource dataSource) {
+        if (callsSubQueries(stmt)) {
+            return stmt.toSql(properties, dataSource);
+        }
+
+        // The fingerprint must be taken before toSql() changes the statement.
+        Key key = newKey(stmt, properties, dataSource);
+
+        String sql = get(key);
+        if (sql != null) {
+            return sql;
+        }
+
+        sql = stmt.toSql(properties, dataSource);
+        put(key, sql);
+        return sql;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of SQL strings to cache.  If the cache holds more than maxSize entries, then the least
+     * recently used entries are evicted.
+     *
+     * @param maxSize The maximum number of SQL strings.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 1) { throw new IllegalArgumentException("maxSize must be greater than 0"); }
+
+        this.maxSize = maxSize;
+        while (entries.size() > maxSize) {
+            Key eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes every SQL string from the cache.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Resets the hit, miss, and eviction counters to 0.
+     */
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    private synchronized String get(Key key) {
+        String sql = entries.get(key);
+        if (sql == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return sql;
+    }
+
+    private synchronized void put(Key key, String sql) {
+        entries.put(key, sql);
+    }
+
+    /**
+     * Returns whether a statement calls query templates as subqueries, either in its subQueries field or in a criterion
+     * filter that toSql() would parse into a subquery call.
+     */
+    private static boolean callsSubQueries(SelectStatement stmt) {
+        if (stmt.getSubQueries() != null && ! stmt.getSubQueries().isEmpty()) {
+            return true;
+        }
+        for (Criteria criterion : stmt.getCriteria()) {
+            if (SubQueryParser.argIsSubQuery(criterion.filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Key newKey(SelectStatement stmt, Properties properties, DataSource dataSource) {
+        String url = DatabaseMetaData.getMetaDataCacheKey(properties, dataSource);
+        return new Key(StatementFingerprint.of(stmt),
+                properties.getProperty(Constants.DATABASE_TYPE),
+                url,
+                metaDataCache.getSchemaVersion(url),
+                properties.getProperty(Constants.IN_LIST_MAX_SIZE),
+                properties.getProperty(Constants.IN_LIST_VALUES_THRESHOLD),
+                properties.getProperty(Constants.IN_LIST_ARRAY_BINDING),
+                properties.getProperty(Constants.SUBQUERIES_AS_COMMON_TABLE_EXPRESSIONS),
+                properties.getProperty(Constants.DATABASE_MAJOR_VERSION));
+    }
+
+
+    private static final class Key {
+        private final StatementFingerprint fingerprint;
+        private final String databaseType;
+        private final String url;
+        private final long schemaVersion;
+        private final String inListMaxSize;
+        private final String inListValuesThreshold;
+        private final String inListArrayBinding;
+        private final String subQueriesAsCommonTableExpressions;
+        private final String databaseMajorVersion;
+
+        private Key(StatementFingerprint fingerprint, String databaseType, String url, long schemaVersion,
+                    String inListMaxSize, String inListValuesThreshold, String inListArrayBinding,
+                    String subQueriesAsCommonTableExpressions, String databaseMajorVersion) {
+            this.fingerprint = fingerprint;
+            this.databaseType = databaseType;
+            this.url = url;
+            this.schemaVersion = schemaVersion;
+            this.inListMaxSize = inListMaxSize;
+            this.inListValuesThreshold = inListValuesThreshold;
+            this.inListArrayBinding = inListArrayBinding;
+            this.subQueriesAsCommonTableExpressions = subQueriesAsCommonTableExpressions;
+            this.databaseMajorVersion = databaseMajorVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key that = (Key) o;
+            return this.schemaVersion == that.schemaVersion
+                    && this.fingerprint.equals(that.fingerprint)
+                    && Objects.equals(this.databaseType, that.databaseType)
+                    && Objects.equals(this.url, that.url)
+                    && Objects.equals(this.inListMaxSize, that.inListMaxSize)
+                    && Objects.equals(this.inListValuesThreshold, that.inListValuesThreshold)
+                    && Objects.equals(this.inListArrayBinding, that.inListArrayBinding)
+                    && Objects.equals(this.subQueriesAsCommonTableExpressions, that.subQueriesAsCommonTableExpressions)
+                    && Objects.equals(this.databaseMajorVersion, that.databaseMajorVersion);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fingerprint, databaseType, url, schemaVersion);
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.querybuilder4j.sqlbuilders;
+
+import com.querybuilder4j.querytree.QueryTreePass;
+import com.querybuilder4j.querytree.SingleValueInPass;
+import com.querybuilder4j.statements.DatabaseType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes how a database writes SELECT SQL:  the characters that wrap identifiers, the pagination syntax, whether
+ * row values can be compared and window functions and common table expressions are supported, the order of the
+ * clauses, how long IN lists are written, and the QueryTreePasses that rewrite a statement's QueryTree before it is
+ * written.  SqlRenderer uses a SqlDialect to render a SelectStatement, so supporting another database only requires
+ * another SqlDialect.
+ *
+ * A SqlDialect is immutable.  There is one per DatabaseType, which is returned by of().
+ */
+public final class SqlDialect {
+
+    /**
+     * The SQL syntax used to limit and offset the rows that a SELECT statement returns.
+     */
+    public enum Pagination {
+        /**
+         * LIMIT n OFFSET m, as used by MySql, PostgreSQL, Redshift, and Sqlite.
+         */
+        LIMIT_OFFSET,
+
+        /**
+         * OFFSET m ROWS FETCH NEXT n ROWS ONLY, as used by SqlServer.  This syntax requires an ORDER BY clause.
+         */
+        OFFSET_FETCH,
+
+        /**
+         * A ROWNUM <= n condition for the limit and OFFSET m ROWS for the offset, as used by Oracle.
+         */
+        ROWNUM
+    }
+
+    /**
+     * The clauses of a SELECT statement.
+     */
+    public enum Clause {
+        SELECT,
+        FROM,
+        JOIN,
+        WHERE,
+        GROUP_BY,
+        ORDER_BY,
+        PAGINATION
+    }
+
+    private static final List<Clause> STANDARD_CLAUSES = Collections.unmodifiableList(Arrays.asList(Clause.values()));
+
+    private static final List<QueryTreePass> STANDARD_PASSES = Collections.singletonList(new SingleValueInPass());
+
+    private static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private static final Map<DatabaseType, SqlDialect> DIALECTS = new EnumMap<>(DatabaseType.class);
+    static {
+        DIALECTS.put(DatabaseType.MySql, new SqlDialect(DatabaseType.MySql, '`', '`', Pagination.LIMIT_OFFSET, true, false, 8,
+                STANDARD_CLAUSES, STANDARD_PASSES, new InListPolicy(NO_LIMIT, 65535, NO_LIMIT, false, false, false)));
+        DIALECTS.put(DatabaseType.Oracle, new SqlDialect(DatabaseType.Oracle, '"', '"', Pagination.ROWNUM, false, true, 0,
+                STANDARD_CLAUSES, STANDARD_PASSES, new InListPolicy(1000, 65535, NO_LIMIT, false, false, false)));
+        DIALECTS.put(DatabaseType.PostgreSQL, new SqlDialect(DatabaseType.PostgreSQL, '"', '"', Pagination.LIMIT_OFFSET, true, true, 0,
+                STANDARD_CLAUSES, STANDARD_PASSES, new InListPolicy(NO_LIMIT, 32767, 1000, true, false, true)));
+        DIALECTS.put(DatabaseType.Redshift, new SqlDialect(DatabaseType.Redshift, '"', '"', Pagination.LIMIT_OFFSET, false, true, 0,
+                STANDARD_CLAUSES, STANDARD_PASSES, new InListPolicy(NO_LIMIT, 32767, NO_LIMIT, false, false, false)));
+        DIALECTS.put(DatabaseType.Sqlite, new SqlDialect(DatabaseType.Sqlite, '"', '"', Pagination.LIMIT_OFFSET, true, false, 0,
+                STANDARD_CLAUSES, STANDARD_PASSES, new InListPolicy(NO_LIMIT, 999, NO_LIMIT, false, false, false)));
+        DIALECTS.put(DatabaseType.SqlServer, new SqlDialect(DatabaseType.SqlServer, '[', ']', Pagination.OFFSET_FETCH, false, true, 0,
+                STANDARD_CLAUSES, STANDARD_PASSES, new InListPolicy(NO_LIMIT, 2000, 1000, false, true, false)));
+    }
+
+    private final DatabaseType databaseType;
+
+    /**
+     * The character to begin wrapping the table and column in a SQL statement.  For example, PostgreSQL uses a double quote
+     * to wrap the table and column in a SELECT SQL statement like so:  SELECT "employees"."name" FROM "employees".  MySQL
+     * uses back ticks like so:  SELECT `employees`.`name` from `employees`.
+     */
+    private final char beginningDelimiter;
+
+    /**
+     * The character to end wrapping the table and column in a SQL statement.  SqlServer uses [ to begin and ] to end.
+     */
+    private final char endingDelimiter;
+
+    private final Pagination pagination;
+
+    /**
+     * Whether the database can compare row values, such as (a, b) > (1, 'x'), which is how keyset pagination is written
+     * if it can.
+     */
+    private final boolean supportsRowValueComparison;
+
+    /**
+     * Whether the database supports window functions, such as COUNT(*) OVER().  MySql only supports them since 8.0 and
+     * Sqlite since 3.25, so they are not used for either.
+     */
+    private final boolean supportsWindowFunctions;
+
+    /**
+     * The first major version of the database that supports common table expressions, which is 0 if every version
+     * does.  MySql only supports them since 8.0.
+     */
+    private final int commonTableExpressionsSinceMajorVersion;
+
+    /**
+     * The clauses in the order that they are written.
+     */
+    private final List<Clause> clauses;
+
+    /**
+     * The passes that rewrite a statement's QueryTree, in the order that they run.
+     */
+    private final List<QueryTreePass> passes;
+
+    private final InListPolicy inListPolicy;
+
+    private SqlDialect(DatabaseType databaseType, char beginningDelimiter, char endingDelimiter, Pagination pagination,
+                       boolean supportsRowValueComparison, boolean supportsWindowFunctions,
+                       int commonTableExpressionsSinceMajorVersion, List<Clause> clauses, List<QueryTreePass> passes,
+                       InListPolicy inListPolicy) {
+        this.databaseType = databaseType;
+        this.beginningDelimiter = beginningDelimiter;
+        this.endingDelimiter = endingDelimiter;
+        this.pagination = pagination;
+        this.supportsRowValueComparison = supportsRowValueComparison;
+        this.supportsWindowFunctions = supportsWindowFunctions;
+        this.commonTableExpressionsSinceMajorVersion = commonTableExpressionsSinceMajorVersion;
+        this.clauses = clauses;
+        this.passes = passes;
+        this.inListPolicy = inListPolicy;
+    }
+
+    /**
+     * Returns the SqlDialect of a database type.
+     *
+     * @param databaseType The database type.
+     * @return SqlDialect
+     * @throws RuntimeException If the database type is not recognized.
+     */
+    public static SqlDialect of(DatabaseType databaseType) {
+        SqlDialect dialect = (databaseType == null) ? null : DIALECTS.get(databaseType);
+        if (dialect == null) {
+            throw new RuntimeException(String.format("Database type, %s, not recognized", databaseType));
+        }
+        return dialect;
+    }
+
+    public DatabaseType getDatabaseType() {
+        return databaseType;
+    }
+
+    public char getBeginningDelimiter() {
+        return beginningDelimiter;
+    }
+
+    public char getEndingDelimiter() {
+        return endingDelimiter;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public boolean supportsRowValueComparison() {
+        return supportsRowValueComparison;
+    }
+
+    public boolean supportsWindowFunctions() {
+        return supportsWindowFunctions;
+    }
+
+    /**
+     * Returns whether a version of the database supports common table expressions, which are the queries of a WITH
+     * clause.
+     *
+     * @param databaseMajorVersion The major version of the database or null if it is not known.
+     * @return False if the version is not known and only some versions of the database support them.
+     */
+    public boolean supportsCommonTableExpressions(Integer databaseMajorVersion) {
+        return commonTableExpressionsSinceMajorVersion == 0 ||
+                (databaseMajorVersion != null && databaseMajorVersion >= commonTableExpressionsSinceMajorVersion);
+    }
+
+    public List<Clause> getClauses() {
+        return clauses;
+    }
+
+    public List<QueryTreePass> getPasses() {
+        return passes;
+    }
+
+    /**
+     * Returns the dialect's default InListPolicy.  Use InListPolicy.withProperties() to apply the limits in a
+     * database's properties.
+     *
+     * @return InListPolicy
+     */
+    public InListPolicy getInListPolicy() {
+        return inListPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return databaseType.toString();
+    }
+
+}
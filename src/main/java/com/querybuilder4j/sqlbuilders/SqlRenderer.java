@@ -0,0 +1,921 @@
+package com.querybuilder4j.sqlbuilders;
+
+import com.querybuilder4j.databasemetadata.ColumnCatalog;
+import com.querybuilder4j.parsers.SubQueryParser;
+import com.querybuilder4j.querytree.ColumnRef;
+import com.querybuilder4j.querytree.Condition;
+import com.querybuilder4j.querytree.JoinNode;
+import com.querybuilder4j.querytree.KeysetCondition;
+import com.querybuilder4j.querytree.Predicate;
+import com.querybuilder4j.querytree.PredicateGroup;
+import com.querybuilder4j.querytree.QueryTree;
+import com.querybuilder4j.querytree.SortKey;
+import com.querybuilder4j.statements.Conjunction;
+import com.querybuilder4j.statements.DatabaseType;
+import com.querybuilder4j.statements.Operator;
+import com.querybuilder4j.statements.SelectStatement;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders a SelectStatement into a SELECT SQL string for one SqlDialect.  The statement is lowered into a QueryTree,
+ * which the dialect's QueryTreePasses rewrite, and the tree is written clause by clause.
+ *
+ * A SqlRenderer has no state of its own besides its SqlDialect, so there is one shared SqlRenderer per DatabaseType,
+ * which is returned by of(), and it can render statements from many threads at once.  Each thread reuses its own
+ * SqlWriter buffer, so rendering a statement does not allocate a renderer or a new buffer.
+ */
+public final class SqlRenderer {
+
+    /**
+     * The largest SqlWriter, in characters, that is kept for reuse by the next statement rendered on the same thread.
+     */
+    private static final int MAX_RETAINED_WRITER_LENGTH = 64 * 1024;
+
+    private static final Map<DatabaseType, SqlRenderer> RENDERERS = new EnumMap<>(DatabaseType.class);
+    static {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            RENDERERS.put(databaseType, new SqlRenderer(SqlDialect.of(databaseType)));
+        }
+    }
+
+    private final SqlDialect dialect;
+
+    /**
+     * Each thread's idle SqlWriter.  A thread's writer is taken out while it renders a statement, so a statement that
+     * is rendered while another is being rendered on the same thread gets a new writer.
+     */
+    private final ThreadLocal<SqlWriter> idleWriters = new ThreadLocal<>();
+
+    private SqlRenderer(SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Returns the shared SqlRenderer of a database type.
+     *
+     * @param databaseType The database type.
+     * @return SqlRenderer
+     * @throws RuntimeException If the database type is not recognized.
+     */
+    public static SqlRenderer of(DatabaseType databaseType) {
+        SqlRenderer renderer = (databaseType == null) ? null : RENDERERS.get(databaseType);
+        if (renderer == null) {
+            throw new RuntimeException(String.format("Database type, %s, not recognized", databaseType));
+        }
+        return renderer;
+    }
+
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Renders the SELECT SQL string with the criteria filter values inlined.
+     *
+     * @param stmt The SelectStatement, whose database metadata is loaded.
+     * @param subQueryParser The statement's SubQueryParser.
+     * @return String
+     * @throws Exception If a criterion's column cannot be found or a subquery is not built.
+     */
+    public String render(SelectStatement stmt, SubQueryParser subQueryParser) throws Exception {
+        SqlWriter sql = takeWriter();
+        try {
+            render(sql, stmt, subQueryParser, null, Shape.ROWS, null);
+            return sql.toString();
+        } finally {
+            releaseWriter(sql);
+        }
+    }
+
+    /**
+     * Renders the SELECT SQL string with a ? placeholder for each criteria filter value and returns it with the values
+     * to bind to the placeholders.
+     *
+     * @param stmt The SelectStatement, whose database metadata is loaded.
+     * @param subQueryParser A SubQueryParser in prepared mode.
+     * @return PreparedSql
+     * @throws Exception If a criterion's column cannot be found or a subquery is not built.
+     */
+    public PreparedSql renderPrepared(SelectStatement stmt, SubQueryParser subQueryParser) throws Exception {
+        List<PreparedSql.Parameter> parameters = new ArrayList<>();
+        SqlWriter sql = takeWriter();
+        try {
+            render(sql, stmt, subQueryParser, parameters, Shape.ROWS, null);
+            return new PreparedSql(sql.toString(), parameters);
+        } finally {
+            releaseWriter(sql);
+        }
+    }
+
+    /**
+     * Renders the SELECT SQL string with the criteria filter values inlined to an Appendable, such as a Writer or a
+     * StringBuilder that the caller reuses.  The SQL is handed to the Appendable in chunks, so it is never held on the
+     * heap in full.
+     *
+     * @param stmt The SelectStatement, whose database metadata is loaded.
+     * @param subQueryParser The statement's SubQueryParser.
+     * @param out The Appendable to write the SQL to.
+     * @throws Exception If a criterion's column cannot be found, a subquery is not built, or out throws an IOException.
+     */
+    public void render(SelectStatement stmt, SubQueryParser subQueryParser, Appendable out) throws Exception {
+        SqlWriter sql = new SqlWriter(dialect.getBeginningDelimiter(), dialect.getEndingDelimiter(), out);
+        try {
+            render(sql, stmt, subQueryParser, null, Shape.ROWS, null);
+            sql.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Renders the SELECT SQL string with a ? placeholder for each criteria filter value to an Appendable and returns
+     * the values to bind to the placeholders.  See render(SelectStatement, SubQueryParser, Appendable).
+     *
+     * @param stmt The SelectStatement, whose database metadata is loaded.
+     * @param subQueryParser A SubQueryParser in prepared mode.
+     * @param out The Appendable to write the SQL to.
+     * @return The bind parameters in placeholder order.
+     * @throws Exception If a criterion's column cannot be found, a subquery is not built, or out throws an IOException.
+     */
+    public List<PreparedSql.Parameter> renderPrepared(SelectStatement stmt, SubQueryParser subQueryParser,
+                                                      Appendable out) throws Exception {
+        List<PreparedSql.Parameter> parameters = new ArrayList<>();
+        SqlWriter sql = new SqlWriter(dialect.getBeginningDelimiter(), dialect.getEndingDelimiter(), out);
+        try {
+            render(sql, stmt, subQueryParser, parameters, Shape.ROWS, null);
+            sql.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return parameters;
+    }
+
+    /**
+     * Renders the SELECT SQL string that counts the rows of a statement, with the criteria filter values inlined.  The
+     * statement's ORDER BY clause, limit, and offset are not written.  If maxCount is not null, then the count stops at
+     * maxCount rows, so that the database does not have to count every row of a huge table.
+     *
+     * @param stmt The SelectStatement, whose database metadata is loaded.
+     * @param subQueryParser The statement's SubQueryParser.
+     * @param maxCount The largest count to return or null to count every row.
+     * @return String
+     * @throws Exception If a criterion's column cannot be found or a subquery is not built.
+     */
+    public String renderCount(SelectStatement stmt, SubQueryParser subQueryParser, Long maxCount) throws Exception {
+        SqlWriter sql = takeWriter();
+        try {
+            render(sql, stmt, subQueryParser, null, Shape.COUNT, maxCount);
+            return sql.toString();
+        } finally {
+            releaseWriter(sql);
+        }
+    }
+
+    /**
+     * Renders the SELECT SQL string with the criteria filter values inlined and a PagedSql.TOTAL_COUNT_COLUMN column,
+     * which is COUNT(*) OVER() and so holds the number of rows that the statement returns without its limit and offset.
+     *
+     * @param stmt The SelectStatement, whose database metadata is loaded.
+     * @param subQueryParser The statement's SubQueryParser.
+     * @return String
+     * @throws Exception If the dialect does not support window functions, the statement is DISTINCT, a criterion's
+     *                   column cannot be found, or a subquery is not built.
+     */
+    public String renderWithWindowCount(SelectStatement stmt, SubQueryParser subQueryParser) throws Exception {
+        if (! dialect.supportsWindowFunctions()) {
+            throw new Exception(String.format("%s does not support window functions", dialect));
+        }
+        if (stmt.isDistinct()) {
+            throw new Exception("A window count of a DISTINCT statement would count the rows before DISTINCT is applied");
+        }
+
+        SqlWriter sql = takeWriter();
+        try {
+            render(sql, stmt, subQueryParser, null, Shape.ROWS_WITH_WINDOW_COUNT, null);
+            return sql.toString();
+        } finally {
+            releaseWriter(sql);
+        }
+    }
+
+    private SqlWriter takeWriter() {
+        SqlWriter sql = idleWriters.get();
+        if (sql == null) {
+            return new SqlWriter(dialect.getBeginningDelimiter(), dialect.getEndingDelimiter());
+        }
+
+        idleWriters.set(null);
+        sql.reset();
+        return sql;
+    }
+
+    private void releaseWriter(SqlWriter sql) {
+        if (sql.length() <= MAX_RETAINED_WRITER_LENGTH) {
+            idleWriters.set(sql);
+        }
+    }
+
+    /**
+     * What a rendered statement returns.
+     */
+    private enum Shape {
+        /**
+         * The statement's rows.
+         */
+        ROWS,
+
+        /**
+         * The statement's rows with a COUNT(*) OVER() column.
+         */
+        ROWS_WITH_WINDOW_COUNT,
+
+        /**
+         * The number of the statement's rows.
+         */
+        COUNT
+    }
+
+    /**
+     * Lowers the statement into a QueryTree, applies the dialect's passes, and writes the tree in a shape.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param stmt The SelectStatement.
+     * @param subQueryParser The statement's SubQueryParser.
+     * @param parameters The list to add bind parameters to, or null to inline the filter values.
+     * @param shape What the SQL returns.
+     * @param maxCount The largest count to return, or null to count every row, if the shape is COUNT.
+     * @throws Exception If a criterion's column cannot be found or a subquery is not built.
+     */
+    private void render(SqlWriter sql, SelectStatement stmt, SubQueryParser subQueryParser,
+                        List<PreparedSql.Parameter> parameters, Shape shape, Long maxCount) throws Exception {
+        QueryTree tree = QueryTree.of(stmt).apply(dialect.getPasses());
+
+        // The subqueries of the WHERE clause are built together, so that the templates of each level are fetched with
+        // one call of the QueryTemplateDao instead of one call for each filter.
+        Set<String> subQueryIds = new LinkedHashSet<>();
+        addSubQueryIds(subQueryIds, tree.getWhere());
+        if (subQueryParser.usesCommonTableExpressions()) {
+            writeWithClause(sql, subQueryIds, subQueryParser, parameters);
+        } else {
+            subQueryParser.buildSubQueries(subQueryIds);
+        }
+
+        if (shape != Shape.COUNT) {
+            writeTree(sql, tree, stmt, subQueryParser, parameters, shape);
+            return;
+        }
+
+        // The order of the rows does not change their count.  A statement with DISTINCT or GROUP BY is counted in a
+        // derived table, because COUNT(*) would count the rows before they are made distinct or grouped, and so is a
+        // statement whose count is capped, because the limit must apply to the rows and not to the count.
+        tree = tree.withOrderBy(Collections.emptyList()).withPagination(null, null);
+        if (maxCount == null && ! tree.isDistinct() && tree.getGroupBy().isEmpty()) {
+            writeTree(sql, tree, stmt, subQueryParser, parameters, Shape.COUNT);
+        } else {
+            // Each column of the derived table gets a unique alias, because columns with the same name from different
+            // tables, such as a.id and b.id, would be duplicate column names in the derived table.
+            List<ColumnRef> columns = new ArrayList<>(tree.getColumns().size());
+            for (ColumnRef column : tree.getColumns()) {
+                columns.add(new ColumnRef(column.getTable(), column.getColumn(), "qb4j_c" + (columns.size() + 1)));
+            }
+
+            sql.append("SELECT COUNT(*) FROM (");
+            writeTree(sql, tree.withColumns(columns).withPagination(maxCount, null), stmt, subQueryParser, parameters, Shape.ROWS);
+            sql.append(") qb4j_count");
+        }
+    }
+
+    /**
+     * Writes a WITH clause with a common table expression for each distinct subquery of the WHERE clause and each
+     * subquery that their SQL selects from.  The WITH clause is written first, so its bind parameters come first.
+     * Nothing is written if there are no subqueries or the statement is itself a subquery, whose common table
+     * expressions are written in the root statement's WITH clause.
+     */
+    private void writeWithClause(SqlWriter sql, Set<String> subQueryIds, SubQueryParser subQueryParser,
+                                 List<PreparedSql.Parameter> parameters) throws Exception {
+        Map<String, PreparedSql> commonTableExpressions = subQueryParser.getCommonTableExpressions(subQueryIds);
+        if (commonTableExpressions.isEmpty()) {
+            return;
+        }
+
+        sql.append("WITH ");
+        boolean first = true;
+        for (Map.Entry<String, PreparedSql> commonTableExpression : commonTableExpressions.entrySet()) {
+            if (! first) { sql.append(", "); }
+            first = false;
+            sql.append(commonTableExpression.getKey()).append(" AS (").append(commonTableExpression.getValue().getSql()).append(')');
+            if (parameters != null) {
+                parameters.addAll(commonTableExpression.getValue().getParameters());
+            }
+        }
+        sql.append(' ');
+    }
+
+    /**
+     * Adds the subquery ids in the filters of a PredicateGroup's conditions in the order that they are written.
+     */
+    private static void addSubQueryIds(Set<String> subQueryIds, PredicateGroup group) {
+        if (group == null) {
+            return;
+        }
+
+        for (PredicateGroup.Term term : group.getTerms()) {
+            Predicate predicate = term.getPredicate();
+            if (predicate instanceof PredicateGroup) {
+                addSubQueryIds(subQueryIds, (PredicateGroup) predicate);
+            } else if (predicate instanceof Condition) {
+                String filter = ((Condition) predicate).getFilter();
+                if (filter == null || filter.indexOf('$') == -1) {
+                    continue;
+                }
+
+                int filterLength = getFilterLength(filter);
+                for (int begin=0; begin<filterLength; ) {
+                    int end = getValueEnd(filter, begin, filterLength);
+                    if (begin < end && filter.charAt(begin) == '$') {
+                        subQueryIds.add(filter.substring(begin, end));
+                    }
+                    begin = end + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the clauses of the tree in the dialect's order.
+     */
+    private void writeTree(SqlWriter sql, QueryTree tree, SelectStatement stmt, SubQueryParser subQueryParser,
+                           List<PreparedSql.Parameter> parameters, Shape shape) throws Exception {
+        // A ROWNUM condition is evaluated before GROUP BY, ORDER BY, DISTINCT, OFFSET, and window functions, so it can
+        // only be added to the statement's own WHERE clause if the statement has none of them.  Otherwise, the
+        // statement is wrapped.
+        boolean wrapForRowNum = dialect.getPagination() == SqlDialect.Pagination.ROWNUM && tree.getLimit() != null &&
+                (tree.isDistinct() || ! tree.getGroupBy().isEmpty() || ! tree.getOrderBy().isEmpty() || tree.getOffset() != null
+                        || shape == Shape.ROWS_WITH_WINDOW_COUNT);
+        if (wrapForRowNum) {
+            sql.append("SELECT * FROM (");
+        }
+
+        for (SqlDialect.Clause clause : dialect.getClauses()) {
+            switch (clause) {
+                case SELECT:     if (shape == Shape.COUNT) {
+                                     sql.append("SELECT COUNT(*)");
+                                 } else {
+                                     writeSelectClause(sql, tree.isDistinct(), tree.getColumns());
+                                 }
+                                 if (shape == Shape.ROWS_WITH_WINDOW_COUNT) {
+                                     sql.append(", COUNT(*) OVER() AS ").appendIdentifier(PagedSql.TOTAL_COUNT_COLUMN);
+                                 }
+                                 break;
+                case FROM:       writeFromClause(sql, tree.getTable());
+                                 break;
+                case JOIN:       writeJoinClause(sql, tree.getJoins());
+                                 break;
+                case WHERE:      // A ROWNUM limit that is added to the WHERE clause with AND must hold for every row.
+                                 PredicateGroup where = tree.getWhere();
+                                 if (dialect.getPagination() == SqlDialect.Pagination.ROWNUM && tree.getLimit() != null
+                                         && ! wrapForRowNum && where != null && where.hasOrTerm()) {
+                                     where = new PredicateGroup(Collections.singletonList(new PredicateGroup.Term(null, where)));
+                                 }
+                                 writeWhereClause(sql, where, stmt, subQueryParser, parameters);
+                                 break;
+                case GROUP_BY:   writeGroupByClause(sql, tree.getGroupBy());
+                                 break;
+                case ORDER_BY:   writeOrderByClause(sql, tree.getOrderBy());
+                                 break;
+                case PAGINATION: writePagination(sql, tree, wrapForRowNum);
+                                 break;
+            }
+        }
+
+        if (wrapForRowNum) {
+            sql.append(") WHERE ROWNUM <= ").append(tree.getLimit().longValue());
+        }
+    }
+
+    /**
+     * Writes the SELECT clause of a SELECT SQL statement.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param distinct Whether the generated SELECT SQL should have a DISTINCT clause.
+     * @param columns A list of columns to generate the SELECT SQL statement.
+     */
+    private void writeSelectClause(SqlWriter sql, boolean distinct, List<ColumnRef> columns) {
+        sql.append((distinct) ? "SELECT DISTINCT " : "SELECT ");
+
+        for (int i=0; i<columns.size(); i++) {
+            if (i != 0) { sql.append(", "); }
+            ColumnRef column = columns.get(i);
+            writeColumnName(sql, column);
+            if (column.hasAlias()) {
+                sql.append(" AS ").appendIdentifier(column.getAlias());
+            }
+        }
+    }
+
+    /**
+     * Writes the FROM clause of a SELECT SQL statement.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param table The table name.
+     */
+    private void writeFromClause(SqlWriter sql, String table) {
+        sql.append(" FROM ").appendIdentifier(table);
+    }
+
+    /**
+     * Writes the JOIN clause of a SELECT SQL statement.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param joins A list of JoinNode.
+     */
+    private void writeJoinClause(SqlWriter sql, List<JoinNode> joins) {
+        for (JoinNode join : joins) {
+            List<ColumnRef> parentColumns = join.getParentColumns();
+            List<ColumnRef> targetColumns = join.getTargetColumns();
+
+            // Writes " [JOIN TYPE] `table2` ON `table1`.`column1` = `table2`.`column2` AND ...", assuming the database
+            // type is MySql.  The join type's String already has a space on each side.
+            sql.append(join.getJoinType()).appendIdentifier(join.getTargetTable());
+
+            for (int j=0; j<parentColumns.size(); j++) {
+                sql.append((j == 0) ? " ON " : " AND ");
+                writeColumnName(sql, parentColumns.get(j));
+                sql.append(" = ");
+                writeColumnName(sql, targetColumns.get(j));
+            }
+        }
+    }
+
+    /**
+     * Writes the WHERE clause of a SQL CRUD statement.  Nothing is written if there are no conditions.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param where The root PredicateGroup or null.
+     * @param stmt The SelectStatement.
+     * @param subQueryParser The statement's SubQueryParser.
+     * @param parameters The list to add bind parameters to, or null to inline the filter values.
+     * @throws Exception If a condition's column cannot be found or its data type is not recognized.
+     */
+    private void writeWhereClause(SqlWriter sql, PredicateGroup where, SelectStatement stmt, SubQueryParser subQueryParser,
+                                  List<PreparedSql.Parameter> parameters) throws Exception {
+        if (where == null) {
+            return;
+        }
+
+        sql.append(" WHERE ");
+        writePredicateGroup(sql, where, stmt, subQueryParser, parameters);
+    }
+
+    /**
+     * Writes the terms of a PredicateGroup joined by their conjunctions.  Nested groups are written in parenthesis.
+     */
+    private void writePredicateGroup(SqlWriter sql, PredicateGroup group, SelectStatement stmt,
+                                     SubQueryParser subQueryParser, List<PreparedSql.Parameter> parameters) throws Exception {
+        List<PredicateGroup.Term> terms = group.getTerms();
+        for (int i=0; i<terms.size(); i++) {
+            PredicateGroup.Term term = terms.get(i);
+            if (i != 0) {
+                sql.append(' ');
+                if (term.getConjunction() != null && term.getConjunction() != Conjunction.Empty) {
+                    sql.append(term.getConjunction()).append(' ');
+                }
+            }
+
+            Predicate predicate = term.getPredicate();
+            if (predicate instanceof PredicateGroup) {
+                sql.append('(');
+                writePredicateGroup(sql, (PredicateGroup) predicate, stmt, subQueryParser, parameters);
+                sql.append(')');
+            } else if (predicate instanceof KeysetCondition) {
+                writeKeysetCondition(sql, (KeysetCondition) predicate, stmt, parameters);
+            } else {
+                writeCondition(sql, (Condition) predicate, stmt, subQueryParser, parameters);
+            }
+        }
+    }
+
+    /**
+     * Writes a keyset condition.  If the dialect supports row value comparisons and every sort key has the same
+     * direction, then it is written as ("t"."a", "t"."b") > (1, 'x').  Otherwise, it is written in the expanded form
+     * ("t"."a" >= 1 AND ("t"."a" > 1 OR ("t"."a" = 1 AND "t"."b" > 'x'))), where each column's comparison follows its
+     * direction.  The leading >= condition lets the database seek an index on the first column.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param condition The KeysetCondition.
+     * @param stmt The SelectStatement.
+     * @param parameters The list to add bind parameters to, or null to inline the values.
+     * @throws Exception If a sort key's column cannot be found or its data type is not recognized.
+     */
+    private void writeKeysetCondition(SqlWriter sql, KeysetCondition condition, SelectStatement stmt,
+                                      List<PreparedSql.Parameter> parameters) throws Exception {
+        List<SortKey> sortKeys = condition.getSortKeys();
+        List<String> values = condition.getValues();
+        ColumnCatalog columnCatalog = stmt.getDatabaseMetaData().getTablesMetaData().getColumnCatalog();
+        int[] columnIds = new int[sortKeys.size()];
+        for (int i=0; i<sortKeys.size(); i++) {
+            columnIds[i] = getColumnId(columnCatalog, sortKeys.get(i).getColumn());
+        }
+
+        if (sortKeys.size() == 1) {
+            writeKeysetComparison(sql, sortKeys.get(0), (sortKeys.get(0).isDescending()) ? " < " : " > ", values.get(0),
+                    columnCatalog, columnIds[0], parameters);
+        } else if (dialect.supportsRowValueComparison() && condition.hasUniformDirection()) {
+            sql.append('(');
+            for (int i=0; i<sortKeys.size(); i++) {
+                if (i != 0) { sql.append(", "); }
+                writeColumnName(sql, sortKeys.get(i).getColumn());
+            }
+            sql.append((sortKeys.get(0).isDescending()) ? ") < (" : ") > (");
+            for (int i=0; i<values.size(); i++) {
+                if (i != 0) { sql.append(", "); }
+                writeKeysetValue(sql, values.get(i), columnCatalog, columnIds[i], parameters);
+            }
+            sql.append(')');
+        } else {
+            sql.append('(');
+            writeKeysetComparison(sql, sortKeys.get(0), (sortKeys.get(0).isDescending()) ? " <= " : " >= ", values.get(0),
+                    columnCatalog, columnIds[0], parameters);
+            sql.append(" AND (");
+            writeExpandedKeysetComparison(sql, sortKeys, values, 0, columnCatalog, columnIds, parameters);
+            sql.append("))");
+        }
+    }
+
+    /**
+     * Writes "a > 1 OR (a = 1 AND [the comparison of the next sort key])" for the sort key at the index parameter, or
+     * "a > 1" for the last sort key.
+     */
+    private void writeExpandedKeysetComparison(SqlWriter sql, List<SortKey> sortKeys, List<String> values, int index,
+                                               ColumnCatalog columnCatalog, int[] columnIds,
+                                               List<PreparedSql.Parameter> parameters) throws Exception {
+        SortKey sortKey = sortKeys.get(index);
+        writeKeysetComparison(sql, sortKey, (sortKey.isDescending()) ? " < " : " > ", values.get(index),
+                columnCatalog, columnIds[index], parameters);
+        if (index == sortKeys.size() - 1) {
+            return;
+        }
+
+        sql.append(" OR (");
+        writeKeysetComparison(sql, sortKey, " = ", values.get(index), columnCatalog, columnIds[index], parameters);
+        sql.append(" AND ");
+        boolean wrapNext = index + 1 < sortKeys.size() - 1;
+        if (wrapNext) { sql.append('('); }
+        writeExpandedKeysetComparison(sql, sortKeys, values, index + 1, columnCatalog, columnIds, parameters);
+        if (wrapNext) { sql.append(')'); }
+        sql.append(')');
+    }
+
+    private void writeKeysetComparison(SqlWriter sql, SortKey sortKey, String comparison, String value,
+                                       ColumnCatalog columnCatalog, int columnId,
+                                       List<PreparedSql.Parameter> parameters) throws Exception {
+        writeColumnName(sql, sortKey.getColumn());
+        sql.append(comparison);
+        writeKeysetValue(sql, value, columnCatalog, columnId, parameters);
+    }
+
+    /**
+     * Writes a keyset value.  Unlike a filter, a keyset value is never split on commas.
+     */
+    private void writeKeysetValue(SqlWriter sql, String value, ColumnCatalog columnCatalog, int columnId,
+                                  List<PreparedSql.Parameter> parameters) throws Exception {
+        writeValue(sql, value, 0, value.length(), columnCatalog, columnId, parameters);
+    }
+
+    private void writeCondition(SqlWriter sql, Condition condition, SelectStatement stmt, SubQueryParser subQueryParser,
+                                List<PreparedSql.Parameter> parameters) throws Exception {
+        Operator operator = condition.getOperator();
+        if (operator.equals(Operator.isNull) || operator.equals(Operator.isNotNull)) {
+            writeColumnName(sql, condition.getColumn());
+            sql.append(' ').append(operator);
+        } else if (operator.equals(Operator.in) || operator.equals(Operator.notIn)) {
+            writeInCondition(sql, condition, stmt, subQueryParser, parameters);
+        } else {
+            writeColumnName(sql, condition.getColumn());
+            sql.append(' ').append(operator).append(' ');
+            writeFilter(sql, condition, stmt, subQueryParser, parameters);
+        }
+    }
+
+    /**
+     * Writes an IN or NOT IN condition.  If the filter has a subquery, then it is written like any other filter.
+     * Otherwise, the dialect's InListPolicy picks how to write the list of values based on its length.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param condition The condition, whose operator is IN or NOT IN.
+     * @param stmt The SelectStatement.
+     * @param subQueryParser The statement's SubQueryParser.
+     * @param parameters The list to add bind parameters to, or null to inline the filter values.
+     * @throws Exception If the condition's column cannot be found or its data type is not recognized.
+     */
+    private void writeInCondition(SqlWriter sql, Condition condition, SelectStatement stmt, SubQueryParser subQueryParser,
+                                  List<PreparedSql.Parameter> parameters) throws Exception {
+        String filter = (condition.getFilter() == null) ? "" : condition.getFilter();
+        int filterLength = getFilterLength(filter);
+
+        // Count the values and look for subqueries in one pass over the filter.
+        int size = 1;
+        boolean hasSubQuery = filterLength > 0 && filter.charAt(0) == '$';
+        for (int i=0; i<filterLength; i++) {
+            if (filter.charAt(i) == ',') {
+                size++;
+                hasSubQuery |= i + 1 < filterLength && filter.charAt(i + 1) == '$';
+            }
+        }
+
+        ColumnRef column = condition.getColumn();
+        Operator operator = condition.getOperator();
+        if (hasSubQuery) {
+            writeColumnName(sql, column);
+            sql.append(' ').append(operator).append(' ');
+            writeFilter(sql, condition, stmt, subQueryParser, parameters);
+            return;
+        }
+
+        ColumnCatalog columnCatalog = stmt.getDatabaseMetaData().getTablesMetaData().getColumnCatalog();
+        int columnId = getColumnId(columnCatalog, column);
+        boolean notIn = operator.equals(Operator.notIn);
+
+        InListPolicy policy = dialect.getInListPolicy().withProperties(stmt.getDatabaseMetaData().getProperties());
+
+        // An array parameter needs the SQL type name of its elements.  A database that types VALUES rows of quoted
+        // literals as text needs the rows of a quoted column that is not text cast to the column's type.  If the type
+        // name is not known, such as for a uuid column, then the values are written in IN lists instead.
+        int columnType = columnCatalog.getColumnType(columnId);
+        String sqlTypeName = PreparedSql.Parameter.getSqlTypeName(columnType);
+        String rowTypeName = (policy.isCastValues() && sqlTypeName != null && columnCatalog.isQuoted(columnId)
+                && ! PreparedSql.Parameter.isCharacterType(columnType)) ? sqlTypeName : null;
+        boolean typedValues = sqlTypeName != null || ! policy.isCastValues();
+
+        InListStrategy strategy = policy.choose(size, parameters != null, typedValues);
+        List<PreparedSql.Parameter> valueParameters = parameters;
+        if (parameters != null && strategy != InListStrategy.ARRAY_PARAMETER && policy.inlinesParameters(size, parameters.size())) {
+            valueParameters = null;
+            strategy = policy.choose(size, false, typedValues);
+        }
+
+        switch (strategy) {
+            case ARRAY_PARAMETER:
+                List<String> values = new ArrayList<>(size);
+                for (int begin=0, i=0; i<size; i++) {
+                    int end = getValueEnd(filter, begin, filterLength);
+                    values.add(filter.substring(begin, end));
+                    begin = end + 1;
+                }
+                parameters.add(PreparedSql.Parameter.ofArray(values, columnType));
+                writeColumnName(sql, column);
+                sql.append((notIn) ? " <> ALL(?)" : " = ANY(?)");
+                break;
+            case CHUNKED_OR:
+                sql.append('(');
+                for (int begin=0, written=0; written<size; written+=policy.getMaxListSize()) {
+                    if (written != 0) { sql.append((notIn) ? " AND " : " OR "); }
+                    writeColumnName(sql, column);
+                    sql.append(' ').append(operator).append(" (");
+                    int chunkSize = Math.min(policy.getMaxListSize(), size - written);
+                    begin = writeValues(sql, filter, begin, filterLength, chunkSize, false, null, columnCatalog, columnId,
+                            valueParameters);
+                    sql.append(')');
+                }
+                sql.append(')');
+                break;
+            case VALUES_TABLE:
+                writeColumnName(sql, column);
+                sql.append(' ').append(operator)
+                        .append((policy.isSelectFromValues()) ? " (SELECT v FROM (VALUES " : " (VALUES ");
+                writeValues(sql, filter, 0, filterLength, size, true, rowTypeName, columnCatalog, columnId, valueParameters);
+                sql.append((policy.isSelectFromValues()) ? ") AS qb4j_in_values(v))" : ")");
+                break;
+            default:
+                writeColumnName(sql, column);
+                sql.append(' ').append(operator).append(" (");
+                writeValues(sql, filter, 0, filterLength, size, false, null, columnCatalog, columnId, valueParameters);
+                sql.append(')');
+        }
+    }
+
+    /**
+     * Writes a condition's filter.  Each comma-separated value of the filter is either a subquery id, which is replaced
+     * by the built subquery, or a value, which is written as a literal (quoted if the column's type requires it) or as
+     * a ? placeholder if parameters is not null.  The filter is scanned in place rather than split, because an IN
+     * filter can have tens of thousands of values.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param condition The condition.
+     * @param stmt The SelectStatement.
+     * @param subQueryParser The statement's SubQueryParser.
+     * @param parameters The list to add bind parameters to, or null to inline the filter values.
+     * @throws Exception If the condition's column cannot be found or its data type is not recognized.
+     */
+    private void writeFilter(SqlWriter sql, Condition condition, SelectStatement stmt, SubQueryParser subQueryParser,
+                             List<PreparedSql.Parameter> parameters) throws Exception {
+        String filter = (condition.getFilter() == null) ? "" : condition.getFilter();
+        int filterLength = getFilterLength(filter);
+
+        // IN and NOT IN filters are wrapped in parenthesis, unless the filter is one subquery, which is already wrapped.
+        Operator operator = condition.getOperator();
+        boolean isInOperator = operator.equals(Operator.in) || operator.equals(Operator.notIn);
+        boolean isOneSubQuery = SubQueryParser.argIsSubQuery(filter) && filter.indexOf(',') == -1;
+        boolean wrapInParenthesis = isInOperator && ! isOneSubQuery;
+        if (wrapInParenthesis) { sql.append('('); }
+
+        int columnId = -1;
+        ColumnCatalog columnCatalog = null;
+        int begin = 0;
+        while (true) {
+            int end = getValueEnd(filter, begin, filterLength);
+            if (begin != 0) { sql.append(','); }
+
+            // The condition's filter should be the subquery id, which the SubQueryParser builds the first time that
+            // it is written.
+            if (begin < end && filter.charAt(begin) == '$') {
+                String arg = filter.substring(begin, end);
+                String subquery = subQueryParser.getBuiltSubQuery(arg);
+
+                if (subquery == null) { throw new RuntimeException("Could not find subquery with name:  " + arg); }
+
+                // The subquery and its bind parameters are in the WITH clause, so it is selected from by name.
+                if (subQueryParser.usesCommonTableExpressions()) {
+                    sql.append("(SELECT * FROM ").append(subQueryParser.getCommonTableExpressionName(arg)).append(')');
+                } else {
+                    if (parameters != null) {
+                        PreparedSql preparedSubQuery = subQueryParser.getBuiltPreparedSubQuery(arg);
+                        if (preparedSubQuery == null) { throw new RuntimeException("This subquery was not built as prepared SQL:  " + arg); }
+                        parameters.addAll(preparedSubQuery.getParameters());
+                    }
+
+                    sql.append('(').append(subquery).append(')');
+                }
+            } else {
+                // The column is the same for every value, so only look it up once.
+                if (columnId == -1) {
+                    columnCatalog = stmt.getDatabaseMetaData().getTablesMetaData().getColumnCatalog();
+                    columnId = getColumnId(columnCatalog, condition.getColumn());
+                }
+
+                writeValue(sql, filter, begin, end, columnCatalog, columnId, parameters);
+            }
+
+            if (end == filterLength) { break; }
+            begin = end + 1;
+        }
+
+        if (wrapInParenthesis) { sql.append(')'); }
+    }
+
+    /**
+     * Writes a number of comma-separated values of a filter, starting at the beginIndex parameter.
+     *
+     * @param asRows Whether each value is wrapped in parenthesis as a row of a VALUES list.
+     * @param rowTypeName The SQL type to cast each row's value to, or null to write the values as they are.
+     * @return The index of the next value in the filter.
+     */
+    private int writeValues(SqlWriter sql, String filter, int beginIndex, int filterLength, int count, boolean asRows,
+                            String rowTypeName, ColumnCatalog columnCatalog, int columnId, List<PreparedSql.Parameter> parameters) throws Exception {
+        int begin = beginIndex;
+        for (int i=0; i<count; i++) {
+            int end = getValueEnd(filter, begin, filterLength);
+            if (i != 0) { sql.append(','); }
+            if (asRows) { sql.append('('); }
+            if (rowTypeName != null) { sql.append("CAST("); }
+            writeValue(sql, filter, begin, end, columnCatalog, columnId, parameters);
+            if (rowTypeName != null) { sql.append(" AS ").append(rowTypeName).append(')'); }
+            if (asRows) { sql.append(')'); }
+            begin = end + 1;
+        }
+        return begin;
+    }
+
+    /**
+     * Writes one value of a filter as a literal (quoted if the column's type requires it) or as a ? placeholder if
+     * parameters is not null.
+     */
+    private void writeValue(SqlWriter sql, String filter, int begin, int end, ColumnCatalog columnCatalog, int columnId,
+                            List<PreparedSql.Parameter> parameters) throws Exception {
+        if (parameters != null) {
+            parameters.add(PreparedSql.Parameter.of(filter.substring(begin, end), columnCatalog.getColumnType(columnId)));
+            sql.append('?');
+        } else if (columnCatalog.isQuoted(columnId)) {
+            sql.appendLiteral(filter, begin, end);
+        } else {
+            sql.appendEscaped(filter, begin, end);
+        }
+    }
+
+    /**
+     * Returns the length of the filter without trailing commas, so that trailing empty values are ignored like
+     * String.split() ignores them.
+     */
+    private static int getFilterLength(String filter) {
+        int filterLength = filter.length();
+        while (filterLength > 0 && filter.charAt(filterLength - 1) == ',') {
+            filterLength--;
+        }
+        return filterLength;
+    }
+
+    /**
+     * Returns the index after the last character of the filter value that starts at the begin parameter.
+     */
+    private static int getValueEnd(String filter, int begin, int filterLength) {
+        int end = filter.indexOf(',', begin);
+        return (end == -1 || end > filterLength) ? filterLength : end;
+    }
+
+
+    private static int getColumnId(ColumnCatalog columnCatalog, ColumnRef column) throws Exception {
+        return columnCatalog.getRequiredColumnId(column.getTable(), column.getColumn());
+    }
+
+    /**
+     * Writes the GROUP BY clause of a SELECT SQL statement.  Nothing is written if there are no columns.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param columns A list of columns.
+     */
+    private void writeGroupByClause(SqlWriter sql, List<ColumnRef> columns) {
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        sql.append(" GROUP BY ");
+        for (int i=0; i<columns.size(); i++) {
+            if (i != 0) { sql.append(", "); }
+            writeColumnName(sql, columns.get(i));
+        }
+    }
+
+    /**
+     * Writes the ORDER BY clause of a SELECT SQL statement.  Nothing is written if there are no sort keys.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param sortKeys A list of SortKey.
+     */
+    private void writeOrderByClause(SqlWriter sql, List<SortKey> sortKeys) {
+        if (sortKeys.isEmpty()) {
+            return;
+        }
+
+        sql.append(" ORDER BY ");
+        for (int i=0; i<sortKeys.size(); i++) {
+            if (i != 0) { sql.append(", "); }
+            writeColumnName(sql, sortKeys.get(i).getColumn());
+            sql.append(sortKeys.get(i).getDirection());
+        }
+    }
+
+    /**
+     * Writes the limit and offset in the dialect's pagination syntax.  Nothing is written for a null limit or offset.
+     *
+     * @param sql The SqlWriter to write to.
+     * @param tree The QueryTree.
+     * @param wrapForRowNum Whether the ROWNUM limit is written around the statement instead of in its WHERE clause.
+     */
+    private void writePagination(SqlWriter sql, QueryTree tree, boolean wrapForRowNum) {
+        Long limit = tree.getLimit();
+        Long offset = tree.getOffset();
+
+        switch (dialect.getPagination()) {
+            case LIMIT_OFFSET:
+                if (limit != null) { sql.append(" LIMIT ").append(limit.longValue()); }
+                if (offset != null) { sql.append(" OFFSET ").append(offset.longValue()); }
+                break;
+            case OFFSET_FETCH:
+                if (limit == null && offset == null) { break; }
+
+                // OFFSET requires ORDER BY, and FETCH requires OFFSET.
+                if (tree.getOrderBy().isEmpty()) { sql.append(" ORDER BY (SELECT NULL)"); }
+                sql.append(" OFFSET ").append((offset == null) ? 0L : offset.longValue()).append(" ROWS");
+                if (limit != null) { sql.append(" FETCH NEXT ").append(limit.longValue()).append(" ROWS ONLY"); }
+                break;
+            case ROWNUM:
+                if (offset != null) { sql.append(" OFFSET ").append(offset.longValue()).append(" ROWS"); }
+                if (limit != null && ! wrapForRowNum) {
+                    // The limit is only written here if the statement has no GROUP BY or ORDER BY clause, so this
+                    // directly follows the WHERE clause.
+                    sql.append((tree.getWhere() == null) ? " WHERE " : " AND ").append("ROWNUM <= ").append(limit.longValue());
+                }
+                break;
+        }
+    }
+
+    /**
+     * Writes a column without its alias.
+     */
+    private void writeColumnName(SqlWriter sql, ColumnRef column) {
+        if (column.getTable() == null) {
+            sql.appendIdentifier(column.getColumn());
+        } else {
+            sql.appendQualifiedIdentifier(column.getTable(), column.getColumn());
+        }
+    }
+
+}
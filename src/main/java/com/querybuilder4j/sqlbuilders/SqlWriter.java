@@ -0,0 +1,270 @@
+package com.querybuilder4j.sqlbuilders;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * A single buffer that a SqlRenderer writes a whole SELECT SQL statement into.  Identifiers, "table.column" names, and
+ * string literals are escaped and delimited as they are appended, so building a statement does not need
+ * String.format(), String.split(), or a StringBuilder per clause.
+ *
+ * A SqlWriter either keeps the SQL in its own buffer, which toString() returns, or writes it to a caller's Appendable.
+ * A caller's StringBuilder is written to directly.  For any other Appendable, such as a Writer, the SQL is buffered and
+ * handed to the Appendable in chunks, so a statement with a huge IN list is never held on the heap in full.  Call
+ * flush() after the statement is written.  IOExceptions thrown by the Appendable are rethrown as
+ * UncheckedIOExceptions.
+ *
+ * A SqlWriter is not thread safe.  It can be reused for another statement after calling reset().
+ */
+public final class SqlWriter {
+
+    private static final int DEFAULT_CAPACITY = 512;
+
+    /**
+     * The number of buffered characters at which the buffer is written to the Appendable.
+     */
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private final StringBuilder sql;
+
+    /**
+     * The caller's Appendable that the buffer is flushed to, or null if the SQL stays in the buffer.
+     */
+    private final Appendable out;
+
+    /**
+     * The chars copied out of the buffer to write them to a Writer without creating a String.
+     */
+    private char[] chunk;
+
+    private final char beginningDelimiter;
+
+    private final char endingDelimiter;
+
+    public SqlWriter(char beginningDelimiter, char endingDelimiter) {
+        this(beginningDelimiter, endingDelimiter, DEFAULT_CAPACITY);
+    }
+
+    public SqlWriter(char beginningDelimiter, char endingDelimiter, int capacity) {
+        this.sql = new StringBuilder(capacity);
+        this.out = null;
+        this.beginningDelimiter = beginningDelimiter;
+        this.endingDelimiter = endingDelimiter;
+    }
+
+    /**
+     * @param beginningDelimiter The character to begin wrapping identifiers.
+     * @param endingDelimiter The character to end wrapping identifiers.
+     * @param out The Appendable to write the SQL to.  If it is a StringBuilder, then the SQL is appended to it directly.
+     */
+    public SqlWriter(char beginningDelimiter, char endingDelimiter, Appendable out) {
+        if (out instanceof StringBuilder) {
+            this.sql = (StringBuilder) out;
+            this.out = null;
+        } else {
+            this.sql = new StringBuilder(FLUSH_THRESHOLD + DEFAULT_CAPACITY);
+            this.out = out;
+        }
+        this.beginningDelimiter = beginningDelimiter;
+        this.endingDelimiter = endingDelimiter;
+    }
+
+    public SqlWriter append(String s) {
+        sql.append(s);
+        return flushIfFull();
+    }
+
+    public SqlWriter append(char c) {
+        sql.append(c);
+        return this;
+    }
+
+    public SqlWriter append(long l) {
+        sql.append(l);
+        return this;
+    }
+
+    /**
+     * Appends the String value of an object, such as an Operator or Conjunction, or nothing if it is null.
+     *
+     * @param o The object.
+     * @return This SqlWriter.
+     */
+    public SqlWriter append(Object o) {
+        if (o != null) {
+            sql.append(o);
+        }
+        return flushIfFull();
+    }
+
+    /**
+     * Appends an identifier, such as a table name, wrapped in the delimiters.
+     *
+     * @param identifier The identifier.
+     * @return This SqlWriter.
+     */
+    public SqlWriter appendIdentifier(String identifier) {
+        return appendIdentifier(identifier, 0, identifier.length());
+    }
+
+    /**
+     * Appends a column in "table.column" format as two delimited identifiers, such as "table"."column".  If there is
+     * no period, then the whole String is appended as one identifier.
+     *
+     * @param tableAndColumn The column in "table.column" format.
+     * @return This SqlWriter.
+     */
+    public SqlWriter appendQualifiedIdentifier(String tableAndColumn) {
+        int dotIndex = tableAndColumn.indexOf('.');
+        if (dotIndex == -1) {
+            return appendIdentifier(tableAndColumn);
+        }
+
+        appendIdentifier(tableAndColumn, 0, dotIndex);
+        sql.append('.');
+        return appendIdentifier(tableAndColumn, dotIndex + 1, tableAndColumn.length());
+    }
+
+    /**
+     * Appends a table and column as two delimited identifiers, such as "table"."column".
+     *
+     * @param table The table name.
+     * @param column The column name.
+     * @return This SqlWriter.
+     */
+    public SqlWriter appendQualifiedIdentifier(String table, String column) {
+        appendIdentifier(table);
+        sql.append('.');
+        return appendIdentifier(column);
+    }
+
+    /**
+     * Appends a string literal wrapped in single quotes, with single quotes in the value escaped.
+     *
+     * @param value The value.
+     * @return This SqlWriter.
+     */
+    public SqlWriter appendLiteral(String value) {
+        return appendLiteral(value, 0, value.length());
+    }
+
+    /**
+     * Appends part of a String as a string literal wrapped in single quotes, with single quotes escaped.  This lets a
+     * comma-separated filter be written one value at a time without splitting it.
+     *
+     * @param s The String.
+     * @param beginIndex The index of the value's first character.
+     * @param endIndex The index after the value's last character.
+     * @return This SqlWriter.
+     */
+    public SqlWriter appendLiteral(String s, int beginIndex, int endIndex) {
+        sql.append('\'');
+        appendEscapedChars(s, beginIndex, endIndex);
+        sql.append('\'');
+        return flushIfFull();
+    }
+
+    /**
+     * Appends a value with single quotes escaped, but without wrapping it in single quotes.
+     *
+     * @param value The value.
+     * @return This SqlWriter.
+     */
+    public SqlWriter appendEscaped(String value) {
+        return appendEscaped(value, 0, value.length());
+    }
+
+    /**
+     * Appends part of a String with single quotes escaped, but without wrapping it in single quotes.
+     *
+     * @param s The String.
+     * @param beginIndex The index of the value's first character.
+     * @param endIndex The index after the value's last character.
+     * @return This SqlWriter.
+     */
+    public SqlWriter appendEscaped(String s, int beginIndex, int endIndex) {
+        appendEscapedChars(s, beginIndex, endIndex);
+        return flushIfFull();
+    }
+
+    /**
+     * Returns the number of characters in the buffer, which does not include characters already flushed to the
+     * Appendable.
+     *
+     * @return int
+     */
+    public int length() {
+        return sql.length();
+    }
+
+    /**
+     * Writes the buffer to the Appendable.  This does nothing if the SQL is not written to an Appendable or is written
+     * to a StringBuilder directly.
+     */
+    public void flush() {
+        if (out == null || sql.length() == 0) {
+            return;
+        }
+
+        try {
+            if (out instanceof Writer) {
+                int length = sql.length();
+                if (chunk == null || chunk.length < length) {
+                    chunk = new char[Math.max(length, FLUSH_THRESHOLD + DEFAULT_CAPACITY)];
+                }
+                sql.getChars(0, length, chunk, 0);
+                ((Writer) out).write(chunk, 0, length);
+            } else {
+                out.append(sql);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sql.setLength(0);
+    }
+
+    /**
+     * Clears the SQL in the buffer, so that the writer can be used for another statement.  The buffer's capacity is
+     * kept.  SQL that was already handed to an Appendable is not taken back.
+     */
+    public void reset() {
+        sql.setLength(0);
+    }
+
+    /**
+     * Returns the SQL in the buffer.  If the SQL is written to an Appendable, then this is only the part that has not
+     * been flushed yet.
+     *
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return sql.toString();
+    }
+
+    private SqlWriter flushIfFull() {
+        if (out != null && sql.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+        return this;
+    }
+
+    private SqlWriter appendIdentifier(String s, int beginIndex, int endIndex) {
+        sql.append(beginningDelimiter);
+        appendEscapedChars(s, beginIndex, endIndex);
+        sql.append(endingDelimiter);
+        return flushIfFull();
+    }
+
+    private void appendEscapedChars(String s, int beginIndex, int endIndex) {
+        for (int i=beginIndex; i<endIndex; i++) {
+            char c = s.charAt(i);
+            if (c == '\'') {
+                sql.append('\'');
+            }
+            sql.append(c);
+        }
+    }
+
+}
@@ -1,8 +1,7 @@
 package com.querybuilder4j.statements;
 
 import com.querybuilder4j.config.Constants;
-
-import static com.querybuilder4j.sqlbuilders.SqlCleanser.escape;
+import com.querybuilder4j.sqlbuilders.SqlWriter;
 
 /**
  * Data class for a database column.
@@ -23,6 +22,15 @@ public class Column {
         this.alias = alias;
     }
 
+    /**
+     * Copies another Column.
+     *
+     * @param column The Column to copy.
+     */
+    public Column(Column column) {
+        this(column.fullyQualifiedName, column.alias);
+    }
+
     public String getFullyQualifiedName() {
         return fullyQualifiedName;
     }
@@ -66,15 +74,20 @@ public class Column {
     }
 
     public String toSql(char beginningDelimiter, char endingDelimiter) throws Exception {
+        SqlWriter sql = new SqlWriter(beginningDelimiter, endingDelimiter, fullyQualifiedName.length() + 16);
+        toSql(sql);
+        return sql.toString();
+    }
+
+    /**
+     * Writes the column in "table"."column" format, followed by AS and the alias if the column has an alias.
+     *
+     * @param sql The SqlWriter to write to.
+     */
+    public void toSql(SqlWriter sql) {
+        sql.appendQualifiedIdentifier(fullyQualifiedName);
         if (hasAlias()) {
-            return String.format("%s%s%s.%s%s%s AS %s%s%s",
-                    beginningDelimiter, escape(getTable()), endingDelimiter,
-                    beginningDelimiter, escape(getColumn()), beginningDelimiter,
-                    beginningDelimiter, escape(alias), endingDelimiter);
-        } else {
-            return String.format("%s%s%s.%s%s%s",
-                    beginningDelimiter, escape(getTable()), endingDelimiter,
-                    beginningDelimiter, escape(getColumn()), beginningDelimiter);
+            sql.append(" AS ").appendIdentifier(alias);
         }
     }
 }
@@ -0,0 +1,276 @@
+package com.querybuilder4j.statements;
+
+import com.querybuilder4j.databasemetadata.DatabaseMetaData;
+import com.querybuilder4j.parsers.SubQueryParser;
+import com.querybuilder4j.sqlbuilders.PagedSql;
+import com.querybuilder4j.sqlbuilders.PreparedSql;
+import com.querybuilder4j.sqlbuilders.SqlRenderer;
+import com.querybuilder4j.validators.SelectStatementValidatorImpl;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A SelectStatement that has been validated and prepared once, so that SQL can be built from it many times with
+ * different criteria arguments.  Create one with SelectStatement.compile().
+ *
+ * Compiling does the structural work of SelectStatement.toSql():  parsing subquery calls, loading table schemas,
+ * validating tables and columns, and building subqueries.  Building SQL from a CompiledStatement only replaces the
+ * criteria parameters with the arguments, validates the criteria whose parameters were replaced, and renders the SQL.
+ *
+ * A CompiledStatement is immutable and safe to use from many threads at once.
+ */
+public final class CompiledStatement {
+
+    /**
+     * The prepared copy of the SelectStatement.  It is never changed after the constructor returns.
+     */
+    private final SelectStatement template;
+
+    private final DatabaseMetaData databaseMetaData;
+
+    private final SqlRenderer renderer;
+
+    /**
+     * The SubQueryParser with the template's subqueries already built.
+     */
+    private final SubQueryParser subQueryParser;
+
+    /**
+     * The SubQueryParser with the template's subqueries built in prepared mode, which is created the first time
+     * toPreparedSql() is called.
+     */
+    private volatile SubQueryParser preparedSubQueryParser;
+
+    /**
+     * The indexes of the template's criteria whose filters have parameters.
+     */
+    private final int[] parameterizedCriteria;
+
+    private final Set<String> parameterNames;
+
+    CompiledStatement(SelectStatement template, Properties properties, DataSource dataSource) throws Exception {
+        this.template = template;
+
+        template.prepareStructure();
+
+        SelectStatementValidatorImpl statementValidator = new SelectStatementValidatorImpl(template);
+        statementValidator.passesBasicValidation();
+
+        // Criteria with parameters pass database validation, because parameters are skipped.  They are validated when
+        // arguments are bound.
+        this.databaseMetaData = new DatabaseMetaData(properties, dataSource, template);
+        this.databaseMetaData.getTablesMetaData().getColumnCatalog();
+        template.setDatabaseMetaData(this.databaseMetaData);
+        statementValidator.passesDatabaseValidation();
+
+        this.renderer = SqlRenderer.of(this.databaseMetaData.getDatabaseType());
+        this.subQueryParser = new SubQueryParser(template);
+        this.subQueryParser.buildSubQueries();
+
+        List<Integer> parameterizedCriteria = new ArrayList<>();
+        Set<String> parameterNames = new LinkedHashSet<>();
+        List<Criteria> criteria = template.getCriteria();
+        for (int i=0; i<criteria.size(); i++) {
+            String filter = criteria.get(i).filter;
+            if (SelectStatement.hasParameters(filter)) {
+                parameterizedCriteria.add(i);
+                for (String splitFilter : filter.split(",")) {
+                    if (splitFilter.startsWith("@")) {
+                        parameterNames.add(splitFilter.substring(1));
+                    }
+                }
+            }
+        }
+
+        this.parameterizedCriteria = parameterizedCriteria.stream().mapToInt(Integer::intValue).toArray();
+        this.parameterNames = Collections.unmodifiableSet(parameterNames);
+    }
+
+    /**
+     * Returns the names of the parameters in the statement's criteria, which are the keys that toSql() needs in its
+     * criteriaArguments parameter.
+     *
+     * @return Set
+     */
+    public Set<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    public DatabaseMetaData getDatabaseMetaData() {
+        return databaseMetaData;
+    }
+
+    /**
+     * Builds the SELECT SQL string with the criteria parameters replaced by criteriaArguments.
+     *
+     * @param criteriaArguments A Map with the keys being parameter names and the values being arguments.
+     * @return String
+     */
+    public String toSql(Map<String, String> criteriaArguments) {
+        try {
+            SelectStatement stmt = bind(criteriaArguments);
+            return renderer.render(stmt, subQueryParser);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Builds the SELECT SQL string with the criteria parameters replaced by criteriaArguments and writes it to an
+     * Appendable.  See SelectStatement.toSql(Properties, DataSource, Appendable).
+     *
+     * @param criteriaArguments A Map with the keys being parameter names and the values being arguments.
+     * @param out The Appendable to write the SQL to.
+     */
+    public void toSql(Map<String, String> criteriaArguments, Appendable out) {
+        try {
+            SelectStatement stmt = bind(criteriaArguments);
+            renderer.render(stmt, subQueryParser, out);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Builds the SELECT SQL string with a ? placeholder for each criteria filter value and the typed values to bind to
+     * the placeholders.  See SelectStatement.toPreparedSql().
+     *
+     * @param criteriaArguments A Map with the keys being parameter names and the values being arguments.
+     * @return PreparedSql
+     */
+    public PreparedSql toPreparedSql(Map<String, String> criteriaArguments) {
+        try {
+            SelectStatement stmt = bind(criteriaArguments);
+            return renderer.renderPrepared(stmt, getPreparedSubQueryParser());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Builds the SQL of the statement's page and the SQL that counts all of the statement's rows, with a separate count
+     * query that counts every row.
+     *
+     * @param criteriaArguments A Map with the keys being parameter names and the values being arguments.
+     * @return PagedSql
+     */
+    public PagedSql toPagedSql(Map<String, String> criteriaArguments) {
+        return toPagedSql(criteriaArguments, PagedSql.CountStrategy.COUNT_QUERY, null);
+    }
+
+    /**
+     * Builds the SQL of the statement's page and the SQL that counts all of the statement's rows.  The criteria
+     * arguments are bound and validated once for both.  The count ignores the statement's ORDER BY clause, limit,
+     * offset, and keyset values.
+     *
+     * @param criteriaArguments A Map with the keys being parameter names and the values being arguments.
+     * @param countStrategy Whether to count with a separate query or, if the dialect and statement allow it, a window
+     *                      count column of the page query.
+     * @param maxCount The largest count that a separate count query returns, or null to count every row.  A window count
+     *                 always counts every row.
+     * @return PagedSql
+     */
+    public PagedSql toPagedSql(Map<String, String> criteriaArguments, PagedSql.CountStrategy countStrategy, Long maxCount) {
+        try {
+            SelectStatement stmt = bind(criteriaArguments);
+
+            boolean useWindowCount = countStrategy == PagedSql.CountStrategy.WINDOW_FUNCTION
+                    && renderer.getDialect().supportsWindowFunctions()
+                    && ! stmt.isDistinct()
+                    && stmt.getKeysetValues() == null;
+            if (useWindowCount) {
+                return new PagedSql(renderer.renderWithWindowCount(stmt, subQueryParser), null);
+            }
+
+            String pageSql = renderer.render(stmt, subQueryParser);
+            stmt.setKeysetValues(null);
+            return new PagedSql(pageSql, renderer.renderCount(stmt, subQueryParser, maxCount));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Builds the SQL that counts the statement's rows.  See toPagedSql(Map, PagedSql.CountStrategy, Long).
+     *
+     * @param criteriaArguments A Map with the keys being parameter names and the values being arguments.
+     * @param maxCount The largest count to return, or null to count every row.
+     * @return String
+     */
+    public String toCountSql(Map<String, String> criteriaArguments, Long maxCount) {
+        try {
+            SelectStatement stmt = bind(criteriaArguments);
+            stmt.setKeysetValues(null);
+            return renderer.renderCount(stmt, subQueryParser, maxCount);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private SubQueryParser getPreparedSubQueryParser() throws Exception {
+        if (template.getSubQueries().isEmpty()) {
+            return subQueryParser;
+        }
+
+        if (preparedSubQueryParser == null) {
+            synchronized (this) {
+                if (preparedSubQueryParser == null) {
+                    SubQueryParser parser = new SubQueryParser(template, true);
+                    parser.buildSubQueries();
+                    preparedSubQueryParser = parser;
+                }
+            }
+        }
+        return preparedSubQueryParser;
+    }
+
+    /**
+     * Returns a SelectStatement that shares the template's structure, but has copies of the parameterized criteria with
+     * their parameters replaced by criteriaArguments.  Only the replaced criteria are validated.
+     *
+     * @param criteriaArguments A Map with the keys being parameter names and the values being arguments.
+     * @return SelectStatement
+     * @throws Exception If an argument is missing or a replaced criterion is not valid.
+     */
+    SelectStatement bind(Map<String, String> criteriaArguments) throws Exception {
+        SelectStatement stmt = new SelectStatement();
+        stmt.setName(template.getName());
+        stmt.setColumns(template.getColumns());
+        stmt.setTable(template.getTable());
+        stmt.setJoins(template.getJoins());
+        stmt.setDistinct(template.isDistinct());
+        stmt.setGroupBy(template.isGroupBy());
+        stmt.setOrderBy(template.isOrderBy());
+        stmt.setLimit(template.getLimit());
+        stmt.setAscending(template.isAscending());
+        stmt.setOffset(template.getOffset());
+        stmt.setKeysetValues(template.getKeysetValues());
+        stmt.setSuppressNulls(template.isSuppressNulls());
+        stmt.setSubQueries(template.getSubQueries());
+        stmt.setQueryTemplateDao(template.getQueryTemplateDao());
+        stmt.setCriteriaParameters(template.getCriteriaParameters());
+        stmt.setCriteriaArguments(new HashMap<>(criteriaArguments));
+        stmt.setDatabaseMetaData(databaseMetaData);
+
+        List<Criteria> criteria = new ArrayList<>(template.getCriteria());
+        SelectStatementValidatorImpl statementValidator = new SelectStatementValidatorImpl(stmt);
+        for (int index : parameterizedCriteria) {
+            Criteria criterion = (Criteria) criteria.get(index).clone();
+            criterion.filter = SelectStatement.replaceParameters(criterion.filter, criteriaArguments);
+            statementValidator.criterionIsValid(criterion);
+            criteria.set(index, criterion);
+        }
+        stmt.setCriteria(criteria);
+
+        return stmt;
+    }
+
+}
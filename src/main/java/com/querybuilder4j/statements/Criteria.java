@@ -25,6 +25,22 @@ public class Criteria implements Cloneable, Comparable {
         this.id = id;
     }
 
+    /**
+     * Copies another Criteria.  Unlike clone(), the copy has its own list of end parentheses.
+     *
+     * @param criteria The Criteria to copy.
+     */
+    public Criteria(Criteria criteria) {
+        this.id = criteria.id;
+        this.parentId = criteria.parentId;
+        this.conjunction = criteria.conjunction;
+        this.frontParenthesis = criteria.frontParenthesis;
+        this.column = criteria.column;
+        this.operator = criteria.operator;
+        this.filter = criteria.filter;
+        if (criteria.endParenthesis != null) { this.endParenthesis = new ArrayList<>(criteria.endParenthesis); }
+    }
+
     public Integer getId() {
         return id;
     }
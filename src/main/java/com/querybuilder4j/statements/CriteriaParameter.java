@@ -19,6 +19,17 @@ public class CriteriaParameter {
 
     public CriteriaParameter() {}
 
+    /**
+     * Copies another CriteriaParameter.
+     *
+     * @param criteriaParameter The CriteriaParameter to copy.
+     */
+    public CriteriaParameter(CriteriaParameter criteriaParameter) {
+        this.name = criteriaParameter.name;
+        this.column = criteriaParameter.column;
+        this.description = criteriaParameter.description;
+    }
+
     public String getName() {
         return name;
     }
@@ -59,6 +59,19 @@ public class Join {
 
     public Join() { }
 
+    /**
+     * Copies another Join.  The copy has its own lists of join columns.
+     *
+     * @param join The Join to copy.
+     */
+    public Join(Join join) {
+        this.joinType = join.joinType;
+        this.parentTable = join.parentTable;
+        this.targetTable = join.targetTable;
+        if (join.parentJoinColumns != null) { this.parentJoinColumns = new ArrayList<>(join.parentJoinColumns); }
+        if (join.targetJoinColumns != null) { this.targetJoinColumns = new ArrayList<>(join.targetJoinColumns); }
+    }
+
     public JoinType getJoinType() {
         return joinType;
     }
@@ -0,0 +1,116 @@
+package com.querybuilder4j.statements;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The position of a keyset page:  the ORDER BY columns of a SelectStatement and the values of those columns in the last
+ * row of the previous page.  A KeysetCursor can be handed to a client as an opaque, URL-safe token with toToken(), and
+ * the client passes the token back to get the next page with SelectStatement.setKeysetCursor().
+ *
+ * The token is not signed.  Its values are validated like criteria filters when the statement's SQL is built.
+ */
+public final class KeysetCursor {
+
+    private static final Gson GSON = new Gson();
+
+    private final List<String> columns;
+
+    private final List<String> values;
+
+    /**
+     * @param columns The fully qualified ORDER BY columns (table.column).
+     * @param values The value of each column in the last row of the previous page.
+     * @throws IllegalArgumentException If there is not one value for each column.
+     */
+    public KeysetCursor(List<String> columns, List<String> values) {
+        if (columns.size() != values.size()) {
+            throw new IllegalArgumentException(String.format("There are %s keyset columns, but %s keyset values",
+                    columns.size(), values.size()));
+        }
+
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    /**
+     * Returns the cursor of the page after a row.
+     *
+     * @param stmt The SelectStatement, whose columns are its ORDER BY columns.
+     * @param lastRowValues The value of each of the statement's columns in the last row of the page.
+     * @return KeysetCursor
+     * @throws IllegalArgumentException If there is not one value for each column.
+     */
+    public static KeysetCursor of(SelectStatement stmt, List<String> lastRowValues) {
+        return new KeysetCursor(getColumnNames(stmt), lastRowValues);
+    }
+
+    /**
+     * Decodes a token that was returned by toToken().
+     *
+     * @param token The token.
+     * @return KeysetCursor
+     * @throws IllegalArgumentException If the token is not a KeysetCursor token.
+     */
+    public static KeysetCursor fromToken(String token) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            KeysetCursor cursor = GSON.fromJson(json, KeysetCursor.class);
+            if (cursor == null || cursor.columns == null || cursor.values == null || cursor.columns.contains(null)
+                    || cursor.values.contains(null)) {
+                throw new IllegalArgumentException("The keyset cursor is missing its columns or values");
+            }
+            return new KeysetCursor(cursor.columns, cursor.values);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("The keyset cursor is malformed", e);
+        }
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns whether this cursor is a position of a statement, which is when its columns are the statement's columns.
+     *
+     * @param stmt The SelectStatement.
+     * @return boolean
+     */
+    public boolean matches(SelectStatement stmt) {
+        return columns.equals(getColumnNames(stmt));
+    }
+
+    /**
+     * Encodes this cursor as URL-safe Base64 without padding.
+     *
+     * @return String
+     */
+    public String toToken() {
+        byte[] json = GSON.toJson(this).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+
+    @Override
+    public String toString() {
+        return toToken();
+    }
+
+    private static List<String> getColumnNames(SelectStatement stmt) {
+        List<String> columnNames = new ArrayList<>(stmt.getColumns().size());
+        for (Column column : stmt.getColumns()) {
+            columnNames.add(column.getFullyQualifiedName());
+        }
+        return columnNames;
+    }
+
+}
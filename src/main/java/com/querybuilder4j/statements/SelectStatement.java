@@ -5,24 +5,19 @@ import com.google.gson.Gson;
 import com.querybuilder4j.parsers.SubQueryParser;
 import com.querybuilder4j.databasemetadata.DatabaseMetaData;
 import com.querybuilder4j.exceptions.NoMatchingParameterException;
-import com.querybuilder4j.sqlbuilders.SqlBuilder;
+import com.querybuilder4j.sqlbuilders.PreparedSql;
 import com.querybuilder4j.databasemetadata.QueryTemplateDao;
-import com.querybuilder4j.sqlbuilders.SqlBuilderFactory;
+import com.querybuilder4j.sqlbuilders.SqlRenderer;
 import com.querybuilder4j.validators.SelectStatementValidatorImpl;
 
+import javax.sql.DataSource;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Properties;
-import java.util.Collections;
 
-import static com.querybuilder4j.statements.Parenthesis.EndParenthesis;
-import static com.querybuilder4j.statements.Parenthesis.FrontParenthesis;
-import static com.querybuilder4j.statements.Join.JoinType.LEFT_EXCLUDING;
-import static com.querybuilder4j.statements.Join.JoinType.RIGHT_EXCLUDING;
-import static com.querybuilder4j.statements.Join.JoinType.FULL_OUTER_EXCLUDING;
 
 public class SelectStatement {
     private String name = "";
@@ -37,6 +32,12 @@ public class SelectStatement {
     private boolean ascending;
     private Long offset = null;
     private boolean suppressNulls;
+
+    /**
+     * The values of the ORDER BY columns in the last row of the previous page, or null for the first page.  If set, the
+     * statement seeks past that row instead of skipping rows with an offset.
+     */
+    private List<String> keysetValues = null;
     private Map<String, String> subQueries = new HashMap<>();
     private transient QueryTemplateDao queryTemplateDao;
     private transient DatabaseMetaData databaseMetaData;
@@ -162,6 +163,42 @@ public class SelectStatement {
         this.suppressNulls = suppressNulls;
     }
 
+    public List<String> getKeysetValues() {
+        return keysetValues;
+    }
+
+    /**
+     * Sets the keyset of the page to return, which makes the statement return the rows that sort after the row with
+     * these values, instead of skipping rows with an offset.  The statement's columns are its ORDER BY columns, so
+     * orderBy must be true and there must be one value for each column, in the order of the columns.  Values are
+     * validated like criteria filters when the SQL is built.  The columns should be unique together, or rows with the
+     * same values as the last row are skipped.
+     *
+     * @param keysetValues The value of each column in the last row of the previous page, or null for the first page.
+     */
+    public void setKeysetValues(List<String> keysetValues) {
+        this.keysetValues = keysetValues;
+    }
+
+    /**
+     * Sets the keyset values from a token that was returned by KeysetCursor.toToken().
+     *
+     * @param token The KeysetCursor token, or null for the first page.
+     * @throws IllegalArgumentException If the token is malformed or its columns are not this statement's columns.
+     */
+    public void setKeysetCursor(String token) {
+        if (token == null) {
+            this.keysetValues = null;
+            return;
+        }
+
+        KeysetCursor cursor = KeysetCursor.fromToken(token);
+        if (! cursor.matches(this)) {
+            throw new IllegalArgumentException("The keyset cursor's columns are not the statement's columns:  " + cursor.getColumns());
+        }
+        this.keysetValues = new ArrayList<>(cursor.getValues());
+    }
+
     public Map<String, String> getSubQueries() {
         return subQueries;
     }
@@ -183,6 +220,14 @@ public class SelectStatement {
         this.databaseMetaData = new DatabaseMetaData(properties, this);
     }
 
+    public void setDatabaseMetaData(Properties properties, DataSource dataSource) {
+        this.databaseMetaData = new DatabaseMetaData(properties, dataSource, this);
+    }
+
+    void setDatabaseMetaData(DatabaseMetaData databaseMetaData) {
+        this.databaseMetaData = databaseMetaData;
+    }
+
     /**
      * Automatically sets the subQueries field assuming that the subQuery calls are hand-written into a criterion's filter.
      * If you want to set the subQueries field manually, use the public setSubQueries method.
@@ -279,110 +324,202 @@ public class SelectStatement {
         this.criteriaParameters = criteriaParameters;
     }
 
-    @SuppressWarnings("unchecked")
     public String toSql(Properties properties) {
-        try {
-            addExcludingJoinCriteria();
-
-            Collections.sort(this.criteria);
-
-            clearParenthesisFromCriteria();
-            addParenthesisToCriteria();
-
-            // If subQueries has not been set (if this is the case, it will have a 0 size), then set subQueries.
-            // This is done because if this SelectStatement is a subquery, then it will already have subQueries and we
-            // don't want to change them.
-            if (subQueries.size() == 0) { setSubqueries(); }
+        return toSql(properties, null);
+    }
 
-            replaceParameters();
+    /**
+     * Builds the SELECT SQL string.  Table schemas that are not already cached are loaded with connections from the
+     * dataSource parameter, which lets applications reuse their own connection pool.
+     *
+     * @param properties The database properties.  The databaseType property is required.
+     * @param dataSource The DataSource to load table schemas with.  If null, then a connection pool is created from the
+     *                   url, username, and password in the properties parameter.
+     * @return String
+     */
+    public String toSql(Properties properties, DataSource dataSource) {
+        try {
+            SubQueryParser subQueryParser = prepareSubQueryParser(properties, dataSource, false, null);
+            return SqlRenderer.of(databaseMetaData.getDatabaseType()).render(this, subQueryParser); // root query gets built here.
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            statementValidator = new SelectStatementValidatorImpl(this); // todo:  does this need to be a class field?  Can it just be a method variable?  If it's not used after this, then it should be garbage collected.
-            statementValidator.passesBasicValidation();
+    /**
+     * Builds the SELECT SQL string and writes it to an Appendable, such as a Writer or a StringBuilder that the caller
+     * reuses, instead of returning it.  This is meant for statements with very large IN lists, whose SQL should not be
+     * held on the heap in full.
+     *
+     * @param properties The database properties.  The databaseType property is required.
+     * @param dataSource The DataSource to load table schemas with.  If null, then a connection pool is created from the
+     *                   url, username, and password in the properties parameter.
+     * @param out The Appendable to write the SQL to.
+     */
+    public void toSql(Properties properties, DataSource dataSource, Appendable out) {
+        try {
+            SubQueryParser subQueryParser = prepareSubQueryParser(properties, dataSource, false, null);
+            SqlRenderer.of(databaseMetaData.getDatabaseType()).render(this, subQueryParser, out);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            // Get database meta data - namely tableMetaData - now that we know that basic validation has passed.
-            // The database meta data will be used for database validation.
-            databaseMetaData = new DatabaseMetaData(properties, this);
-            statementValidator.passesDatabaseValidation();
+    public PreparedSql toPreparedSql(Properties properties) {
+        return toPreparedSql(properties, null);
+    }
 
-            SqlBuilder sqlBuilder = SqlBuilderFactory.buildSqlBuilder(this); // subQueries get built here.
-            return sqlBuilder.buildSql(); // root query gets built here.
+    /**
+     * Builds the SELECT SQL string with a ? placeholder for each criteria filter value, including the filter values of
+     * subqueries, and the typed values to bind to the placeholders.  The types are the JDBC types of the criteria's
+     * columns.
+     *
+     * @param properties The database properties.  The databaseType property is required.
+     * @param dataSource The DataSource to load table schemas with.  If null, then a connection pool is created from the
+     *                   url, username, and password in the properties parameter.
+     * @return PreparedSql
+     */
+    public PreparedSql toPreparedSql(Properties properties, DataSource dataSource) {
+        try {
+            SubQueryParser subQueryParser = prepareSubQueryParser(properties, dataSource, true, null);
+            return SqlRenderer.of(databaseMetaData.getDatabaseType()).renderPrepared(this, subQueryParser);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void clearParenthesisFromCriteria() {
-        if (criteria.size() > 0) {
-            criteria.forEach( (x) -> {
-                x.frontParenthesis = Parenthesis.Empty;
-                x.endParenthesis.clear();
-            });
+    /**
+     * Builds the SELECT SQL string of this statement as a subquery of another statement.  The subqueries that the
+     * parent statement passed to this statement as arguments are taken from the parent's SubQueryParser instead of
+     * being built again.
+     *
+     * @param properties The database properties.  The databaseType property is required.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @param parent The SubQueryParser of the parent statement.
+     * @return String
+     */
+    public String toSubQuerySql(Properties properties, DataSource dataSource, SubQueryParser parent) {
+        try {
+            SubQueryParser subQueryParser = prepareSubQueryParser(properties, dataSource, false, parent);
+            return SqlRenderer.of(databaseMetaData.getDatabaseType()).render(this, subQueryParser);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
 
-    private void addParenthesisToCriteria() {
-        List<Criteria> criteriaList = new ArrayList<>(criteria);
-        if (criteria.size() > 0) {
-            for (int i=0; i<criteria.size(); i++) {
+    /**
+     * Same as toSubQuerySql(), but builds the SQL string with ? placeholders.  See toPreparedSql().
+     *
+     * @param properties The database properties.  The databaseType property is required.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @param parent The SubQueryParser of the parent statement, which was created in prepared mode.
+     * @return PreparedSql
+     */
+    public PreparedSql toPreparedSubQuerySql(Properties properties, DataSource dataSource, SubQueryParser parent) {
+        try {
+            SubQueryParser subQueryParser = prepareSubQueryParser(properties, dataSource, true, parent);
+            return SqlRenderer.of(databaseMetaData.getDatabaseType()).renderPrepared(this, subQueryParser);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-                Criteria theCriteria = criteriaList.get(i);
+    private SubQueryParser prepareSubQueryParser(Properties properties, DataSource dataSource, boolean prepared,
+                                                 SubQueryParser parent) throws Exception {
+        prepareStructure();
 
-                if (isCriteriaAParent(theCriteria.getId())) {
-                    theCriteria.frontParenthesis = FrontParenthesis;
-                }
-                // if this is the last index of the criteria with this parent id, then add end parenthesis.
-                else if (getLastIndexOfCriteriaAsParent(theCriteria.parentId) == i) {
-                    theCriteria.endParenthesis.add(EndParenthesis);
-                }
+        replaceParameters();
 
-            }
+        statementValidator = new SelectStatementValidatorImpl(this); // todo:  does this need to be a class field?  Can it just be a method variable?  If it's not used after this, then it should be garbage collected.
+        statementValidator.passesBasicValidation();
 
-            // Determine if any remaining closing parenthesis are needed at end of criteria.  This only applies to criteria
-            //   lists that end on a child criteria.
-            StringBuilder s = new StringBuilder();
-            for (Criteria crit : criteria) {
-                s.append(crit.toString());
-            }
+        // Get database meta data - namely tableMetaData - now that we know that basic validation has passed.
+        // The database meta data will be used for database validation.
+        databaseMetaData = new DatabaseMetaData(properties, dataSource, this);
+        statementValidator.passesDatabaseValidation();
 
-            char[] chars = s.toString().toCharArray();
-            int numOfBegParen = 0;
-            int numOfEndParen = 0;
+        return new SubQueryParser(this, prepared, parent); // subQueries get built when the WHERE clause is written.
+    }
 
-            for (Character c : chars) {
-                if (c.equals('(')) {
-                    numOfBegParen++;
-                } else if (c.equals(')')) {
-                    numOfEndParen++;
-                }
-            }
+    /**
+     * Compiles the statement into a CompiledStatement, which does the structural work of toSql() once:  parsing and
+     * building subqueries, loading table schemas, and validating tables and columns.  The CompiledStatement can then
+     * build SQL for many sets of criteria arguments, only validating the arguments each time.
+     *
+     * This SelectStatement is not changed.  The CompiledStatement works on a copy of it.
+     *
+     * @param properties The database properties.  The databaseType property is required.
+     * @return CompiledStatement
+     */
+    public CompiledStatement compile(Properties properties) {
+        return compile(properties, null);
+    }
 
-            int parenDiff = numOfBegParen - numOfEndParen;
-            if (parenDiff > 0) {
-                for (int i=0; i<parenDiff; i++) {
-                    criteria.get(criteria.size() - 1).endParenthesis.add(EndParenthesis);
-                }
-            }
+    /**
+     * Same as compile(Properties), but loads table schemas that are not already cached with connections from the
+     * dataSource parameter.
+     *
+     * @param properties The database properties.  The databaseType property is required.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @return CompiledStatement
+     */
+    public CompiledStatement compile(Properties properties, DataSource dataSource) {
+        try {
+            return new CompiledStatement(copy(), properties, dataSource);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
-
     }
 
-    private int getLastIndexOfCriteriaAsParent(Integer parentId) {
-        if (parentId == null) return -1;
-        List<Criteria> criteriaList = new ArrayList<>(criteria);
-        for (int i=criteriaList.size()-1; i>=0; i--) {
-            if (criteriaList.get(i).parentId == null) continue;
-            if (criteriaList.get(i).parentId.equals(parentId)) return i;
+    /**
+     * Returns a deep copy of this SelectStatement.  The copy shares this SelectStatement's queryTemplateDao, but not its
+     * database meta data.  The copy is made field by field, because query templates are copied for every subquery
+     * call and a JSON round trip costs far more than the structure itself.
+     *
+     * @return SelectStatement
+     */
+    public SelectStatement copy() {
+        SelectStatement copy = new SelectStatement();
+        copy.name = name;
+        copy.table = table;
+        copy.distinct = distinct;
+        copy.groupBy = groupBy;
+        copy.orderBy = orderBy;
+        copy.limit = limit;
+        copy.ascending = ascending;
+        copy.offset = offset;
+        copy.suppressNulls = suppressNulls;
+        if (columns != null) {
+            copy.columns = new ArrayList<>(columns.size());
+            columns.forEach(column -> copy.columns.add((column == null) ? null : new Column(column)));
+        }
+        if (criteria != null) {
+            copy.criteria = new ArrayList<>(criteria.size());
+            criteria.forEach(criterion -> copy.criteria.add((criterion == null) ? null : new Criteria(criterion)));
         }
-        return -1;
+        if (joins != null) {
+            copy.joins = new ArrayList<>(joins.size());
+            joins.forEach(join -> copy.joins.add((join == null) ? null : new Join(join)));
+        }
+        if (keysetValues != null) { copy.keysetValues = new ArrayList<>(keysetValues); }
+        if (subQueries != null) { copy.subQueries = new HashMap<>(subQueries); }
+        if (criteriaArguments != null) { copy.criteriaArguments = new HashMap<>(criteriaArguments); }
+        if (criteriaParameters != null) {
+            copy.criteriaParameters = new ArrayList<>(criteriaParameters.size());
+            criteriaParameters.forEach(parameter -> copy.criteriaParameters.add((parameter == null) ? null : new CriteriaParameter(parameter)));
+        }
+        copy.setQueryTemplateDao(this.queryTemplateDao);
+        return copy;
     }
 
-    private boolean isCriteriaAParent(int id) {
-        List<Criteria> criteriaList = new ArrayList<>(criteria);
-        for (Criteria crit : criteriaList) {
-            if (crit.parentId == null) continue;
-            if (crit.parentId == id) return true;
-        }
-        return false;
+    /**
+     * Does the structural steps of building SQL that do not depend on criteria arguments or the database.
+     */
+    void prepareStructure() {
+        // If subQueries has not been set (if this is the case, it will have a 0 size), then set subQueries.
+        // This is done because if this SelectStatement is a subquery, then it will already have subQueries and we
+        // don't want to change them.
+        if (subQueries.size() == 0) { setSubqueries(); }
     }
 
     @Override
@@ -404,86 +541,60 @@ public class SelectStatement {
         // Now that we know there are equal number of parameters and arguments, try replacing the parameters with arguments.
         if (criteriaArguments.size() != 0) {
             for (Criteria criterion : criteria) {
-
-                String filter = criterion.filter;
-                String[] splitFilters = filter.split(",");
-                List<String> resultFilters = new ArrayList<>();
-
-                for (String splitFilter : splitFilters) {
-                    if (splitFilter.length() >= 1 && splitFilter.substring(0, 1).equals("@")) {
-                        String paramName = splitFilter.substring(1);
-                        String paramValue = criteriaArguments.get(paramName);
-                        if (paramValue != null) {
-                            resultFilters.add(paramValue);
-                            //criterion.filter = paramValue;
-                        } else {
-                            String message = String.format("No criteria parameter was found with the name, %s", paramName);
-                            throw new NoMatchingParameterException(message);
-                        }
-                    }
-                }
-
-                if (resultFilters.size() != 0) {
-                    criterion.filter = String.join(",", resultFilters);
-                }
+                criterion.filter = replaceParameters(criterion.filter, criteriaArguments);
             }
         }
     }
 
     /**
-     * Adds isNull criterion to criteria if any of the statement's joins are an 'excluding' join, such as LEFT_JOIN_EXCLUDING,
-     * RIGHT_JOIN_EXCLUDING, or FULL_OUTER_JOIN_EXCLUDING.
+     * Replaces the parameters in a criterion's filter with the relevant value from the criteriaArguments parameter.
+     *
+     * @param filter The criterion's filter.
+     * @param criteriaArguments A Map with the keys being parameter names and the values being arguments.
+     * @return The filter with its parameters replaced or the filter parameter if it does not have any parameters.
+     * @throws NoMatchingParameterException if the parameter cannot be found as a key in criteriaArguments.
      */
-    private void addExcludingJoinCriteria() {
-        if (! this.joins.isEmpty()) {
-            for (Join join : joins) {
-                Join.JoinType joinType = join.getJoinType();
-                if (joinType.equals(LEFT_EXCLUDING)) {
-                    addCriteriaForExcludingJoin(join.getTargetJoinColumns());
-                } else if (joinType.equals(RIGHT_EXCLUDING)) {
-                    addCriteriaForExcludingJoin(join.getParentJoinColumns());
-                } else if (joinType.equals(FULL_OUTER_EXCLUDING)) {
-                    List<String> allJoinColumnns = new ArrayList<>();
-                    allJoinColumnns.addAll(join.getParentJoinColumns());
-                    allJoinColumnns.addAll(join.getTargetJoinColumns());
-                    addCriteriaForExcludingJoin(allJoinColumnns);
+    static String replaceParameters(String filter, Map<String, String> criteriaArguments) throws NoMatchingParameterException {
+        if (filter == null) {
+            return null;
+        }
+
+        String[] splitFilters = filter.split(",");
+        List<String> resultFilters = new ArrayList<>();
+
+        for (String splitFilter : splitFilters) {
+            if (splitFilter.length() >= 1 && splitFilter.substring(0, 1).equals("@")) {
+                String paramName = splitFilter.substring(1);
+                String paramValue = criteriaArguments.get(paramName);
+                if (paramValue != null) {
+                    resultFilters.add(paramValue);
+                } else {
+                    String message = String.format("No criteria parameter was found with the name, %s", paramName);
+                    throw new NoMatchingParameterException(message);
                 }
             }
         }
+
+        return (resultFilters.size() != 0) ? String.join(",", resultFilters) : filter;
     }
 
-    private void addCriteriaForExcludingJoin(List<String> columns) {
-        // Get max id
-        int maxId = 0;
-        for (Criteria criterion : criteria) {
-            if (criterion.getId() > maxId) {
-                maxId = criterion.getId();
-            }
+    /**
+     * Determines if a criterion's filter has any parameters, which are values that start with "@".
+     *
+     * @param filter The criterion's filter.
+     * @return boolean
+     */
+    static boolean hasParameters(String filter) {
+        if (filter == null) {
+            return false;
         }
 
-        int nextId = maxId + 1;
-        int parentId = 0;
-        for (int i=0; i<columns.size(); i++) {
-            Criteria criterion = new Criteria(nextId);
-
-            // For the first iteration in this for loop, the parentId will be null.  On every iteration afterwards,
-            // the parentId should be set to the nextId so that every criterion generated by this method is a child of
-            // the first criterion that has a null parentId.
-            if (i == 0) {
-                parentId = nextId;
-                criterion.setParentId(null);
-                if (! criteria.isEmpty()) {
-                    criterion.setConjunction(Conjunction.And);
-                }
-            } else {
-                criterion.setParentId(parentId);
-                criterion.setConjunction(Conjunction.Or);
+        for (String splitFilter : filter.split(",")) {
+            if (splitFilter.startsWith("@")) {
+                return true;
             }
-
-            criterion.setColumn(columns.get(i));
-            criterion.setOperator(Operator.isNull);
-            criteria.add(criterion);
         }
+        return false;
     }
 
     /**
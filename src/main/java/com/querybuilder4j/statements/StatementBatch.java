@@ -0,0 +1,329 @@
+package com.querybuilder4j.statements;
+
+import com.querybuilder4j.databasemetadata.DatabaseMetaData;
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
+import com.querybuilder4j.utils.BackgroundExecutor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the SQL of many SelectStatements at once, such as the statements of a report pack or a scheduled export.
+ * Compared to calling toSql() on each statement:
+ *
+ *   - The schemas of the union of the statements' tables, including the tables of the query templates that they call
+ *     as subqueries, are loaded in one warm-up, instead of each statement loading its own tables.
+ *   - Each query template is fetched from a statement's QueryTemplateDao once for the whole batch, and the templates
+ *     of each level of subquery calls are fetched with one getQueryTemplatesByNames() call.  Every subquery
+ *     builds from its own copy of the template, so a template that is used with different arguments is not changed
+ *     by the first build.
+ *   - The statements are rendered in parallel.
+ *
+ * A statement that fails does not fail the batch.  Each statement gets a Result with either its SQL or its error.
+ */
+public final class StatementBatch {
+
+    /**
+     * The SQL or the error of one statement of a batch.
+     */
+    public static final class Result {
+
+        private final SelectStatement statement;
+
+        private final String sql;
+
+        private final Exception error;
+
+        private Result(SelectStatement statement, String sql, Exception error) {
+            this.statement = statement;
+            this.sql = sql;
+            this.error = error;
+        }
+
+        public SelectStatement getStatement() {
+            return statement;
+        }
+
+        /**
+         * Returns the statement's SQL, or null if building it failed.
+         *
+         * @return String
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * Returns the reason that building the statement's SQL failed, or null if it succeeded.
+         *
+         * @return Exception
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            return (error == null) ? sql : "Error:  " + error;
+        }
+    }
+
+    private StatementBatch() {}
+
+    public static List<Result> toSql(Collection<SelectStatement> statements, Properties properties) {
+        return toSql(statements, properties, null);
+    }
+
+    public static List<Result> toSql(Collection<SelectStatement> statements, Properties properties, DataSource dataSource) {
+        return toSql(statements, properties, dataSource, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds the SQL of each statement.  The statements are changed like toSql() changes them.  If the same
+     * SelectStatement object is in the collection more than once, then it is built once and shares its Result.
+     *
+     * @param statements The SelectStatements.
+     * @param properties The database properties.  The databaseType property is required.
+     * @param dataSource The DataSource to load table schemas with or null to use the built-in ConnectionPool.
+     * @param maxConcurrency The maximum number of statements to build at one time.
+     * @return The Result of each statement, in the order of the statements.
+     */
+    public static List<Result> toSql(Collection<SelectStatement> statements, Properties properties, DataSource dataSource,
+                                     int maxConcurrency) {
+        List<SelectStatement> uniqueStatements = new ArrayList<>(statements.size());
+        Set<SelectStatement> seenStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SelectStatement stmt : statements) {
+            if (seenStatements.add(stmt)) {
+                uniqueStatements.add(stmt);
+            }
+        }
+
+        Map<QueryTemplateDao, BatchQueryTemplateDao> batchDaos = new IdentityHashMap<>();
+        List<QueryTemplateDao> originalDaos = new ArrayList<>(uniqueStatements.size());
+        Result[] results = new Result[uniqueStatements.size()];
+        try {
+            Set<String> tables = new LinkedHashSet<>();
+            List<SelectStatement> preparedStatements = new ArrayList<>(uniqueStatements.size());
+            for (int i=0; i<uniqueStatements.size(); i++) {
+                SelectStatement stmt = uniqueStatements.get(i);
+                QueryTemplateDao queryTemplateDao = stmt.getQueryTemplateDao();
+                originalDaos.add(queryTemplateDao);
+                if (queryTemplateDao != null) {
+                    stmt.setQueryTemplateDao(batchDaos.computeIfAbsent(queryTemplateDao, BatchQueryTemplateDao::new));
+                }
+
+                try {
+                    stmt.prepareStructure();
+                    addTables(tables, stmt);
+                    preparedStatements.add(stmt);
+                } catch (Exception e) {
+                    results[i] = new Result(stmt, null, e);
+                }
+            }
+            addQueryTemplateTables(tables, preparedStatements);
+
+            warmUp(properties, dataSource, tables);
+
+            List<Integer> unbuiltIndexes = new ArrayList<>(results.length);
+            for (int i=0; i<results.length; i++) {
+                if (results[i] == null) {
+                    unbuiltIndexes.add(i);
+                }
+            }
+            BackgroundExecutor.forEachBounded(unbuiltIndexes, maxConcurrency, i -> {
+                SelectStatement stmt = uniqueStatements.get(i);
+                try {
+                    results[i] = new Result(stmt, stmt.toSql(properties, dataSource), null);
+                } catch (Exception e) {
+                    results[i] = new Result(stmt, null, e);
+                }
+            }).join();
+        } finally {
+            for (int i=0; i<originalDaos.size(); i++) {
+                uniqueStatements.get(i).setQueryTemplateDao(originalDaos.get(i));
+            }
+        }
+
+        Map<SelectStatement, Result> resultsByStatement = new IdentityHashMap<>();
+        for (Result result : results) {
+            resultsByStatement.put(result.getStatement(), result);
+        }
+        List<Result> orderedResults = new ArrayList<>(statements.size());
+        for (SelectStatement stmt : statements) {
+            orderedResults.add(resultsByStatement.get(stmt));
+        }
+        return orderedResults;
+    }
+
+    /**
+     * Adds the tables of a statement.
+     */
+    private static void addTables(Set<String> tables, SelectStatement stmt) {
+        tables.add(stmt.getTable());
+        for (Join join : stmt.getJoins()) {
+            tables.add(join.getTargetTable());
+        }
+        for (String column : stmt.getAllFullyQualifiedColumnNames()) {
+            int dotIndex = (column == null) ? -1 : column.indexOf('.');
+            if (dotIndex != -1) {
+                tables.add(column.substring(0, dotIndex));
+            }
+        }
+    }
+
+    /**
+     * Adds the tables of the query templates that the statements call as subqueries, including the templates that
+     * those templates call.  The templates of each level of calls are fetched with one getQueryTemplatesByNames() call
+     * per QueryTemplateDao, and each template is fetched once.  A template that cannot be fetched or parsed is left to
+     * fail the statements that call it.
+     */
+    private static void addQueryTemplateTables(Set<String> tables, List<SelectStatement> statements) {
+        Map<QueryTemplateDao, Set<String>> fetchedNames = new IdentityHashMap<>();
+        List<SelectStatement> callers = statements;
+        while (! callers.isEmpty()) {
+            Map<QueryTemplateDao, Set<String>> namesToFetch = new IdentityHashMap<>();
+            for (SelectStatement caller : callers) {
+                QueryTemplateDao queryTemplateDao = caller.getQueryTemplateDao();
+                if (queryTemplateDao == null) {
+                    continue;
+                }
+                Set<String> fetched = fetchedNames.computeIfAbsent(queryTemplateDao, dao -> new HashSet<>());
+                for (String subQueryCall : caller.getSubQueries().values()) {
+                    int argsIndex = subQueryCall.indexOf('(');
+                    String subQueryName = (argsIndex == -1) ? subQueryCall : subQueryCall.substring(0, argsIndex);
+                    if (fetched.add(subQueryName)) {
+                        namesToFetch.computeIfAbsent(queryTemplateDao, dao -> new LinkedHashSet<>()).add(subQueryName);
+                    }
+                }
+            }
+
+            List<SelectStatement> queryTemplates = new ArrayList<>();
+            namesToFetch.forEach((queryTemplateDao, names) -> {
+                Map<String, SelectStatement> queryTemplatesByName;
+                try {
+                    queryTemplatesByName = queryTemplateDao.getQueryTemplatesByNames(names);
+                } catch (RuntimeException e) {
+                    return;
+                }
+                for (SelectStatement queryTemplate : queryTemplatesByName.values()) {
+                    try {
+                        queryTemplate.prepareStructure();
+                        addTables(tables, queryTemplate);
+                        queryTemplates.add(queryTemplate);
+                    } catch (RuntimeException e) {
+                        // The statements that call the template report its error.
+                    }
+                }
+            });
+            callers = queryTemplates;
+        }
+    }
+
+    /**
+     * Loads the schemas of the tables that are not cached.  A table that cannot be loaded is left to fail the
+     * statements that use it.
+     */
+    private static void warmUp(Properties properties, DataSource dataSource, Set<String> tables) {
+        tables.remove(null);
+        tables.remove("");
+        try {
+            DatabaseMetaData.warmUp(properties, dataSource, tables).join();
+        } catch (RuntimeException e) {
+            // Each statement loads the tables that are still not cached and reports its own error.
+        }
+    }
+
+    /**
+     * A QueryTemplateDao that fetches each query template from another QueryTemplateDao once and returns a copy of it
+     * to each caller.
+     */
+    private static final class BatchQueryTemplateDao implements QueryTemplateDao {
+
+        private final QueryTemplateDao queryTemplateDao;
+
+        private final Map<String, SelectStatement> queryTemplates = new ConcurrentHashMap<>();
+
+        private BatchQueryTemplateDao(QueryTemplateDao queryTemplateDao) {
+            this.queryTemplateDao = queryTemplateDao;
+        }
+
+        @Override
+        public SelectStatement getQueryTemplateByName(String name) {
+            SelectStatement queryTemplate = queryTemplates.computeIfAbsent(name, queryTemplateDao::getQueryTemplateByName);
+            return (queryTemplate == null) ? null : copy(queryTemplate);
+        }
+
+        @Override
+        public Map<String, SelectStatement> getQueryTemplatesByNames(Collection<String> names) {
+            List<String> missingNames = new ArrayList<>();
+            for (String name : names) {
+                if (! queryTemplates.containsKey(name)) {
+                    missingNames.add(name);
+                }
+            }
+            if (! missingNames.isEmpty()) {
+                queryTemplateDao.getQueryTemplatesByNames(missingNames).forEach((name, queryTemplate) -> {
+                    if (queryTemplate != null) {
+                        queryTemplates.put(name, queryTemplate);
+                    }
+                });
+            }
+
+            Map<String, SelectStatement> copies = new LinkedHashMap<>();
+            for (String name : names) {
+                SelectStatement queryTemplate = queryTemplates.get(name);
+                if (queryTemplate != null) {
+                    copies.put(name, copy(queryTemplate));
+                }
+            }
+            return copies;
+        }
+
+        @Override
+        public boolean save(String primaryKey, String json) {
+            queryTemplates.remove(primaryKey);
+            return queryTemplateDao.save(primaryKey, json);
+        }
+
+        @Override
+        public List<String> getNames(Integer limit, Integer offset, boolean ascending) throws Exception {
+            return queryTemplateDao.getNames(limit, offset, ascending);
+        }
+
+        @Override
+        public QueryTemplateDao getWrappedQueryTemplateDao() {
+            return queryTemplateDao;
+        }
+
+        @Override
+        public String toString() {
+            return "Batch of " + queryTemplates.size() + " templates from " + queryTemplateDao;
+        }
+
+        /**
+         * Copies a query template.  The copy's QueryTemplateDao is this one, so that the templates that it calls are
+         * fetched through the batch too.
+         */
+        private SelectStatement copy(SelectStatement queryTemplate) {
+            SelectStatement copy = queryTemplate.copy();
+            copy.setQueryTemplateDao(this);
+            return copy;
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.querybuilder4j.statements;
+
+import com.querybuilder4j.utils.MurmurHash3;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A 128-bit hash of the parts of a SelectStatement that affect its SQL, which can be used as the key of SQL caches,
+ * result caches, and metrics.  Two statements that would render the same SQL have the same fingerprint, even if they
+ * were built in a different order.
+ *
+ * The hash is a MurmurHash3 of a normalized form of the statement:
+ *
+ *   - Identifiers (tables, columns, and aliases) are hashed exactly as they are written, without trimming them or
+ *     changing their case, because the validator and SqlRenderer use them as they are.
+ *   - Criteria are sorted by id, and the conjunction of the first criterion, which is never written, is ignored.
+ *   - The pairs of join columns of each join are sorted, because the pairs are joined with AND.
+ *   - Subqueries and criteria arguments are sorted by key.
+ *   - The statement's name and criteria parameter descriptions are ignored.
+ *
+ * A fingerprint without literals also ignores the criteria filter values (but not parameter names or subquery ids),
+ * the criteria arguments, the subquery arguments, the keyset values, and the limit and offset values, so that
+ * statements that only differ in their values, such as the same dashboard query for different dates or pages, have the
+ * same fingerprint.
+ *
+ * The fingerprint is of the statement as it is passed in, so it should be taken before toSql() replaces the parameters
+ * and subquery calls in the statement's criteria.
+ */
+public final class StatementFingerprint {
+
+    private static final char NO_LITERAL = '?';
+
+    private static final Comparator<Criteria> CRITERIA_BY_ID = Comparator.comparing(Criteria::getId,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final long high;
+
+    private final long low;
+
+    public StatementFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Returns the fingerprint of a statement including its literal values.  This is the fingerprint to cache a
+     * statement's SQL with.
+     *
+     * @param stmt The SelectStatement.
+     * @return StatementFingerprint
+     */
+    public static StatementFingerprint of(SelectStatement stmt) {
+        return of(stmt, true);
+    }
+
+    /**
+     * Returns the fingerprint of a statement.
+     *
+     * @param stmt The SelectStatement.
+     * @param includeLiterals Whether the criteria filter values, criteria arguments, subquery arguments, keyset values,
+     *                        limit, and offset are part of the fingerprint.
+     * @return StatementFingerprint
+     */
+    public static StatementFingerprint of(SelectStatement stmt, boolean includeLiterals) {
+        MurmurHash3 hash = new MurmurHash3();
+        hash.putBoolean(includeLiterals);
+
+        hash.putInt(stmt.getColumns().size());
+        for (Column column : stmt.getColumns()) {
+            putIdentifier(hash, column.getFullyQualifiedName());
+            putIdentifier(hash, column.getAlias());
+        }
+
+        putIdentifier(hash, stmt.getTable());
+
+        hash.putInt(stmt.getJoins().size());
+        for (Join join : stmt.getJoins()) {
+            putJoin(hash, join);
+        }
+
+        List<Criteria> criteria = new ArrayList<>(stmt.getCriteria());
+        criteria.sort(CRITERIA_BY_ID);
+        hash.putInt(criteria.size());
+        for (Criteria criterion : criteria) {
+            putCriterion(hash, criterion, includeLiterals);
+        }
+
+        hash.putBoolean(stmt.isDistinct())
+                .putBoolean(stmt.isGroupBy())
+                .putBoolean(stmt.isOrderBy())
+                .putBoolean(stmt.isAscending())
+                .putBoolean(stmt.isSuppressNulls());
+        putLimit(hash, stmt.getLimit(), includeLiterals);
+        putLimit(hash, stmt.getOffset(), includeLiterals);
+
+        List<String> keysetValues = stmt.getKeysetValues();
+        hash.putInt((keysetValues == null) ? -1 : keysetValues.size());
+        if (includeLiterals && keysetValues != null) {
+            for (String keysetValue : keysetValues) {
+                hash.putString(keysetValue);
+            }
+        }
+
+        Map<String, String> subQueries = new TreeMap<>(stmt.getSubQueries());
+        hash.putInt(subQueries.size());
+        for (Map.Entry<String, String> subQuery : subQueries.entrySet()) {
+            hash.putString(subQuery.getKey());
+            String subQueryCall = subQuery.getValue();
+            int argsIndex = (subQueryCall == null) ? -1 : subQueryCall.indexOf('(');
+            if (includeLiterals || argsIndex == -1) {
+                hash.putString(subQueryCall);
+            } else {
+                hash.putString(subQueryCall, 0, argsIndex);
+            }
+        }
+
+        if (includeLiterals && stmt.getCriteriaArguments() != null) {
+            Map<String, String> criteriaArguments = new TreeMap<>(stmt.getCriteriaArguments());
+            hash.putInt(criteriaArguments.size());
+            for (Map.Entry<String, String> criteriaArgument : criteriaArguments.entrySet()) {
+                hash.putString(criteriaArgument.getKey());
+                hash.putString(criteriaArgument.getValue());
+            }
+        }
+
+        long[] halves = hash.hash();
+        return new StatementFingerprint(halves[0], halves[1]);
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        StatementFingerprint that = (StatementFingerprint) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    /**
+     * Returns the fingerprint as 32 hexadecimal digits.
+     *
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    private static void putIdentifier(MurmurHash3 hash, String identifier) {
+        hash.putString(identifier);
+    }
+
+    private static void putJoin(MurmurHash3 hash, Join join) {
+        hash.putString((join.getJoinType() == null) ? null : join.getJoinType().name());
+        putIdentifier(hash, join.getTargetTable());
+
+        List<String> parentJoinColumns = join.getParentJoinColumns();
+        List<String> targetJoinColumns = join.getTargetJoinColumns();
+        List<String> columnPairs = new ArrayList<>(parentJoinColumns.size());
+        for (int i=0; i<parentJoinColumns.size(); i++) {
+            String targetJoinColumn = (i < targetJoinColumns.size()) ? targetJoinColumns.get(i) : "";
+            columnPairs.add(parentJoinColumns.get(i) + "=" + targetJoinColumn);
+        }
+        columnPairs.sort(null);
+
+        hash.putInt(columnPairs.size());
+        for (String columnPair : columnPairs) {
+            hash.putString(columnPair);
+        }
+    }
+
+    private static void putCriterion(MurmurHash3 hash, Criteria criterion, boolean includeLiterals) {
+        Integer id = criterion.getId();
+        hash.putInt((id == null) ? -1 : id);
+        hash.putInt((criterion.parentId == null) ? -1 : criterion.parentId);
+        if (id != null && id != 0) {
+            hash.putString((criterion.conjunction == null) ? null : criterion.conjunction.name());
+        }
+        putIdentifier(hash, criterion.column);
+        hash.putString((criterion.operator == null) ? null : criterion.operator.name());
+
+        if (includeLiterals || criterion.filter == null) {
+            hash.putString(criterion.filter);
+        } else {
+            putFilterWithoutLiterals(hash, criterion.filter);
+        }
+    }
+
+    /**
+     * Adds a filter's parameters and subquery ids, and one placeholder for each run of literal values, so that IN lists
+     * of different lengths have the same fingerprint.
+     */
+    private static void putFilterWithoutLiterals(MurmurHash3 hash, String filter) {
+        boolean lastWasLiteral = false;
+        int begin = 0;
+        while (begin <= filter.length()) {
+            int end = filter.indexOf(',', begin);
+            if (end == -1) { end = filter.length(); }
+
+            boolean isLiteral = begin == end || (filter.charAt(begin) != '@' && filter.charAt(begin) != '$');
+            if (! isLiteral) {
+                hash.putString(filter, begin, end);
+            } else if (! lastWasLiteral) {
+                hash.putChar(NO_LITERAL);
+            }
+            lastWasLiteral = isLiteral;
+
+            begin = end + 1;
+        }
+    }
+
+    private static void putLimit(MurmurHash3 hash, Long limit, boolean includeLiterals) {
+        hash.putBoolean(limit != null);
+        if (limit != null && includeLiterals) {
+            hash.putLong(limit);
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.querybuilder4j.utils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * The process-wide executor that querybuilder4j runs background work on, such as loading table schemas.  If the JVM
+ * supports virtual threads (Java 21 and later), then each task runs on its own virtual thread.  Otherwise, tasks run on
+ * a fixed pool of daemon threads.
+ *
+ * The executor itself is not what bounds concurrency, because virtual threads are not pooled.  Callers that talk to a
+ * database should use forEachBounded() so that they never use more connections at once than they ask for.
+ */
+public class BackgroundExecutor {
+
+    private static final ExecutorService EXECUTOR = newExecutor();
+
+    public static ExecutorService getInstance() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Runs action on every item, with at most maxConcurrency items being worked on at one time.  maxConcurrency
+     * workers are started and each one takes items off a shared queue until the queue is empty.
+     *
+     * @param items The items to work on.
+     * @param maxConcurrency The maximum number of items to work on at one time.
+     * @param action The work to do for each item.
+     * @param <T> The type of the items.
+     * @return A CompletableFuture that completes when every item has been worked on or completes exceptionally with the
+     * first exception thrown by action.
+     */
+    public static <T> CompletableFuture<Void> forEachBounded(Collection<T> items, int maxConcurrency, Consumer<T> action) {
+        Queue<T> queue = new ConcurrentLinkedQueue<>(items);
+        int numberOfWorkers = Math.min(Math.max(maxConcurrency, 1), queue.size());
+        List<CompletableFuture<Void>> workers = new ArrayList<>(numberOfWorkers);
+
+        for (int i=0; i<numberOfWorkers; i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                T item;
+                while ((item = queue.poll()) != null) {
+                    action.accept(item);
+                }
+            }, EXECUTOR));
+        }
+
+        return CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Same as forEachBounded(), but the calling thread works on items too, and the method returns once every item has
+     * been worked on.  The calling thread takes items until none are left and then only waits for the items that other
+     * threads have already started, so this can be called from a task that runs on the executor, such as a subquery
+     * that builds its own subqueries, without waiting on tasks that cannot start because the executor is busy.
+     *
+     * After action throws, the items that have not been started are skipped.
+     *
+     * @param items The items to work on.
+     * @param maxConcurrency The maximum number of items to work on at one time, including the calling thread's item.
+     * @param action The work to do for each item.
+     * @param <T> The type of the items.
+     * @throws CompletionException Wrapping the first exception thrown by action or an InterruptedException.
+     */
+    public static <T> void forEachBoundedAndWait(Collection<T> items, int maxConcurrency, Consumer<T> action) {
+        Queue<T> queue = new ConcurrentLinkedQueue<>(items);
+        if (queue.isEmpty()) {
+            return;
+        }
+
+        CountDownLatch remainingItems = new CountDownLatch(queue.size());
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        Runnable worker = () -> {
+            T item;
+            while ((item = queue.poll()) != null) {
+                try {
+                    if (firstError.get() == null) {
+                        action.accept(item);
+                    }
+                } catch (Throwable t) {
+                    firstError.compareAndSet(null, t);
+                } finally {
+                    remainingItems.countDown();
+                }
+            }
+        };
+
+        int numberOfHelpers = Math.min(Math.max(maxConcurrency, 1), queue.size()) - 1;
+        for (int i=0; i<numberOfHelpers; i++) {
+            EXECUTOR.execute(worker);
+        }
+        worker.run();
+
+        try {
+            remainingItems.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        if (firstError.get() != null) {
+            throw new CompletionException(firstError.get());
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            // Virtual threads are not available in this JVM.
+            AtomicInteger threadNumber = new AtomicInteger();
+            int numberOfThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+            return Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+                Thread thread = new Thread(runnable, "qb4j-background-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+}
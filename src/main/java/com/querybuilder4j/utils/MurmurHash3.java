@@ -0,0 +1,172 @@
+package com.querybuilder4j.utils;
+
+/**
+ * A streaming implementation of the 128-bit x64 variant of MurmurHash3 with a seed of 0.  Values are added with the put
+ * methods, and hash() returns the two 64-bit halves of the hash.  The hash is not cryptographic, but it is fast and
+ * well distributed, so it is suitable as a cache key.
+ *
+ * Strings are added as their UTF-16 chars, each in little-endian byte order, preceded by their length, so that "ab"
+ * followed by "c" hashes differently than "a" followed by "bc".
+ *
+ * A MurmurHash3 is not thread safe.
+ */
+public final class MurmurHash3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+
+    private long h2;
+
+    /**
+     * The first and second 8 bytes of the 16-byte block being filled.
+     */
+    private long k1;
+
+    private long k2;
+
+    private int bufferedBytes;
+
+    private long length;
+
+    public MurmurHash3 putByte(byte b) {
+        long value = b & 0xffL;
+        if (bufferedBytes < 8) {
+            k1 |= value << (8 * bufferedBytes);
+        } else {
+            k2 |= value << (8 * (bufferedBytes - 8));
+        }
+
+        length++;
+        if (++bufferedBytes == 16) {
+            mixBlock();
+        }
+        return this;
+    }
+
+    public MurmurHash3 putChar(char c) {
+        putByte((byte) c);
+        return putByte((byte) (c >>> 8));
+    }
+
+    public MurmurHash3 putInt(int i) {
+        for (int shift=0; shift<32; shift+=8) {
+            putByte((byte) (i >>> shift));
+        }
+        return this;
+    }
+
+    public MurmurHash3 putLong(long l) {
+        for (int shift=0; shift<64; shift+=8) {
+            putByte((byte) (l >>> shift));
+        }
+        return this;
+    }
+
+    public MurmurHash3 putBoolean(boolean b) {
+        return putByte((byte) (b ? 1 : 0));
+    }
+
+    /**
+     * Adds a String's length and chars.  A null String is added as a length of -1.
+     *
+     * @param s The String.
+     * @return This MurmurHash3.
+     */
+    public MurmurHash3 putString(String s) {
+        if (s == null) {
+            return putInt(-1);
+        }
+        return putString(s, 0, s.length());
+    }
+
+    /**
+     * Adds the length and chars of part of a String.
+     *
+     * @param s The String.
+     * @param beginIndex The index of the first char.
+     * @param endIndex The index after the last char.
+     * @return This MurmurHash3.
+     */
+    public MurmurHash3 putString(String s, int beginIndex, int endIndex) {
+        putInt(endIndex - beginIndex);
+        for (int i=beginIndex; i<endIndex; i++) {
+            putChar(s.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Returns the hash of the values added so far.  The first element is the first 64 bits of the hash, and the second
+     * element is the last 64 bits.  Values should not be added after calling this method.
+     *
+     * @return long[]
+     */
+    public long[] hash() {
+        long h1 = this.h1;
+        long h2 = this.h2;
+
+        if (bufferedBytes > 8) {
+            long k2 = this.k2 * C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+        }
+        if (bufferedBytes > 0) {
+            long k1 = this.k1 * C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        return new long[] { h1, h2 };
+    }
+
+    private void mixBlock() {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        k1 = 0;
+        k2 = 0;
+        bufferedBytes = 0;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
@@ -9,7 +9,7 @@ import java.util.List;
 
 public class SelectStatementFactory {
 
-    private static SelectStatement stmt;
+    private SelectStatement stmt;
 
     /**
      * Serves as the getter for the stmt field.
@@ -128,6 +128,17 @@ public class SelectStatementFactory {
         return this;
     }
 
+    public SelectStatementFactory orderBy(boolean ascending) {
+        stmt.setOrderBy(true);
+        stmt.setAscending(ascending);
+        return this;
+    }
+
+    public SelectStatementFactory keyset(String... lastRowValues) {
+        stmt.setKeysetValues(new ArrayList<>(Arrays.asList(lastRowValues)));
+        return this;
+    }
+
     public SelectStatementFactory setQueryTemplateDao(QueryTemplateDao queryTemplateDao) {
         stmt.setQueryTemplateDao(queryTemplateDao);
         return this;
@@ -1,6 +1,7 @@
 package com.querybuilder4j.validators;
 
 import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.databasemetadata.ColumnCatalog;
 import com.querybuilder4j.statements.Operator;
 import com.querybuilder4j.exceptions.ColumnNameNotFoundException;
 import com.querybuilder4j.exceptions.DataTypeNotFoundException;
@@ -38,8 +39,12 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
 //        List<String> columns = new ArrayList<>(this.stmt.getAllFullyQualifiedColumnNames());
 //        this.stmt.getCriteria().forEach((criterion) -> columns.add(criterion.getColumn()));
         List<String> columns = this.stmt.getAllFullyQualifiedColumnNames();
+        ColumnCatalog columnCatalog = getColumnCatalog();
 
         for (String column : columns) {
+            // Most columns are legit, so look them up without splitting first.
+            if (columnCatalog.getColumnId(column) != -1) { continue; }
+
             String[] tableAndColumn = column.split("\\.");
 
             // Check that the tableAndColumn variable has two elements.  The column format should be [table.column].
@@ -50,16 +55,16 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
             // Now that we know that the tableAndColumn variable has 2 elements, test if the table and column can be found
             // in the database.
             String table = tableAndColumn[Constants.TABLE_INDEX];
-            boolean tableIsLegit = getTableColumnsTypes().containsKey(table);
+            boolean tableIsLegit = columnCatalog.getTableId(table) != -1;
             if (! tableIsLegit) { throw new Exception("This table could not be found in the database:  " + table); }
 
             String tableColumn = tableAndColumn[Constants.COLUMN_INDEX];
-            boolean columnIsLegit = getTableColumnsTypes().get(table).containsKey(tableColumn);
+            boolean columnIsLegit = columnCatalog.getColumnId(table, tableColumn) != -1;
             if (! columnIsLegit) { throw new Exception("This column could not be found in the database table:  " + tableColumn); }
         }
 
         // Check that statement's table is legit.
-        boolean tablesAreValid = getTableColumnsTypes().containsKey(this.stmt.getTable());
+        boolean tablesAreValid = columnCatalog.getTableId(this.stmt.getTable()) != -1;
         if (! tablesAreValid) { throw new Exception("This table could not be found in the database:  " + this.stmt.getTable()); }
 
         return true;
@@ -74,29 +79,44 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
      */
     private boolean criteriaAreValid() throws Exception {
         for (Criteria criterion : this.stmt.getCriteria()) {
-            if (! criterion.isValid()) { throw new Exception("This criteria is not valid:  " + criterion); }
-
-            if (! sqlIsClean(criterion)) { throw new Exception("This criterion failed to be clean SQL:  " + criterion); }
-
-            // Now that we know that the criteria's operator is not 'isNull' or 'isNotNull', we can assume that the
-            // criteria's filter is needed.  Therefore, we should check if the filter is null or an empty string.
-            // If so, throw an exception.
-            if (! criterion.operator.equals(Operator.isNull)) {
-                if (! criterion.operator.equals(Operator.isNotNull)) {
-                    if (criterion.filter != null) {
-                        String[] tableAndColumn = criterion.column.split("\\.");
-                        String table = tableAndColumn[Constants.TABLE_INDEX];
-                        String column = tableAndColumn[Constants.COLUMN_INDEX];
-                        boolean shouldHaveQuotes = isColumnQuoted(table, column, getTableColumnsTypes());
-
-                        if (! shouldHaveQuotes && criterion.filter != null) {
-                            String[] filters = criterion.filter.split(",");
-                            for (String filter : filters) {
-                                int columnDataType = getColumnDataType(tableAndColumn[Constants.TABLE_INDEX], tableAndColumn[Constants.COLUMN_INDEX]);
-                                if (! SqlCleanser.canParseNonQuotedFilter(filter, columnDataType)) {
-                                    throw new Exception("The criteria's filter is not an number type, " +
-                                            "but the column is a number type:  " + criterion);
-                                }
+            criterionIsValid(criterion);
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines if a criterion is valid, including whether its filter is clean SQL and can be parsed into the column's
+     * type if the column is not quoted.  False is never actually returned - instead an exception will be thrown.  True
+     * will be returned if the criterion is valid.
+     *
+     * @param criterion The criterion, whose parameters should already have been replaced with arguments.
+     * @return boolean
+     * @throws Exception If the criterion is not valid or if the criterion is not clean SQL.
+     */
+    public boolean criterionIsValid(Criteria criterion) throws Exception {
+        ColumnCatalog columnCatalog = getColumnCatalog();
+
+        if (! criterion.isValid()) { throw new Exception("This criteria is not valid:  " + criterion); }
+
+        if (! sqlIsClean(criterion)) { throw new Exception("This criterion failed to be clean SQL:  " + criterion); }
+
+        // Now that we know that the criteria's operator is not 'isNull' or 'isNotNull', we can assume that the
+        // criteria's filter is needed.  Therefore, we should check if the filter is null or an empty string.
+        // If so, throw an exception.
+        if (! criterion.operator.equals(Operator.isNull)) {
+            if (! criterion.operator.equals(Operator.isNotNull)) {
+                if (criterion.filter != null) {
+                    int columnId = columnCatalog.getRequiredColumnId(criterion.column);
+                    boolean shouldHaveQuotes = columnCatalog.isQuoted(columnId);
+
+                    if (! shouldHaveQuotes && criterion.filter != null) {
+                        int columnDataType = columnCatalog.getColumnType(columnId);
+                        String[] filters = criterion.filter.split(",");
+                        for (String filter : filters) {
+                            if (! SqlCleanser.canParseNonQuotedFilter(filter, columnDataType)) {
+                                throw new Exception("The criteria's filter is not an number type, " +
+                                        "but the column is a number type:  " + criterion);
                             }
                         }
                     }
@@ -107,6 +127,38 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
         return true;
     }
 
+    /**
+     * Determines if the stmt's keyset values are valid:  each value must be clean SQL and, if its column is not quoted,
+     * must parse into the column's type.  False is never actually returned - instead an exception will be thrown.  True
+     * will be returned if the keyset values are valid or there are none.
+     *
+     * @return boolean
+     * @throws Exception If a keyset value is not valid or is not clean SQL.
+     */
+    private boolean keysetValuesAreValid() throws Exception {
+        List<String> keysetValues = this.stmt.getKeysetValues();
+        if (keysetValues == null) {
+            return true;
+        }
+
+        ColumnCatalog columnCatalog = getColumnCatalog();
+        for (int i=0; i<keysetValues.size(); i++) {
+            String value = keysetValues.get(i);
+            if (! sqlIsClean(value)) { throw new Exception("This keyset value failed to be clean SQL:  " + value); }
+
+            int columnId = columnCatalog.getRequiredColumnId(this.stmt.getColumns().get(i).getFullyQualifiedName());
+            if (! columnCatalog.isQuoted(columnId)) {
+                // Keyset values are never subqueries or parameters, so they must parse even if they look like one.
+                boolean looksLikeSubQueryOrParam = value.startsWith("$") || value.startsWith("@");
+                if (looksLikeSubQueryOrParam || ! SqlCleanser.canParseNonQuotedFilter(value, columnCatalog.getColumnType(columnId))) {
+                    throw new Exception("The keyset value is not a number type, but the column is a number type:  " + value);
+                }
+            }
+        }
+
+        return true;
+    }
+
     /**
      *
      * First, gets the SQL JDBC Type for the table and column parameters.  Then, gets a boolean from the typeMappings
@@ -126,13 +178,28 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
     public static boolean isColumnQuoted(String table, String columnName, Map<String, Map<String, Integer>> tableSchemas) throws DataTypeNotFoundException, ColumnNameNotFoundException {
         Integer dataType = getColumnDataType(table, columnName, tableSchemas);
 
-        Boolean isQuoted = Constants.TYPE_MAPPINGS.get(dataType); //todo:  make typeMappings a public static field in SelectStatementValidator so that it can be called?  Maybe even put it in Constants class because it's called by SelectStatementValidator and SqlBuilder?
+        Boolean isQuoted = Constants.TYPE_MAPPINGS.get(dataType); //todo:  make typeMappings a public static field in SelectStatementValidator so that it can be called?  Maybe even put it in Constants class because it's called by SelectStatementValidator and SqlRenderer?
 
         if (isQuoted == null) { throw new DataTypeNotFoundException(String.format("Data type, %s, is not recognized", dataType)); }
 
         return isQuoted;
     }
 
+    /**
+     * Same as isColumnQuoted(String, String, Map), but looks the column up in a ColumnCatalog, whose quoting flags are
+     * resolved when the catalog is built.
+     *
+     * @param table The table name.
+     * @param columnName The column name.
+     * @param columnCatalog The ColumnCatalog of the statement's tables.
+     * @return boolean
+     * @throws DataTypeNotFoundException If the data type is not supported by QueryBuilder4J.
+     * @throws ColumnNameNotFoundException If the column does not exist in the table.
+     */
+    public static boolean isColumnQuoted(String table, String columnName, ColumnCatalog columnCatalog) throws DataTypeNotFoundException, ColumnNameNotFoundException {
+        return columnCatalog.isQuoted(columnCatalog.getRequiredColumnId(table, columnName));
+    }
+
     /**
      * Gets the SQL JDBC Type for the table and column parameters.
      *
@@ -143,7 +210,20 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
      */
     // todo:  is this method needed anymore now that we have a static method by same name and isColumnQuoted is static also?
     public int getColumnDataType(String table, String columnName) throws ColumnNameNotFoundException {
-        return getColumnDataType(table, columnName, getTableColumnsTypes());
+        return getColumnDataType(table, columnName, getColumnCatalog());
+    }
+
+    /**
+     * Gets the SQL JDBC Type for the table and column parameters from a ColumnCatalog.
+     *
+     * @param table The table name.
+     * @param columnName The column name.
+     * @param columnCatalog The ColumnCatalog of the statement's tables.
+     * @return int
+     * @throws ColumnNameNotFoundException If the column does not exist in the table.
+     */
+    public static int getColumnDataType(String table, String columnName, ColumnCatalog columnCatalog) throws ColumnNameNotFoundException {
+        return columnCatalog.getColumnType(columnCatalog.getRequiredColumnId(table, columnName));
     }
 
     /**
@@ -156,7 +236,7 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
      * @throws ColumnNameNotFoundException If the column does not exist in the table.
      */
     public static int getColumnDataType(String table, String columnName, Map<String, Map<String, Integer>> tableSchemas) throws ColumnNameNotFoundException {
-        Integer dataType = tableSchemas.get(table).get(columnName); //todo:  pass tableSchemas as parameter into SqlBuilder from SelectStatementValidator?  Because SelectStatementValidator already got tableSchemas.
+        Integer dataType = tableSchemas.get(table).get(columnName); //todo:  pass tableSchemas as parameter into SqlRenderer from SelectStatementValidator?  Because SelectStatementValidator already got tableSchemas.
 
         if (dataType == null) {
             throw new ColumnNameNotFoundException("Could not find column:  " + columnName);
@@ -165,8 +245,8 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
         }
     }
 
-    private Map<String, Map<String, Integer>> getTableColumnsTypes() {
-        return this.stmt.getDatabaseMetaData().getTablesMetaData().getTableColumnsTypes();
+    private ColumnCatalog getColumnCatalog() {
+        return this.stmt.getDatabaseMetaData().getTablesMetaData().getColumnCatalog();
     }
 
     public boolean passesBasicValidation() throws Exception {
@@ -189,12 +269,27 @@ public class SelectStatementValidatorImpl implements SelectStatementValidator {
 
         // todo:  test if stmt joins pass basic validation.
 
+        List<String> keysetValues = this.stmt.getKeysetValues();
+        if (keysetValues != null) {
+            if (! this.stmt.isOrderBy()) { throw new Exception("Keyset pagination requires orderBy to be true"); }
+
+            if (keysetValues.size() != this.stmt.getColumns().size()) {
+                throw new Exception(String.format("There are %s keyset values, but %s ORDER BY columns",
+                        keysetValues.size(), this.stmt.getColumns().size()));
+            }
+
+            if (keysetValues.contains(null)) { throw new Exception("A keyset value is null"); }
+
+            if (this.stmt.getOffset() != null) { throw new Exception("Keyset pagination cannot be combined with an offset"); }
+        }
+
         return true;
     }
 
     public boolean passesDatabaseValidation() throws Exception {
         statementTablesAndColumnsExist(); // Will throw exception instead of false.
         criteriaAreValid(); // Will throw exception instead of false.
+        keysetValuesAreValid(); // Will throw exception instead of false.
         return true;
     }
 }
@@ -2,13 +2,23 @@ package com.querybuilder4j;
 
 
 import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
 import com.querybuilder4j.statements.DatabaseType;
+import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.utils.SelectStatementFactory;
 
 import java.sql.*;
 import java.util.Properties;
 
+import static com.querybuilder4j.statements.Operator.in;
+
 public class TestUtils {
 
+    /**
+     * The url of the Sqlite database in the test resources.
+     */
+    public static final String SQLITE_URL = "jdbc:sqlite:./src/test/resources/data/querybuilder4j.db";
+
     public static boolean charsMatch(String s1, String s2) {
         if (s1.length() != s2.length()) return false;
 
@@ -38,6 +48,46 @@ public class TestUtils {
         return org.apache.commons.lang3.RandomUtils.nextInt(minInclusive, maxExclusive);
     }
 
+    /**
+     * Returns the properties of the Sqlite database in the test resources.
+     *
+     * @return Properties
+     */
+    public static Properties getSqliteProperties() {
+        return getSqliteProperties(DatabaseType.Sqlite);
+    }
+
+    /**
+     * Returns the properties of the Sqlite database in the test resources, with SQL written for the databaseType
+     * parameter.  The table schemas are still read from the Sqlite database.
+     *
+     * @param databaseType The type of database to write SQL for.
+     * @return Properties
+     */
+    public static Properties getSqliteProperties(DatabaseType databaseType) {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.DATABASE_URL, SQLITE_URL);
+        properties.setProperty(Constants.DATABASE_TYPE, databaseType.toString());
+        return properties;
+    }
+
+    /**
+     * Returns a statement that calls the getDepartmentsByYear query template with a nested call of the
+     * get2014FiscalYear query template, and calls get2014FiscalYear a second time in another criterion.
+     *
+     * @param queryTemplateDao The QueryTemplateDao to fetch the query templates from.
+     * @return SelectStatement
+     */
+    public static SelectStatement getSubQueryStatement(QueryTemplateDao queryTemplateDao) {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.amount")
+                .from("county_spending_detail")
+                .where("county_spending_detail.department", in, "$getDepartmentsByYear(year=$get2014FiscalYear())")
+                .and("county_spending_detail.fiscal_year", in, "$get2014FiscalYear()", null)
+                .setQueryTemplateDao(queryTemplateDao)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
     public static DatabaseType getDatabaseType(Properties properties) {
         String databaseTypeString = properties.get(Constants.DATABASE_TYPE).toString();
         return Enum.valueOf(DatabaseType.class, databaseTypeString);
@@ -0,0 +1,97 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.QueryTemplateDaoImpl;
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.statements.SelectStatement;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CachingQueryTemplateDaoTest {
+
+    @Test
+    public void getQueryTemplateByName_returnsCopiesAndLoadsAgainAfterSave() throws Exception {
+        QueryTemplateDao templates = spy(new QueryTemplateDaoImpl(TestUtils.getSqliteProperties()));
+        CachingQueryTemplateDao queryTemplateDao = new CachingQueryTemplateDao(templates);
+
+        SelectStatement first = queryTemplateDao.getQueryTemplateByName("getDepartmentsByYear");
+        first.setCriteriaArguments(Collections.singletonMap("year", "2015"));
+        first.getCriteria().get(0).filter = "2015";
+        SelectStatement second = queryTemplateDao.getQueryTemplateByName("getDepartmentsByYear");
+
+        assertNotSame(first, second);
+        assertTrue(second.getCriteriaArguments().isEmpty());
+        assertEquals("@year", second.getCriteria().get(0).filter);
+        assertSame(queryTemplateDao, second.getQueryTemplateDao());
+        verify(templates, times(1)).getQueryTemplateByName("getDepartmentsByYear");
+
+        queryTemplateDao.save("getDepartmentsByYear", "{}");
+        queryTemplateDao.getQueryTemplateByName("getDepartmentsByYear");
+        verify(templates, times(2)).getQueryTemplateByName("getDepartmentsByYear");
+        assertTrue(queryTemplateDao.toString(), queryTemplateDao.toString().startsWith("Cache of 1/1000 templates from "));
+    }
+
+    @Test
+    public void getQueryTemplatesByNames_loadsTheMissesWithOneCall() throws Exception {
+        QueryTemplateDao templates = spy(new QueryTemplateDaoImpl(TestUtils.getSqliteProperties()));
+        CachingQueryTemplateDao queryTemplateDao = new CachingQueryTemplateDao(templates);
+        queryTemplateDao.getQueryTemplateByName("get2014FiscalYear");
+
+        Map<String, SelectStatement> queryTemplates = queryTemplateDao.getQueryTemplatesByNames(
+                Arrays.asList("get2014FiscalYear", "getDepartmentsByYear", "getDepartmentsIn2014", "noSuchTemplate"));
+
+        assertEquals(Arrays.asList("get2014FiscalYear", "getDepartmentsByYear", "getDepartmentsIn2014"),
+                new ArrayList<>(queryTemplates.keySet()));
+        assertSame(queryTemplateDao, queryTemplates.get("getDepartmentsByYear").getQueryTemplateDao());
+        verify(templates, times(1)).getQueryTemplatesByNames(
+                new LinkedHashSet<>(Arrays.asList("getDepartmentsByYear", "getDepartmentsIn2014", "noSuchTemplate")));
+        assertEquals(1, queryTemplateDao.getHitCount());
+        assertEquals(4, queryTemplateDao.getMissCount());
+    }
+
+    @Test
+    public void getQueryTemplateByName_loadsATemplateOnceForConcurrentMisses() throws Exception {
+        QueryTemplateDaoImpl templates = new QueryTemplateDaoImpl(TestUtils.getSqliteProperties());
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        QueryTemplateDao slowTemplates = mock(QueryTemplateDao.class);
+        when(slowTemplates.getQueryTemplateByName("get2014FiscalYear")).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await(10, TimeUnit.SECONDS);
+            return templates.getQueryTemplateByName("get2014FiscalYear");
+        });
+        CachingQueryTemplateDao queryTemplateDao = new CachingQueryTemplateDao(slowTemplates);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<SelectStatement>> results = new ArrayList<>();
+            for (int i=0; i<4; i++) {
+                results.add(executor.submit(() -> queryTemplateDao.getQueryTemplateByName("get2014FiscalYear")));
+            }
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            releaseLoad.countDown();
+
+            for (Future<SelectStatement> result : results) {
+                assertEquals("county_spending_detail", result.get(10, TimeUnit.SECONDS).getTable());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(slowTemplates, times(1)).getQueryTemplateByName("get2014FiscalYear");
+    }
+
+}
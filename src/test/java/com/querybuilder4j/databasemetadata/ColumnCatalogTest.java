@@ -0,0 +1,101 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.exceptions.ColumnNameNotFoundException;
+import com.querybuilder4j.exceptions.DataTypeNotFoundException;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ColumnCatalogTest {
+
+    @Test
+    public void getColumnId_findsColumnsOfEveryTableByExactCaseSensitiveName() throws Exception {
+        ColumnCatalog columnCatalog = buildColumnCatalog();
+
+        assertEquals(2, columnCatalog.getNumberOfTables());
+        assertEquals(5, columnCatalog.getNumberOfColumns());
+
+        int columnId = columnCatalog.getColumnId("service_hierarchy", "service");
+        assertNotEquals(-1, columnId);
+        assertNotEquals(columnId, columnCatalog.getColumnId("county_spending_detail", "service"));
+        assertEquals(Types.VARCHAR, columnCatalog.getColumnType(columnId));
+        assertTrue(columnCatalog.isQuoted(columnId));
+        assertFalse(columnCatalog.isQuoted(columnCatalog.getColumnId("county_spending_detail", "fiscal_year")));
+        assertEquals("service_hierarchy", columnCatalog.getTableName(columnCatalog.getTableId("service_hierarchy")));
+
+        assertEquals(-1, columnCatalog.getColumnId("Service_Hierarchy", "service"));
+        assertEquals(-1, columnCatalog.getColumnId("service_hierarchy", "SERVICE"));
+        assertEquals(-1, columnCatalog.getColumnId("service_hierarchy", "amount"));
+        assertEquals(-1, columnCatalog.getColumnId("periods", "service"));
+        assertEquals(-1, columnCatalog.getColumnId(null, "service"));
+        assertEquals(-1, columnCatalog.getColumnId("service_hierarchy", null));
+        assertEquals(-1, columnCatalog.getTableId("service"));
+    }
+
+    @Test
+    public void getColumnId_looksUpQualifiedNamesWithoutSplittingThem() throws Exception {
+        ColumnCatalog columnCatalog = buildColumnCatalog();
+
+        assertEquals(columnCatalog.getColumnId("service_hierarchy", "service"), columnCatalog.getColumnId("service_hierarchy.service"));
+        assertEquals(columnCatalog.getColumnId("county_spending_detail", "amount"), columnCatalog.getColumnId("county_spending_detail.amount"));
+
+        assertEquals(-1, columnCatalog.getColumnId("service_hierarchy.Service"));
+        assertEquals(-1, columnCatalog.getColumnId("service_hierarchy.service.name"));
+        assertEquals(-1, columnCatalog.getColumnId("service_hierarchy."));
+        assertEquals(-1, columnCatalog.getColumnId(".service"));
+        assertEquals(-1, columnCatalog.getColumnId("service"));
+        assertEquals(-1, columnCatalog.getColumnId("service_hierarchy_service"));
+        assertEquals(-1, columnCatalog.getColumnId("service.service_hierarchy"));
+        assertEquals(-1, columnCatalog.getColumnId(null));
+    }
+
+    @Test
+    public void getRequiredColumnId_throwsIfTheCatalogDoesNotHaveTheColumn() throws Exception {
+        ColumnCatalog columnCatalog = buildColumnCatalog();
+
+        assertEquals(columnCatalog.getColumnId("service_hierarchy.service"), columnCatalog.getRequiredColumnId("service_hierarchy.service"));
+        try {
+            columnCatalog.getRequiredColumnId("service_hierarchy.amount");
+            fail("service_hierarchy does not have an amount column");
+        } catch (ColumnNameNotFoundException e) {
+            assertTrue(e.getMessage().contains("service_hierarchy.amount"));
+        }
+        try {
+            columnCatalog.getRequiredColumnId("periods", "service");
+            fail("The catalog does not have the periods table");
+        } catch (ColumnNameNotFoundException e) {
+            assertTrue(e.getMessage().contains("service"));
+        }
+    }
+
+    @Test(expected = DataTypeNotFoundException.class)
+    public void isQuoted_throwsIfTheColumnsTypeIsNotMapped() throws Exception {
+        Map<String, Integer> columnTypes = new HashMap<>();
+        columnTypes.put("link", Types.DATALINK);
+        Map<String, TableSchema> tableSchemas = new HashMap<>();
+        tableSchemas.put("links", new TableSchema(columnTypes));
+        ColumnCatalog columnCatalog = new ColumnCatalog(tableSchemas);
+
+        columnCatalog.isQuoted(columnCatalog.getColumnId("links.link"));
+    }
+
+    private static ColumnCatalog buildColumnCatalog() {
+        Map<String, Integer> countySpendingDetail = new HashMap<>();
+        countySpendingDetail.put("service", Types.VARCHAR);
+        countySpendingDetail.put("fiscal_year", Types.INTEGER);
+        countySpendingDetail.put("amount", Types.NUMERIC);
+        Map<String, Integer> serviceHierarchy = new HashMap<>();
+        serviceHierarchy.put("service", Types.VARCHAR);
+        serviceHierarchy.put("service_owner", Types.VARCHAR);
+
+        Map<String, TableSchema> tableSchemas = new HashMap<>();
+        tableSchemas.put("county_spending_detail", new TableSchema(countySpendingDetail));
+        tableSchemas.put("service_hierarchy", new TableSchema(serviceHierarchy));
+        return new ColumnCatalog(tableSchemas);
+    }
+
+}
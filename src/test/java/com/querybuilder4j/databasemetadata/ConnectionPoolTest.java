@@ -0,0 +1,99 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.config.Constants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class ConnectionPoolTest {
+    private ConnectionPool connectionPool;
+
+    @Before
+    public void setUp() throws Exception {
+        connectionPool = new ConnectionPool(TestUtils.SQLITE_URL, null, null, 1);
+        connectionPool.setLoginTimeout(0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connectionPool.close();
+    }
+
+    @Test
+    public void close_returnsConnectionToPool() throws Exception {
+        Connection conn = connectionPool.getConnection();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertEquals(1, connectionPool.getIdleCount());
+
+        try (Connection reusedConn = connectionPool.getConnection()) {
+            assertFalse(reusedConn.isClosed());
+            assertEquals(0, connectionPool.getIdleCount());
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void getConnection_throwsWhenAllConnectionsAreBorrowed() throws Exception {
+        try (Connection conn = connectionPool.getConnection()) {
+            connectionPool.getConnection();
+        }
+    }
+
+    @Test
+    public void close_closesBorrowedConnectionsWhenTheyAreReturned() throws Exception {
+        Connection conn = connectionPool.getConnection();
+        connectionPool.close();
+        conn.close();
+
+        assertTrue(connectionPool.isClosed());
+        assertEquals(0, connectionPool.getIdleCount());
+        try {
+            connectionPool.getConnection();
+            fail("A closed pool should not lend connections");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("closed"));
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void closedConnection_cannotBeUsed() throws Exception {
+        Connection conn = connectionPool.getConnection();
+        conn.close();
+
+        conn.createStatement();
+    }
+
+    @Test
+    public void forProperties_replacesThePoolWhenThePasswordOrSizeChanges() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.DATABASE_URL, TestUtils.SQLITE_URL);
+        properties.setProperty(Constants.DATABASE_USERNAME, "pool_rotation_test");
+        properties.setProperty(Constants.DATABASE_PASSWORD, "old");
+        ConnectionPool pool = ConnectionPool.forProperties(properties);
+        try {
+            assertSame(pool, ConnectionPool.forProperties(properties));
+
+            properties.setProperty(Constants.DATABASE_PASSWORD, "new");
+            ConnectionPool rotatedPool = ConnectionPool.forProperties(properties);
+            assertNotSame(pool, rotatedPool);
+            assertTrue(pool.isClosed());
+
+            properties.setProperty(Constants.CONNECTION_POOL_SIZE, "7");
+            ConnectionPool resizedPool = ConnectionPool.forProperties(properties);
+            assertNotSame(rotatedPool, resizedPool);
+            assertEquals(7, resizedPool.getMaxSize());
+            assertSame(resizedPool, ConnectionPool.forProperties(properties));
+        } finally {
+            ConnectionPool.forProperties(properties).close();
+        }
+    }
+
+}
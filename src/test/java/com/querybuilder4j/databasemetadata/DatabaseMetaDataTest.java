@@ -0,0 +1,133 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.statements.SelectStatement;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DatabaseMetaDataTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void warmUp_loadsUncachedTablesInChunksWithBoundedConcurrency() throws Exception {
+        String url = "jdbc:sqlite:" + temporaryFolder.newFile("warm_up.db").getAbsolutePath();
+        int numberOfTables = DatabaseMetaData.WARM_UP_CHUNK_SIZE * 4 + 1;
+        List<String> tables = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            for (int i=0; i<numberOfTables; i++) {
+                tables.add("table_" + i);
+                stmt.executeUpdate("CREATE TABLE table_" + i + " (id integer, name text)");
+            }
+        }
+        Properties properties = new Properties();
+        properties.setProperty(Constants.DATABASE_URL, url);
+        properties.setProperty(Constants.DATABASE_TYPE, "Sqlite");
+        properties.setProperty(Constants.CONNECTION_POOL_SIZE, "2");
+
+        // The first table is already cached and is skipped, so the other tables fill exactly four chunks.
+        MetaDataCache metaDataCache = MetaDataCache.getInstance();
+        metaDataCache.put(url, "table_0", new TableSchema(new HashMap<>()));
+        long missCount = metaDataCache.getMissCount();
+
+        AtomicInteger connections = new AtomicInteger();
+        AtomicInteger openConnections = new AtomicInteger();
+        AtomicInteger maxOpenConnections = new AtomicInteger();
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            connections.incrementAndGet();
+            maxOpenConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+            return countClose(DriverManager.getConnection(url), openConnections);
+        });
+
+        DatabaseMetaData.warmUp(properties, dataSource, tables).join();
+
+        assertEquals(4, connections.get());
+        assertTrue(maxOpenConnections.get() <= 2);
+        assertEquals(0, openConnections.get());
+        assertEquals(missCount, metaDataCache.getMissCount());
+        assertTrue(metaDataCache.contains(url, "table_" + (numberOfTables - 1)));
+        assertEquals(2, metaDataCache.getTableSchemas(url).get("table_1").size());
+    }
+
+    @Test
+    public void warmUp_completesExceptionallyIfAChunkFails() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.DATABASE_URL, "jdbc:sqlite:" + temporaryFolder.getRoot().getAbsolutePath() + "/unreachable.db");
+        properties.setProperty(Constants.DATABASE_TYPE, "Sqlite");
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("The database is down"));
+        List<String> tables = new ArrayList<>();
+        for (int i=0; i<DatabaseMetaData.WARM_UP_CHUNK_SIZE * 2; i++) {
+            tables.add("table_" + i);
+        }
+
+        try {
+            DatabaseMetaData.warmUp(properties, dataSource, tables).join();
+            fail("The warm-up should fail when no connection can be made");
+        } catch (CompletionException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void getTableColumnsTypes_returnsTheSameMapUntilATableIsAdded() {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.DATABASE_TYPE, "Sqlite");
+        DatabaseMetaData.TablesMetaData tablesMetaData =
+                new DatabaseMetaData(properties, mock(DataSource.class), new SelectStatement()).getTablesMetaData();
+        Map<String, Integer> columnTypes = new HashMap<>();
+        columnTypes.put("id", Types.INTEGER);
+        tablesMetaData.putTableSchema("table_1", new TableSchema(columnTypes));
+
+        Map<String, Map<String, Integer>> tableColumnsTypes = tablesMetaData.getTableColumnsTypes();
+        assertSame(tableColumnsTypes, tablesMetaData.getTableColumnsTypes());
+        assertEquals(columnTypes, tableColumnsTypes.get("table_1"));
+
+        tablesMetaData.putTableSchema("table_2", new TableSchema(columnTypes));
+        assertNotSame(tableColumnsTypes, tablesMetaData.getTableColumnsTypes());
+        assertEquals(2, tablesMetaData.getTableColumnsTypes().size());
+    }
+
+    /**
+     * Wraps a Connection so that openConnections is decremented when the Connection is closed.
+     */
+    private static Connection countClose(Connection connection, AtomicInteger openConnections) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        openConnections.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.querybuilder4j.databasemetadata;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MetaDataCacheTest {
+    private static final String URL = "jdbc:sqlite:test.db";
+    private MetaDataCache cache;
+    private Map<String, Integer> tableSchema = new HashMap<>();
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new MetaDataCache(2, 0);
+        tableSchema.put("department", Types.VARCHAR);
+        tableSchema.put("fiscal_year", Types.INTEGER);
+    }
+
+    @Test
+    public void get_returnsNullAndCountsMissWhenTableIsNotCached() throws Exception {
+        assertNull(cache.get(URL, "county_spending_detail"));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void get_returnsCachedSchemaAndCountsHit() throws Exception {
+        cache.put(URL, "county_spending_detail", tableSchema);
+
+        TableSchema cachedSchema = cache.get(URL, "county_spending_detail");
+
+        assertEquals(tableSchema, cachedSchema.toMap());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void contains_doesNotCountHitsOrMisses() throws Exception {
+        cache.put(URL, "county_spending_detail", tableSchema);
+
+        assertTrue(cache.contains(URL, "county_spending_detail"));
+        assertFalse(cache.contains(URL, "periods"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void get_doesNotShareEntriesBetweenDatabases() throws Exception {
+        cache.put(URL, "county_spending_detail", tableSchema);
+
+        assertNull(cache.get("jdbc:sqlite:other.db", "county_spending_detail"));
+    }
+
+    @Test
+    public void get_doesNotSeeLaterChangesToPutSchema() throws Exception {
+        cache.put(URL, "county_spending_detail", tableSchema);
+        tableSchema.put("amount", Types.NUMERIC);
+
+        assertEquals(-1, cache.get(URL, "county_spending_detail").indexOf("amount"));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedTableWhenFull() throws Exception {
+        cache.put(URL, "table1", tableSchema);
+        cache.put(URL, "table2", tableSchema);
+        cache.get(URL, "table1");
+        cache.put(URL, "table3", tableSchema);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get(URL, "table1"));
+        assertNull(cache.get(URL, "table2"));
+    }
+
+    @Test
+    public void get_returnsNullWhenEntryHasExpired() throws Exception {
+        cache.setTimeToLiveMillis(1);
+        cache.put(URL, "county_spending_detail", tableSchema);
+        Thread.sleep(5);
+
+        assertNull(cache.get(URL, "county_spending_detail"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidate_removesOnlyTheDatabasesTables() throws Exception {
+        cache.put(URL, "table1", tableSchema);
+        cache.put("jdbc:sqlite:other.db", "table1", tableSchema);
+
+        cache.invalidate(URL);
+
+        assertNull(cache.get(URL, "table1"));
+        assertNotNull(cache.get("jdbc:sqlite:other.db", "table1"));
+    }
+
+    @Test
+    public void getSchemaVersion_changesOnlyWhenACachedSchemaChangesOrIsRemoved() throws Exception {
+        cache.put(URL, "table1", tableSchema);
+        long schemaVersion = cache.getSchemaVersion(URL);
+
+        cache.put(URL, "table1", new HashMap<>(tableSchema));
+        assertEquals(schemaVersion, cache.getSchemaVersion(URL));
+
+        tableSchema.put("amount", Types.NUMERIC);
+        cache.put(URL, "table1", tableSchema);
+        long changedSchemaVersion = cache.getSchemaVersion(URL);
+        assertNotEquals(schemaVersion, changedSchemaVersion);
+
+        cache.invalidate(URL, "table1");
+        assertNotEquals(changedSchemaVersion, cache.getSchemaVersion(URL));
+    }
+
+}
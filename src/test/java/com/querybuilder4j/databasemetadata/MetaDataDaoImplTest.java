@@ -0,0 +1,107 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.statements.DatabaseType;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetaDataDaoImplTest {
+    private MetaDataDaoImpl metaDataDao;
+
+    @Before
+    public void setUp() throws Exception {
+        metaDataDao = new MetaDataDaoImpl(TestUtils.getSqliteProperties());
+    }
+
+    @Test
+    public void getTableSchemas_matchesGetTableSchemaForEachTable() throws Exception {
+        Map<String, Map<String, Integer>> tableSchemas = metaDataDao.getTableSchemas(
+                Arrays.asList("county_spending_detail", "periods", "service_hierarchy"));
+
+        assertEquals(3, tableSchemas.size());
+        for (Map.Entry<String, Map<String, Integer>> tableSchema : tableSchemas.entrySet()) {
+            assertFalse(tableSchema.getValue().isEmpty());
+            assertEquals(metaDataDao.getTableSchema(tableSchema.getKey()), tableSchema.getValue());
+        }
+    }
+
+    @Test
+    public void getTableSchemas_returnsEmptySchemaForTableThatDoesNotExist() throws Exception {
+        Map<String, Map<String, Integer>> tableSchemas = metaDataDao.getTableSchemas(
+                Arrays.asList("county_spending_detail", "not_a_table"));
+
+        assertEquals(2, tableSchemas.size());
+        assertTrue(tableSchemas.get("not_a_table").isEmpty());
+    }
+
+    @Test
+    public void getTableSchemas_readsTheInformationSchemaAndLoadsUnrecognizedTablesOneByOne() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection conn = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet informationSchemaColumns = mock(ResultSet.class);
+        java.sql.DatabaseMetaData jdbcMetaData = mock(java.sql.DatabaseMetaData.class);
+        ResultSet shapesColumns = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        when(conn.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(conn.getMetaData()).thenReturn(jdbcMetaData);
+        when(preparedStatement.executeQuery()).thenReturn(informationSchemaColumns);
+        when(informationSchemaColumns.next()).thenReturn(true, true, true, false);
+        when(informationSchemaColumns.getString(1)).thenReturn("users", "users", "shapes");
+        when(informationSchemaColumns.getString(2)).thenReturn("id", "active");
+        when(informationSchemaColumns.getString(3)).thenReturn("int", "tinyint(1)", "geometry");
+        when(jdbcMetaData.getColumns(null, null, "shapes", "%")).thenReturn(shapesColumns);
+        when(shapesColumns.next()).thenReturn(true, false);
+        when(shapesColumns.getString("COLUMN_NAME")).thenReturn("outline");
+        when(shapesColumns.getInt("DATA_TYPE")).thenReturn(Types.BINARY);
+        Properties properties = new Properties();
+        properties.setProperty(Constants.DATABASE_TYPE, "MySql");
+
+        Map<String, Map<String, Integer>> tableSchemas = new MetaDataDaoImpl(properties, dataSource)
+                .getTableSchemas(Arrays.asList("users", "shapes"));
+
+        assertEquals(Integer.valueOf(Types.INTEGER), tableSchemas.get("users").get("id"));
+        assertEquals(Integer.valueOf(Types.BIT), tableSchemas.get("users").get("active"));
+        assertEquals(Collections.singletonMap("outline", Types.BINARY), tableSchemas.get("shapes"));
+        verify(jdbcMetaData, never()).getColumns(null, null, "%", "%");
+    }
+
+    @Test
+    public void getDataType_matchesTheTypesThatEachDatabasesDriverReports() throws Exception {
+        assertEquals(Integer.valueOf(Types.REAL), MetaDataDaoImpl.getDataType(DatabaseType.MySql, "float"));
+        assertEquals(Integer.valueOf(Types.LONGVARCHAR), MetaDataDaoImpl.getDataType(DatabaseType.MySql, "TEXT"));
+        assertEquals(Integer.valueOf(Types.BIT), MetaDataDaoImpl.getDataType(DatabaseType.MySql, "tinyint(1)"));
+        assertEquals(Integer.valueOf(Types.TINYINT), MetaDataDaoImpl.getDataType(DatabaseType.MySql, "tinyint"));
+        assertEquals(Integer.valueOf(Types.DOUBLE), MetaDataDaoImpl.getDataType(DatabaseType.SqlServer, "float"));
+        assertEquals(Integer.valueOf(Types.LONGVARCHAR), MetaDataDaoImpl.getDataType(DatabaseType.SqlServer, "text"));
+        assertEquals(Integer.valueOf(Types.VARCHAR), MetaDataDaoImpl.getDataType(DatabaseType.PostgreSQL, "text"));
+        assertNull(MetaDataDaoImpl.getDataType(DatabaseType.PostgreSQL, "interval"));
+    }
+
+    @Test
+    public void getAllTableNames_returnsEveryTable() throws Exception {
+        List<String> tables = metaDataDao.getAllTableNames();
+
+        assertTrue(tables.containsAll(Arrays.asList("county_spending_detail", "periods", "service_hierarchy")));
+    }
+
+}
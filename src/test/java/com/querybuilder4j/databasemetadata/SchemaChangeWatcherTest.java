@@ -0,0 +1,82 @@
+package com.querybuilder4j.databasemetadata;
+
+import com.querybuilder4j.config.Constants;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class SchemaChangeWatcherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String url;
+    private Properties properties = new Properties();
+    private MetaDataCache metaDataCache = new MetaDataCache(100, 0);
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:sqlite:" + temporaryFolder.newFile("watcher.db").getAbsolutePath();
+        properties.setProperty(Constants.DATABASE_URL, url);
+        properties.setProperty(Constants.DATABASE_TYPE, "Sqlite");
+
+        execute("CREATE TABLE periods (period integer, quarter text)");
+        execute("CREATE TABLE departments (name text)");
+
+        MetaDataDaoImpl metaDataDao = new MetaDataDaoImpl(properties);
+        metaDataCache.put(url, "periods", metaDataDao.getTableSchema("periods"));
+        metaDataCache.put(url, "departments", metaDataDao.getTableSchema("departments"));
+    }
+
+    @Test
+    public void checkForChanges_reloadsOnlyTheTableThatChanged() throws Exception {
+        SchemaChangeWatcher watcher = new SchemaChangeWatcher(properties, null, metaDataCache);
+        assertTrue(watcher.checkForChanges().isEmpty());
+
+        execute("ALTER TABLE periods ADD COLUMN fiscal_year integer");
+
+        assertEquals(Collections.singleton("periods"), watcher.checkForChanges());
+        assertTrue(metaDataCache.get(url, "periods").indexOf("fiscal_year") != -1);
+        assertTrue(watcher.checkForChanges().isEmpty());
+    }
+
+    @Test
+    public void checkForChanges_reloadsATableThatChangedBeforeTheFirstCheck() throws Exception {
+        SchemaChangeWatcher watcher = new SchemaChangeWatcher(properties, null, metaDataCache);
+        execute("ALTER TABLE departments ADD COLUMN budget integer");
+
+        assertEquals(Collections.singleton("departments"), watcher.checkForChanges());
+        assertTrue(metaDataCache.get(url, "departments").indexOf("budget") != -1);
+        assertTrue(watcher.checkForChanges().isEmpty());
+    }
+
+    @Test
+    public void checkForChanges_removesATableThatWasDropped() throws Exception {
+        SchemaChangeWatcher watcher = new SchemaChangeWatcher(properties, null, metaDataCache);
+        assertTrue(watcher.checkForChanges().isEmpty());
+
+        execute("DROP TABLE departments");
+
+        assertEquals(Collections.singleton("departments"), watcher.checkForChanges());
+        assertNull(metaDataCache.get(url, "departments"));
+        assertNotNull(metaDataCache.get(url, "periods"));
+        assertTrue(watcher.checkForChanges().isEmpty());
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+}
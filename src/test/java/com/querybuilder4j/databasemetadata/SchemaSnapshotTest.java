@@ -0,0 +1,115 @@
+package com.querybuilder4j.databasemetadata;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SchemaSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void read_returnsWhatWasWritten() throws Exception {
+        Map<String, Integer> countySpendingDetail = new HashMap<>();
+        countySpendingDetail.put("department", Types.VARCHAR);
+        countySpendingDetail.put("fiscal_year", Types.INTEGER);
+        countySpendingDetail.put("amount", Types.NUMERIC);
+
+        Map<String, Map<String, Integer>> tableSchemas = new HashMap<>();
+        tableSchemas.put("county_spending_detail", countySpendingDetail);
+        tableSchemas.put("empty_table", new HashMap<>());
+
+        Path path = temporaryFolder.getRoot().toPath().resolve("schema.snapshot");
+        SchemaSnapshot.write(tableSchemas, path);
+
+        assertEquals(tableSchemas, SchemaSnapshot.read(path));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_throwsIfFileIsNotASnapshot() throws Exception {
+        Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, "not a snapshot".getBytes());
+
+        SchemaSnapshot.read(path);
+    }
+
+    @Test
+    public void read_returnsNamesLongerThanASignedShort() throws Exception {
+        StringBuilder longName = new StringBuilder();
+        for (int i=0; i<Short.MAX_VALUE + 100; i++) {
+            longName.append('c');
+        }
+        Map<String, Integer> columnTypes = new HashMap<>();
+        columnTypes.put(longName.toString(), Types.VARCHAR);
+        Map<String, Map<String, Integer>> tableSchemas = new HashMap<>();
+        tableSchemas.put("wide_table", columnTypes);
+
+        Path path = temporaryFolder.getRoot().toPath().resolve("schema.snapshot");
+        SchemaSnapshot.write(tableSchemas, path);
+
+        assertEquals(tableSchemas, SchemaSnapshot.read(path));
+    }
+
+    @Test
+    public void read_throwsIOExceptionIfANameIsLongerThanTheFile() throws Exception {
+        Path path = writeSnapshotHeader(1, out -> {
+            out.writeShort(40000);
+            out.write("short".getBytes());
+        });
+
+        assertReadFails(path);
+    }
+
+    @Test
+    public void read_throwsIOExceptionIfACountIsCorrupt() throws Exception {
+        assertReadFails(writeSnapshotHeader(-1, out -> {}));
+        assertReadFails(writeSnapshotHeader(Integer.MAX_VALUE, out -> {}));
+        assertReadFails(writeSnapshotHeader(1, out -> {
+            out.writeShort(0);
+            out.writeInt(-5);
+        }));
+    }
+
+    private interface SnapshotBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes a snapshot file with a valid header, the number of tables, and a body that may be corrupt.
+     */
+    private Path writeSnapshotHeader(int numberOfTables, SnapshotBody body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x51423453);
+            out.writeShort(1);
+            out.writeInt(numberOfTables);
+            body.write(out);
+        }
+
+        Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, bytes.toByteArray());
+        return path;
+    }
+
+    private static void assertReadFails(Path path) {
+        try {
+            SchemaSnapshot.read(path);
+            fail("A corrupt snapshot should not be read");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(path.toString()));
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.querybuilder4j.databasemetadata;
+
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TableSchemaTest {
+
+    @Test
+    public void indexOf_findsColumnsByExactCaseSensitiveName() throws Exception {
+        TableSchema tableSchema = new TableSchema(columnTypes());
+
+        assertEquals(3, tableSchema.size());
+        assertEquals("amount", tableSchema.getColumnName(tableSchema.indexOf("amount")));
+        assertEquals(Types.INTEGER, tableSchema.getColumnType(tableSchema.indexOf("fiscal_year")));
+        assertEquals(TableSchema.QUOTED, tableSchema.getQuoting(tableSchema.indexOf("department")));
+        assertEquals(TableSchema.NOT_QUOTED, tableSchema.getQuoting(tableSchema.indexOf("fiscal_year")));
+
+        assertEquals(-1, tableSchema.indexOf("Department"));
+        assertEquals(-1, tableSchema.indexOf("depart"));
+        assertEquals(-1, tableSchema.indexOf("departments"));
+        assertEquals(-1, tableSchema.indexOf(""));
+        assertEquals(-1, tableSchema.indexOf(null));
+    }
+
+    @Test
+    public void indexOf_findsAColumnInARegionOfAString() throws Exception {
+        TableSchema tableSchema = new TableSchema(columnTypes());
+        String fullyQualifiedName = "county_spending_detail.fiscal_year";
+
+        assertEquals(tableSchema.indexOf("fiscal_year"),
+                tableSchema.indexOf(fullyQualifiedName, fullyQualifiedName.indexOf('.') + 1, fullyQualifiedName.length()));
+        assertEquals(-1, tableSchema.indexOf(fullyQualifiedName, fullyQualifiedName.indexOf('.') + 1, fullyQualifiedName.length() - 1));
+    }
+
+    @Test
+    public void constructor_givesColumnsWithoutATypeTheOtherTypeAndFlagsUnmappedTypes() throws Exception {
+        Map<String, Integer> columnTypes = columnTypes();
+        columnTypes.put("notes", null);
+        columnTypes.put("link", Types.DATALINK);
+
+        TableSchema tableSchema = new TableSchema(columnTypes);
+
+        assertEquals(Types.OTHER, tableSchema.getColumnType(tableSchema.indexOf("notes")));
+        assertEquals(TableSchema.UNKNOWN_TYPE, tableSchema.getQuoting(tableSchema.indexOf("link")));
+    }
+
+    @Test
+    public void equals_comparesColumnNamesAndTypes() throws Exception {
+        Map<String, Integer> columnTypes = columnTypes();
+        TableSchema tableSchema = new TableSchema(columnTypes);
+
+        assertEquals(tableSchema, new TableSchema(tableSchema.toMap()));
+        assertEquals(tableSchema.hashCode(), new TableSchema(tableSchema.toMap()).hashCode());
+
+        columnTypes.put("amount", Types.DOUBLE);
+        assertNotEquals(tableSchema, new TableSchema(columnTypes));
+    }
+
+    private static Map<String, Integer> columnTypes() {
+        Map<String, Integer> columnTypes = new HashMap<>();
+        columnTypes.put("department", Types.VARCHAR);
+        columnTypes.put("fiscal_year", Types.INTEGER);
+        columnTypes.put("amount", Types.NUMERIC);
+        return columnTypes;
+    }
+
+}
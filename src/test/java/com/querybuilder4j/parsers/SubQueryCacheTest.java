@@ -0,0 +1,53 @@
+package com.querybuilder4j.parsers;
+
+import com.querybuilder4j.QueryTemplateDaoImpl;
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.databasemetadata.CachingQueryTemplateDao;
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SubQueryCacheTest {
+
+    @Test
+    public void subQueriesAreBuiltOncePerChangeOfTheirTemplates() throws Exception {
+        Properties properties = TestUtils.getSqliteProperties();
+        QueryTemplateDao templates = spy(new QueryTemplateDaoImpl(properties));
+        SubQueryCache subQueryCache = new SubQueryCache();
+        QueryTemplateDao queryTemplateDao = subQueryCache.watch(templates);
+
+        String sql = TestUtils.getSubQueryStatement(queryTemplateDao).toSql(properties);
+        assertEquals(sql, TestUtils.getSubQueryStatement(queryTemplateDao).toSql(properties));
+
+        // The second statement took both subqueries from the cache.
+        verify(templates, times(1)).getQueryTemplateByName("getDepartmentsByYear");
+        verify(templates, times(1)).getQueryTemplateByName("get2014FiscalYear");
+        assertEquals(2, subQueryCache.size());
+
+        // Saving the argument subquery's template also invalidates the subquery that it was passed to.
+        queryTemplateDao.save("get2014FiscalYear", "{}");
+        assertEquals(0, subQueryCache.size());
+        assertEquals(sql, TestUtils.getSubQueryStatement(queryTemplateDao).toSql(properties));
+        verify(templates, times(2)).getQueryTemplateByName("getDepartmentsByYear");
+        verify(templates, times(2)).getQueryTemplateByName("get2014FiscalYear");
+    }
+
+    @Test
+    public void subQueryCacheProviderOf_findsTheCacheOfAWrappedQueryTemplateDao() throws Exception {
+        QueryTemplateDao templates = new QueryTemplateDaoImpl(new Properties());
+        SubQueryCache subQueryCache = new SubQueryCache();
+
+        assertSame(subQueryCache, SubQueryCacheProvider.of(subQueryCache.watch(templates)));
+        assertSame(subQueryCache, SubQueryCacheProvider.of(new CachingQueryTemplateDao(subQueryCache.watch(templates))));
+        assertNull(SubQueryCacheProvider.of(templates));
+        assertNull(SubQueryCacheProvider.of(new CachingQueryTemplateDao(templates)));
+        assertNull(SubQueryCacheProvider.of(null));
+    }
+
+}
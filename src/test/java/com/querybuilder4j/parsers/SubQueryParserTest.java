@@ -0,0 +1,145 @@
+package com.querybuilder4j.parsers;
+
+import com.querybuilder4j.QueryTemplateDaoImpl;
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
+import com.querybuilder4j.sqlbuilders.PreparedSql;
+import com.querybuilder4j.statements.DatabaseType;
+import com.querybuilder4j.statements.Join;
+import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.utils.SelectStatementFactory;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import static com.querybuilder4j.statements.Operator.in;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class SubQueryParserTest {
+
+    @Test
+    public void buildSubQueries_fetchesTheTemplatesOfEachLevelWithOneCall() throws Exception {
+        Properties properties = TestUtils.getSqliteProperties();
+        QueryTemplateDao queryTemplateDao = Mockito.spy(new QueryTemplateDaoImpl(properties));
+        SelectStatement stmt = new SelectStatementFactory()
+                .select("county_spending_detail.amount")
+                .from("county_spending_detail")
+                .where("county_spending_detail.department", in, "$getDepartmentsByYear(year=$get2014FiscalYear())")
+                .and("county_spending_detail.department", in, "$getDepartmentsIn2014()", null)
+                .setQueryTemplateDao(queryTemplateDao)
+                .getSelectStatement(DatabaseType.Sqlite);
+
+        stmt.toSql(properties);
+
+        verify(queryTemplateDao, times(2)).getQueryTemplatesByNames(Mockito.anyCollectionOf(String.class));
+        verify(queryTemplateDao, times(1)).getQueryTemplatesByNames(
+                new LinkedHashSet<>(Arrays.asList("get2014FiscalYear", "getDepartmentsIn2014")));
+        verify(queryTemplateDao, times(1)).getQueryTemplatesByNames(Collections.singleton("getDepartmentsByYear"));
+    }
+
+    @Test
+    public void buildSubQueries_buildsIdenticalCallsOnceAndReusesArgumentSubQueries() throws Exception {
+        Properties properties = TestUtils.getSqliteProperties();
+        QueryTemplateDao queryTemplateDao = Mockito.spy(new QueryTemplateDaoImpl(properties));
+        SelectStatement stmt = TestUtils.getSubQueryStatement(queryTemplateDao);
+
+        String sql = stmt.toSql(properties);
+
+        // Both calls of get2014FiscalYear() are built from one fetch, and getDepartmentsByYear reuses it.
+        verify(queryTemplateDao, times(1)).getQueryTemplateByName("get2014FiscalYear");
+        verify(queryTemplateDao, times(1)).getQueryTemplateByName("getDepartmentsByYear");
+        String get2014FiscalYear = "(SELECT \"county_spending_detail\".\"fiscal_year\" FROM \"county_spending_detail\" " +
+                "WHERE \"county_spending_detail\".\"fiscal_year\" = 2014)";
+        assertEquals(3, sql.split(Pattern.quote(get2014FiscalYear), -1).length);
+        try (Connection conn = DriverManager.getConnection(properties.getProperty(Constants.DATABASE_URL));
+             Statement statement = conn.createStatement()) {
+            statement.executeQuery(sql).close();
+        }
+    }
+
+    @Test
+    public void subQueriesAreNotFetchedWhenTheStatementFailsBeforeTheyAreWritten() throws Exception {
+        Properties properties = TestUtils.getSqliteProperties();
+        QueryTemplateDao queryTemplateDao = Mockito.mock(QueryTemplateDao.class);
+        SelectStatement stmt = new SelectStatementFactory()
+                .select("county_spending_detail.amount")
+                .from("county_spending_detail")
+                .where("county_spending_detail.department", in, "$getDepartmentsByYear(year=$get2014FiscalYear())")
+                .setQueryTemplateDao(queryTemplateDao)
+                .getSelectStatement(DatabaseType.Sqlite);
+        Join join = new Join();
+        join.setJoinType(Join.JoinType.INNER);
+        join.setParentTable("county_spending_detail");
+        join.setTargetTable("county_spending_detail");
+        join.setParentJoinColumns(Arrays.asList("fiscal_year", "service"));
+        join.setTargetJoinColumns(Collections.singletonList("fiscal_year"));
+        stmt.getJoins().add(join);
+
+        try {
+            stmt.toSql(properties);
+            fail("The join has differing numbers of parent and target columns");
+        } catch (RuntimeException e) {
+            verifyZeroInteractions(queryTemplateDao);
+        }
+    }
+
+    @Test
+    public void subQueriesAsCommonTableExpressions_writesEachSubQueryOnceInAWithClause() throws Exception {
+        Properties properties = TestUtils.getSqliteProperties();
+        QueryTemplateDao queryTemplateDao = new QueryTemplateDaoImpl(properties);
+        String inlineSql = TestUtils.getSubQueryStatement(queryTemplateDao).toSql(properties);
+        properties.setProperty(Constants.SUBQUERIES_AS_COMMON_TABLE_EXPRESSIONS, "true");
+
+        PreparedSql preparedSql = TestUtils.getSubQueryStatement(queryTemplateDao).toPreparedSql(properties);
+
+        String sql = preparedSql.getSql();
+        assertTrue(sql, sql.startsWith("WITH qb4j_get2014"));
+        assertEquals(sql, 2, sql.split(Pattern.quote(" AS (SELECT "), -1).length - 1);
+        // get2014FiscalYear() is used twice, but its filter value is bound once.
+        assertEquals(1, preparedSql.getParameters().size());
+        try (Connection conn = DriverManager.getConnection(properties.getProperty(Constants.DATABASE_URL));
+             Statement statement = conn.createStatement();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+            preparedSql.bind(preparedStatement);
+            assertEquals(countRows(statement.executeQuery(inlineSql)), countRows(preparedStatement.executeQuery()));
+        }
+    }
+
+    @Test
+    public void getCommonTableExpressionName_fitsOraclesLimitAndDependsOnTheWholeKey() throws Exception {
+        String name = SubQueryParser.getCommonTableExpressionName("getDepartmentsByMultipleYears", "getDepartmentsByMultipleYears(year1=2014;year2=2015)");
+
+        assertTrue(name, name.matches("qb4j_getDepar_[0-9a-f]{16}"));
+        assertEquals(30, name.length());
+        assertEquals(name, SubQueryParser.getCommonTableExpressionName("getDepartmentsByMultipleYears", "getDepartmentsByMultipleYears(year1=2014;year2=2015)"));
+        assertNotEquals(name, SubQueryParser.getCommonTableExpressionName("getDepartmentsByMultipleYears", "getDepartmentsByMultipleYears(year1=2014;year2=2016)"));
+        // "Aa" and "BB" have the same String.hashCode(), but not the same MurmurHash3.
+        assertNotEquals(SubQueryParser.getCommonTableExpressionName("t", "t(a=Aa)"), SubQueryParser.getCommonTableExpressionName("t", "t(a=BB)"));
+        assertTrue(SubQueryParser.getCommonTableExpressionName("get2014FiscalYear", "get2014FiscalYear()").length() <= 30);
+    }
+
+    private static int countRows(ResultSet resultSet) throws Exception {
+        int count = 0;
+        try (ResultSet rows = resultSet) {
+            while (rows.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.querybuilder4j.querytree;
+
+import com.querybuilder4j.statements.Conjunction;
+import com.querybuilder4j.statements.Criteria;
+import com.querybuilder4j.statements.DatabaseType;
+import com.querybuilder4j.statements.Operator;
+import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.utils.SelectStatementFactory;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static com.querybuilder4j.statements.Operator.equalTo;
+import static com.querybuilder4j.statements.Operator.in;
+import static org.junit.Assert.*;
+
+public class QueryTreeTest {
+
+    @Test
+    public void of_groupsChildCriteriaWithTheirParentWithoutChangingTheCriteria() throws Exception {
+        SelectStatement stmt = new SelectStatementFactory()
+                .select("county_spending_detail.service")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, "2017")
+                .or("county_spending_detail.fiscal_year", equalTo, "2018", 0)
+                .and("county_spending_detail.service", equalTo, "Police", null)
+                .getSelectStatement(DatabaseType.Sqlite);
+        Criteria parent = stmt.getCriteria().get(0);
+
+        QueryTree tree = QueryTree.of(stmt);
+
+        PredicateGroup where = tree.getWhere();
+        assertEquals(2, where.getTerms().size());
+        PredicateGroup group = (PredicateGroup) where.getTerms().get(0).getPredicate();
+        assertEquals(2, group.getTerms().size());
+        assertEquals(Conjunction.Or, group.getTerms().get(1).getConjunction());
+        assertEquals(Conjunction.And, where.getTerms().get(1).getConjunction());
+        assertTrue(parent.endParenthesis.isEmpty());
+    }
+
+    @Test
+    public void of_wrapsConditionsJoinedWithOrBeforeAddingTheSuppressNullsCondition() throws Exception {
+        SelectStatement stmt = new SelectStatementFactory()
+                .select("county_spending_detail.service")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, "2017")
+                .or("county_spending_detail.fiscal_year", equalTo, "2018", null)
+                .andSuppressNulls()
+                .getSelectStatement(DatabaseType.Sqlite);
+
+        PredicateGroup where = QueryTree.of(stmt).getWhere();
+
+        assertEquals(2, where.getTerms().size());
+        assertEquals(2, ((PredicateGroup) where.getTerms().get(0).getPredicate()).getTerms().size());
+        assertEquals(Conjunction.And, where.getTerms().get(1).getConjunction());
+    }
+
+    @Test
+    public void singleValueInPass_rewritesOnlyInListsWithOneValue() throws Exception {
+        SelectStatement stmt = new SelectStatementFactory()
+                .select("county_spending_detail.service")
+                .from("county_spending_detail")
+                .where("county_spending_detail.service", in, "Police")
+                .and("county_spending_detail.department", in, "Police,Fire", null)
+                .getSelectStatement(DatabaseType.Sqlite);
+
+        QueryTree tree = QueryTree.of(stmt).apply(Collections.singletonList(new SingleValueInPass()));
+
+        Condition first = (Condition) tree.getWhere().getTerms().get(0).getPredicate();
+        Condition second = (Condition) tree.getWhere().getTerms().get(1).getPredicate();
+        assertEquals(Operator.equalTo, first.getOperator());
+        assertEquals("Police", first.getFilter());
+        assertEquals(Operator.in, second.getOperator());
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.querybuilder4j.sqlbuilders;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class PreparedSqlTest {
+
+    @Test
+    public void parameterOf_parsesTheValuesThatValidationAccepts() throws Exception {
+        assertEquals(2017L, PreparedSql.Parameter.of(" 2017", Types.BIGINT).getValue());
+        assertEquals(10000L, PreparedSql.Parameter.of("1e4", Types.BIGINT).getValue());
+        assertEquals(new BigDecimal("1.50"), PreparedSql.Parameter.of("1.50", Types.DECIMAL).getValue());
+
+        assertInvalid("1.5", Types.BIGINT);
+        assertInvalid("abc", Types.DECIMAL);
+    }
+
+    @Test
+    public void bind_passesTheJdbcTypeOfNonCharacterColumns() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        new PreparedSql("SELECT * FROM t WHERE a = ? AND b = ? AND c = ?", Arrays.asList(
+                PreparedSql.Parameter.of("Police", Types.VARCHAR),
+                PreparedSql.Parameter.of("2020-01-01", Types.DATE),
+                PreparedSql.Parameter.of("1b4e28ba-2fa1-11d2-883f-0016d3cca427", Types.OTHER))).bind(preparedStatement);
+
+        verify(preparedStatement).setString(1, "Police");
+        verify(preparedStatement).setObject(2, "2020-01-01", Types.DATE);
+        verify(preparedStatement).setObject(3, "1b4e28ba-2fa1-11d2-883f-0016d3cca427", Types.OTHER);
+    }
+
+    private static void assertInvalid(String filter, int jdbcType) {
+        try {
+            PreparedSql.Parameter.of(filter, jdbcType);
+            fail(String.format("%s is not a valid value of JDBC type %s", filter, jdbcType));
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains(filter));
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.querybuilder4j.sqlbuilders;
+
+import com.google.gson.Gson;
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.databasemetadata.MetaDataCache;
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
+import com.querybuilder4j.statements.DatabaseType;
+import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.utils.SelectStatementFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.querybuilder4j.statements.Operator.equalTo;
+import static com.querybuilder4j.statements.Operator.in;
+import static org.junit.Assert.*;
+
+public class RenderedSqlCacheTest {
+    private RenderedSqlCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new RenderedSqlCache(2);
+    }
+
+    @Test
+    public void toSql_returnsCachedSqlForAnIdenticalStatement() throws Exception {
+        String sql = cache.toSql(buildStatement("2017"), TestUtils.getSqliteProperties());
+        SelectStatement stmt = buildStatement("2017");
+        String cachedSql = cache.toSql(stmt, TestUtils.getSqliteProperties());
+
+        assertSame(sql, cachedSql);
+        assertEquals(buildStatement("2017").toSql(TestUtils.getSqliteProperties()), cachedSql);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertNull(stmt.getDatabaseMetaData());
+    }
+
+    @Test
+    public void toSql_doesNotShareSqlBetweenValuesOrDatabaseTypes() throws Exception {
+        String sql = cache.toSql(buildStatement("2017"), TestUtils.getSqliteProperties());
+
+        assertNotEquals(sql, cache.toSql(buildStatement("2018"), TestUtils.getSqliteProperties()));
+        assertNotEquals(sql, cache.toSql(buildStatement("2017"), TestUtils.getSqliteProperties(DatabaseType.MySql)));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void toSql_buildsSqlAgainAfterTheSchemaVersionChanges() throws Exception {
+        cache.toSql(buildStatement("2017"), TestUtils.getSqliteProperties());
+        MetaDataCache.getInstance().invalidate(TestUtils.SQLITE_URL);
+        cache.toSql(buildStatement("2017"), TestUtils.getSqliteProperties());
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void toSql_doesNotReturnTheSqlOfAValidStatementForAPaddedColumn() throws Exception {
+        cache.toSql(buildStatement("2017"), TestUtils.getSqliteProperties());
+        SelectStatement paddedStmt = buildStatement("2017");
+        paddedStmt.getColumns().get(0).setFullyQualifiedName("county_spending_detail.service ");
+
+        try {
+            cache.toSql(paddedStmt, TestUtils.getSqliteProperties());
+            fail("The padded column is not a column of the table");
+        } catch (RuntimeException e) {
+            assertEquals(0, cache.getHitCount());
+        }
+    }
+
+    @Test
+    public void toSql_buildsStatementsThatCallQueryTemplatesWithTheSavedTemplate() throws Exception {
+        Map<String, SelectStatement> queryTemplates = new HashMap<>();
+        queryTemplates.put("getServices", buildStatement("2017"));
+        QueryTemplateDao queryTemplateDao = new QueryTemplateDao() {
+            @Override
+            public SelectStatement getQueryTemplateByName(String name) {
+                SelectStatement queryTemplate = queryTemplates.get(name);
+                return (queryTemplate == null) ? null : queryTemplate.copy();
+            }
+
+            @Override
+            public boolean save(String primaryKey, String json) {
+                queryTemplates.put(primaryKey, new Gson().fromJson(json, SelectStatement.class));
+                return true;
+            }
+
+            @Override
+            public List<String> getNames(Integer limit, Integer offset, boolean ascending) {
+                return new ArrayList<>(queryTemplates.keySet());
+            }
+        };
+
+        String sql = cache.toSql(buildSubQueryStatement(queryTemplateDao), TestUtils.getSqliteProperties());
+        queryTemplateDao.save("getServices", buildStatement("2018").toString());
+        String savedSql = cache.toSql(buildSubQueryStatement(queryTemplateDao), TestUtils.getSqliteProperties());
+
+        assertTrue(sql, sql.contains("2017"));
+        assertTrue(savedSql, savedSql.contains("2018"));
+        assertEquals(0, cache.size());
+    }
+
+    private SelectStatement buildSubQueryStatement(QueryTemplateDao queryTemplateDao) {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.amount")
+                .from("county_spending_detail")
+                .where("county_spending_detail.service", in, "$getServices()")
+                .setQueryTemplateDao(queryTemplateDao)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
+    private SelectStatement buildStatement(String fiscalYear) {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.service")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, fiscalYear)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.querybuilder4j.sqlbuilders;
+
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.parsers.SubQueryParser;
+import com.querybuilder4j.statements.DatabaseType;
+import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.utils.SelectStatementFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import static com.querybuilder4j.statements.Operator.equalTo;
+import static com.querybuilder4j.statements.Operator.in;
+import static com.querybuilder4j.statements.Operator.isNotNull;
+
+/**
+ * Measures the time and the bytes allocated per SqlRenderer.render() call for a typical statement, after its table
+ * schemas are loaded, and per SelectStatement.copy() call, which is made for every subquery call of a query template.
+ * This is not run by the unit tests.  Run it with:
+ *
+ *     mvn test-compile exec:java -Dexec.mainClass=com.querybuilder4j.sqlbuilders.SqlRendererBenchmark -Dexec.classpathScope=test
+ */
+public class SqlRendererBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 50_000;
+
+    private static final int MEASURED_ITERATIONS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        for (DatabaseType databaseType : new DatabaseType[] { DatabaseType.MySql, DatabaseType.PostgreSQL, DatabaseType.SqlServer }) {
+            Properties properties = TestUtils.getSqliteProperties(databaseType);
+
+            SelectStatement stmt = new SelectStatementFactory()
+                    .select("county_spending_detail.service", "county_spending_detail.department",
+                            "county_spending_detail.program", "county_spending_detail.amount")
+                    .from("county_spending_detail")
+                    .where("county_spending_detail.fiscal_year", equalTo, "2017")
+                    .and("county_spending_detail.service", in, "Police,Fire,Parks,Libraries", null)
+                    .or("county_spending_detail.program", isNotNull, null, null)
+                    .limit(100L)
+                    .offset(200L)
+                    .getSelectStatement(databaseType);
+            stmt.setOrderBy(true);
+            stmt.setSuppressNulls(true);
+
+            // Runs the structural steps and loads the table schemas, so that only rendering is measured below.
+            stmt.toSql(properties);
+
+            SqlRenderer renderer = SqlRenderer.of(databaseType);
+            SubQueryParser subQueryParser = new SubQueryParser(stmt);
+            run(renderer, stmt, subQueryParser, WARM_UP_ITERATIONS);
+
+            com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            long nanosBefore = System.nanoTime();
+
+            int totalLength = run(renderer, stmt, subQueryParser, MEASURED_ITERATIONS);
+
+            long nanos = System.nanoTime() - nanosBefore;
+            long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            System.out.println(String.format("%-10s %8d bytes/statement %8d ns/statement (%d chars)",
+                    databaseType, bytes / MEASURED_ITERATIONS, nanos / MEASURED_ITERATIONS, totalLength / MEASURED_ITERATIONS));
+        }
+
+        SelectStatement queryTemplate = new SelectStatementFactory()
+                .select("county_spending_detail.service")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, "@year")
+                .and("county_spending_detail.service", in, "Police,Fire,Parks,Libraries", null)
+                .getSelectStatement(DatabaseType.MySql);
+        copy(queryTemplate, WARM_UP_ITERATIONS);
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long nanosBefore = System.nanoTime();
+
+        copy(queryTemplate, MEASURED_ITERATIONS);
+
+        long nanos = System.nanoTime() - nanosBefore;
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        System.out.println(String.format("%-10s %8d bytes/copy      %8d ns/copy",
+                "copy()", bytes / MEASURED_ITERATIONS, nanos / MEASURED_ITERATIONS));
+    }
+
+    private static int copy(SelectStatement queryTemplate, int iterations) {
+        int totalColumns = 0;
+        for (int i=0; i<iterations; i++) {
+            totalColumns += queryTemplate.copy().getColumns().size();
+        }
+        return totalColumns;
+    }
+
+    private static int run(SqlRenderer renderer, SelectStatement stmt, SubQueryParser subQueryParser, int iterations) throws Exception {
+        int totalLength = 0;
+        for (int i=0; i<iterations; i++) {
+            totalLength += renderer.render(stmt, subQueryParser).length();
+        }
+        return totalLength;
+    }
+
+}
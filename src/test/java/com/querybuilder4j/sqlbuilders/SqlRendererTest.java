@@ -0,0 +1,296 @@
+package com.querybuilder4j.sqlbuilders;
+
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.databasemetadata.MetaDataCache;
+import com.querybuilder4j.statements.DatabaseType;
+import com.querybuilder4j.statements.KeysetCursor;
+import com.querybuilder4j.statements.SelectStatement;
+import com.querybuilder4j.utils.SelectStatementFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.querybuilder4j.statements.Operator.equalTo;
+import static com.querybuilder4j.statements.Operator.in;
+import static org.junit.Assert.*;
+
+public class SqlRendererTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void of_returnsTheSameRendererForEachCall() throws Exception {
+        assertSame(SqlRenderer.of(DatabaseType.MySql), SqlRenderer.of(DatabaseType.MySql));
+        assertEquals(SqlDialect.Pagination.OFFSET_FETCH, SqlRenderer.of(DatabaseType.SqlServer).getDialect().getPagination());
+    }
+
+    @Test
+    public void render_sqlServerAddsOrderByAndOffsetThatFetchRequires() throws Exception {
+        String sql = buildStatement(null).toSql(TestUtils.getSqliteProperties(DatabaseType.SqlServer));
+
+        assertEquals("SELECT [county_spending_detail].[service] FROM [county_spending_detail] " +
+                "WHERE [county_spending_detail].[fiscal_year] = 2017 ORDER BY (SELECT NULL) OFFSET 0 ROWS FETCH NEXT 10 ROWS ONLY", sql);
+    }
+
+    @Test
+    public void render_oracleWritesRowNumInWhereClauseOrAroundOrderedStatement() throws Exception {
+        String sql = buildStatement(null).toSql(TestUtils.getSqliteProperties(DatabaseType.Oracle));
+        assertEquals("SELECT \"county_spending_detail\".\"service\" FROM \"county_spending_detail\" " +
+                "WHERE \"county_spending_detail\".\"fiscal_year\" = 2017 AND ROWNUM <= 10", sql);
+
+        sql = buildStatement(5L).toSql(TestUtils.getSqliteProperties(DatabaseType.Oracle));
+        assertEquals("SELECT * FROM (SELECT \"county_spending_detail\".\"service\" FROM \"county_spending_detail\" " +
+                "WHERE \"county_spending_detail\".\"fiscal_year\" = 2017 OFFSET 5 ROWS) WHERE ROWNUM <= 10", sql);
+    }
+
+    @Test
+    public void render_oracleAppliesRowNumToEveryTermOfAnOrWhereClause() throws Exception {
+        SelectStatement stmt = new SelectStatementFactory()
+                .select("county_spending_detail.service")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, "2017")
+                .or("county_spending_detail.fiscal_year", equalTo, "2018", null)
+                .limit(10L)
+                .getSelectStatement(DatabaseType.Sqlite);
+        Properties properties = TestUtils.getSqliteProperties(DatabaseType.Oracle);
+
+        assertEquals("SELECT \"county_spending_detail\".\"service\" FROM \"county_spending_detail\" " +
+                "WHERE (\"county_spending_detail\".\"fiscal_year\" = 2017 OR \"county_spending_detail\".\"fiscal_year\" = 2018) " +
+                "AND ROWNUM <= 10", stmt.toSql(properties));
+        assertEquals("SELECT COUNT(*) FROM (SELECT \"county_spending_detail\".\"service\" AS \"qb4j_c1\" FROM \"county_spending_detail\" " +
+                "WHERE (\"county_spending_detail\".\"fiscal_year\" = 2017 OR \"county_spending_detail\".\"fiscal_year\" = 2018) " +
+                "AND ROWNUM <= 100) qb4j_count", stmt.compile(properties).toCountSql(Collections.emptyMap(), 100L));
+    }
+
+    @Test
+    public void renderCount_aliasesTheColumnsOfTheDerivedTableSoThatJoinedColumnsCanShareANameThatTheDatabaseCanRun() throws Exception {
+        SelectStatement stmt = new SelectStatementFactory()
+                .select("county_spending_detail.fiscal_year", "service_hierarchy.fiscal_year")
+                .distinct()
+                .from("county_spending_detail")
+                .innerJoin("service_hierarchy", Arrays.asList("county_spending_detail.fiscal_year"),
+                        Arrays.asList("service_hierarchy.fiscal_year"))
+                .getSelectStatement(DatabaseType.Sqlite);
+
+        String sql = stmt.compile(TestUtils.getSqliteProperties(DatabaseType.MySql))
+                .toCountSql(Collections.emptyMap(), null);
+
+        assertTrue(sql.startsWith("SELECT COUNT(*) FROM (SELECT DISTINCT `county_spending_detail`.`fiscal_year` AS `qb4j_c1`, " +
+                "`service_hierarchy`.`fiscal_year` AS `qb4j_c2` FROM "));
+        assertTrue(sql.endsWith(") qb4j_count"));
+        try (Connection conn = DriverManager.getConnection(TestUtils.SQLITE_URL);
+             Statement statement = conn.createStatement();
+             ResultSet count = statement.executeQuery(sql);
+             ResultSet rows = conn.createStatement().executeQuery("SELECT COUNT(*) FROM (SELECT DISTINCT c.fiscal_year " +
+                     "FROM county_spending_detail c JOIN service_hierarchy s ON c.fiscal_year = s.fiscal_year)")) {
+            assertEquals(rows.getLong(1), count.getLong(1));
+        }
+    }
+
+    @Test
+    public void render_isSafeToCallFromManyThreads() throws Exception {
+        Properties properties = TestUtils.getSqliteProperties(DatabaseType.PostgreSQL);
+        String expectedSql = buildStatement(5L).toSql(properties);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> tasks = new ArrayList<>();
+            for (int i=0; i<64; i++) {
+                tasks.add(() -> buildStatement(5L).toSql(properties));
+            }
+
+            for (Future<String> future : executorService.invokeAll(tasks)) {
+                assertEquals(expectedSql, future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void render_toAWriterMatchesToSqlForALargeInList() throws Exception {
+        String filter = buildFilter(20000);
+
+        Properties properties = TestUtils.getSqliteProperties(DatabaseType.MySql);
+        String expectedSql = buildInStatement(filter).toSql(properties);
+
+        StringWriter writer = new StringWriter();
+        buildInStatement(filter).toSql(properties, null, writer);
+
+        assertEquals(expectedSql, writer.toString());
+        assertTrue(expectedSql.contains("('Dept 0''s','Dept 1''s',"));
+    }
+
+    @Test
+    public void render_oracleSplitsInListsLongerThan1000ValuesIntoOredLists() throws Exception {
+        String sql = buildInStatement(buildFilter(2500)).toSql(TestUtils.getSqliteProperties(DatabaseType.Oracle));
+
+        assertEquals(3, sql.split(" IN \\(", -1).length - 1);
+        assertTrue(sql.contains("WHERE (\"county_spending_detail\".\"department\" IN ('Dept 0''s',"));
+        assertTrue(sql.contains("'Dept 999''s') OR \"county_spending_detail\".\"department\" IN ('Dept 1000''s',"));
+    }
+
+    @Test
+    public void render_writesValuesTableAboveTheThresholdThatTheDatabaseCanRun() throws Exception {
+        Properties properties = TestUtils.getSqliteProperties();
+        properties.setProperty(Constants.IN_LIST_VALUES_THRESHOLD, "2");
+
+        String sql = buildInStatement("Police,Fire,Parks").toSql(properties);
+
+        assertTrue(sql.endsWith("\"county_spending_detail\".\"department\" IN (VALUES ('Police'),('Fire'),('Parks'))"));
+        try (Connection conn = DriverManager.getConnection(properties.getProperty(Constants.DATABASE_URL));
+             Statement statement = conn.createStatement()) {
+            statement.executeQuery(sql).close();
+        }
+    }
+
+    @Test
+    public void renderPrepared_postgresBindsInListAsOneArray() throws Exception {
+        PreparedSql preparedSql = buildInStatement("Police,Fire")
+                .toPreparedSql(TestUtils.getSqliteProperties(DatabaseType.PostgreSQL));
+
+        assertTrue(preparedSql.getSql().endsWith("\"county_spending_detail\".\"department\" = ANY(?)"));
+        assertEquals(1, preparedSql.getParameters().size());
+        assertEquals(Types.ARRAY, preparedSql.getParameters().get(0).getJdbcType());
+        assertArrayEquals(new Object[] { "Police", "Fire" }, (Object[]) preparedSql.getParameters().get(0).getValue());
+    }
+
+    @Test
+    public void render_postgresTypesValuesAndArraysOfDateColumnsAndUsesInListsForUnknownTypes() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.DATABASE_URL, "jdbc:sqlite:" + temporaryFolder.newFile("payments.db").getAbsolutePath());
+        properties.setProperty(Constants.DATABASE_TYPE, DatabaseType.PostgreSQL.toString());
+        properties.setProperty(Constants.IN_LIST_VALUES_THRESHOLD, "2");
+        try (Connection conn = DriverManager.getConnection(properties.getProperty(Constants.DATABASE_URL));
+             Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE payments (paid_on date, payment_id text)");
+        }
+        Map<String, Integer> columnTypes = new HashMap<>();
+        columnTypes.put("paid_on", Types.DATE);
+        columnTypes.put("payment_id", Types.OTHER);
+        MetaDataCache.getInstance().put(properties.getProperty(Constants.DATABASE_URL), "payments", columnTypes);
+
+        String sql = buildPaymentsStatement("payments.paid_on", "20200101,20200102,20200103").toSql(properties);
+        assertTrue(sql.endsWith("\"payments\".\"paid_on\" IN (VALUES (CAST('20200101' AS date)),(CAST('20200102' AS date))," +
+                "(CAST('20200103' AS date)))"));
+
+        PreparedSql preparedSql = buildPaymentsStatement("payments.paid_on", "20200101,20200102").toPreparedSql(properties);
+        assertTrue(preparedSql.getSql().endsWith("\"payments\".\"paid_on\" = ANY(?)"));
+        assertEquals(Types.DATE, preparedSql.getParameters().get(0).getElementJdbcType());
+
+        String id = "1b4e28ba2fa111d2883f0016d3cca427";
+        sql = buildPaymentsStatement("payments.payment_id", id + "," + id + "," + id).toSql(properties);
+        assertTrue(sql.endsWith(String.format("\"payments\".\"payment_id\" IN ('%s','%s','%s')", id, id, id)));
+        preparedSql = buildPaymentsStatement("payments.payment_id", id + "," + id).toPreparedSql(properties);
+        assertTrue(preparedSql.getSql().endsWith("\"payments\".\"payment_id\" IN (?,?)"));
+    }
+
+    @Test
+    public void render_sqliteWritesKeysetAsRowValueComparisonThatTheDatabaseCanRun() throws Exception {
+        Properties properties = TestUtils.getSqliteProperties();
+        SelectStatement stmt = buildKeysetStatement(true);
+        stmt.setKeysetCursor(KeysetCursor.of(stmt, Arrays.asList("2017", "Police's")).toToken());
+
+        String sql = stmt.toSql(properties);
+
+        assertEquals("SELECT \"county_spending_detail\".\"fiscal_year\", \"county_spending_detail\".\"department\" " +
+                "FROM \"county_spending_detail\" " +
+                "WHERE (\"county_spending_detail\".\"fiscal_year\", \"county_spending_detail\".\"department\") > (2017, 'Police''s') " +
+                "ORDER BY \"county_spending_detail\".\"fiscal_year\", \"county_spending_detail\".\"department\" ASC LIMIT 10", sql);
+        try (Connection conn = DriverManager.getConnection(properties.getProperty(Constants.DATABASE_URL));
+             Statement statement = conn.createStatement()) {
+            statement.executeQuery(sql).close();
+        }
+    }
+
+    @Test
+    public void renderPrepared_sqlServerExpandsKeysetWithEachColumnsDirection() throws Exception {
+        SelectStatement stmt = buildKeysetStatement(false);
+        stmt.setKeysetValues(Arrays.asList("2017", "Police"));
+
+        PreparedSql preparedSql = stmt.toPreparedSql(TestUtils.getSqliteProperties(DatabaseType.SqlServer));
+
+        assertTrue(preparedSql.getSql().contains("FROM [county_spending_detail] " +
+                "WHERE ([county_spending_detail].[fiscal_year] >= ? AND ([county_spending_detail].[fiscal_year] > ? OR " +
+                "([county_spending_detail].[fiscal_year] = ? AND [county_spending_detail].[department] < ?))) ORDER BY"));
+        assertEquals(4, preparedSql.getParameters().size());
+        assertEquals("Police", preparedSql.getParameters().get(3).getValue());
+    }
+
+    @Test
+    public void toSql_rejectsKeysetValuesThatAreNotTheColumnsType() throws Exception {
+        SelectStatement stmt = buildKeysetStatement(true);
+        stmt.setKeysetValues(Arrays.asList("2017 OR 1=1", "Police"));
+
+        try {
+            stmt.toSql(TestUtils.getSqliteProperties());
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("keyset value"));
+        }
+    }
+
+    private SelectStatement buildKeysetStatement(boolean ascending) {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.fiscal_year", "county_spending_detail.department")
+                .from("county_spending_detail")
+                .orderBy(ascending)
+                .limit(10L)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
+    private String buildFilter(int size) {
+        StringBuilder filter = new StringBuilder();
+        for (int i=0; i<size; i++) {
+            filter.append((i == 0) ? "" : ",").append("Dept ").append(i).append("'s");
+        }
+        return filter.toString();
+    }
+
+    private SelectStatement buildInStatement(String filter) {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.service")
+                .from("county_spending_detail")
+                .where("county_spending_detail.department", in, filter)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
+    private SelectStatement buildPaymentsStatement(String column, String filter) {
+        return new SelectStatementFactory()
+                .select("payments.paid_on")
+                .from("payments")
+                .where(column, in, filter)
+                .getSelectStatement(DatabaseType.PostgreSQL);
+    }
+
+    private SelectStatement buildStatement(Long offset) {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.service")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, "2017")
+                .limit(10L)
+                .offset(offset)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.querybuilder4j.sqlbuilders;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SqlWriterTest {
+
+    @Test
+    public void appendQualifiedIdentifier_usesBeginningAndEndingDelimiters() throws Exception {
+        SqlWriter sql = new SqlWriter('[', ']');
+
+        sql.appendQualifiedIdentifier("employees.name");
+
+        assertEquals("[employees].[name]", sql.toString());
+    }
+
+    @Test
+    public void appendLiteral_escapesSingleQuotesOnce() throws Exception {
+        SqlWriter sql = new SqlWriter('"', '"');
+
+        sql.appendLiteral("Tiffany's");
+
+        assertEquals("'Tiffany''s'", sql.toString());
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.querybuilder4j.statements;
+
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.config.Constants;
+import com.querybuilder4j.sqlbuilders.PagedSql;
+import com.querybuilder4j.sqlbuilders.PreparedSql;
+import com.querybuilder4j.utils.SelectStatementFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static com.querybuilder4j.statements.Operator.equalTo;
+import static com.querybuilder4j.statements.Operator.in;
+import static org.junit.Assert.*;
+
+public class CompiledStatementTest {
+    private Properties properties;
+
+    @Before
+    public void setUp() throws Exception {
+        properties = TestUtils.getSqliteProperties();
+    }
+
+    @Test
+    public void toSql_matchesSelectStatementToSqlForEachArgument() throws Exception {
+        CompiledStatement compiledStatement = buildStatement().compile(properties);
+
+        assertEquals(Collections.singleton("year"), compiledStatement.getParameterNames());
+        for (String year : new String[] { "2016", "2017" }) {
+            SelectStatement stmt = buildStatement();
+            stmt.setCriteriaArguments(Collections.singletonMap("year", year));
+
+            assertEquals(stmt.toSql(properties), compiledStatement.toSql(Collections.singletonMap("year", year)));
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void toSql_rejectsArgumentThatIsNotANumberForANumberColumn() throws Exception {
+        buildStatement().compile(properties).toSql(Collections.singletonMap("year", "2017 OR 1=1"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void toSql_rejectsMissingArgument() throws Exception {
+        buildStatement().compile(properties).toSql(Collections.emptyMap());
+    }
+
+    @Test
+    public void toPreparedSql_usesTheSameSqlForEveryArgumentAndBindsTypedValues() throws Exception {
+        CompiledStatement compiledStatement = buildStatement().compile(properties);
+
+        PreparedSql preparedSql2016 = compiledStatement.toPreparedSql(Collections.singletonMap("year", "2016"));
+        PreparedSql preparedSql2017 = compiledStatement.toPreparedSql(Collections.singletonMap("year", "2017"));
+
+        assertEquals(preparedSql2016.getSql(), preparedSql2017.getSql());
+        assertEquals(Arrays.asList(
+                new PreparedSql.Parameter(2017, Types.INTEGER),
+                new PreparedSql.Parameter("Police", Types.VARCHAR),
+                new PreparedSql.Parameter("Fire", Types.VARCHAR)), preparedSql2017.getParameters());
+
+        try (Connection conn = DriverManager.getConnection(properties.getProperty(Constants.DATABASE_URL));
+             PreparedStatement ps = conn.prepareStatement(preparedSql2017.getSql())) {
+            preparedSql2017.bind(ps);
+            ps.executeQuery().close();
+        }
+    }
+
+    @Test
+    public void toPagedSql_countsEveryRowWithoutOrderByOrPagination() throws Exception {
+        SelectStatement stmt = buildStatement();
+        stmt.setOrderBy(true);
+        stmt.setLimit(1L);
+        stmt.setOffset(1L);
+        CompiledStatement compiledStatement = stmt.compile(properties);
+
+        PagedSql pagedSql = compiledStatement.toPagedSql(Collections.singletonMap("year", "2017"));
+        PagedSql cappedPagedSql = compiledStatement.toPagedSql(Collections.singletonMap("year", "2017"),
+                PagedSql.CountStrategy.WINDOW_FUNCTION, 1L);
+
+        assertEquals(compiledStatement.toSql(Collections.singletonMap("year", "2017")), pagedSql.getPageSql());
+        assertEquals("SELECT COUNT(*) FROM \"county_spending_detail\" " +
+                "WHERE \"county_spending_detail\".\"fiscal_year\" = 2017 " +
+                "AND \"county_spending_detail\".\"service\" IN ('Police','Fire')", pagedSql.getCountSql());
+        assertFalse(cappedPagedSql.hasWindowCount());
+        assertTrue(cappedPagedSql.getCountSql().endsWith(" LIMIT 1) qb4j_count"));
+        try (Connection conn = DriverManager.getConnection(properties.getProperty(Constants.DATABASE_URL));
+             Statement statement = conn.createStatement()) {
+            statement.executeQuery(pagedSql.getCountSql()).close();
+            try (ResultSet resultSet = statement.executeQuery(cappedPagedSql.getCountSql())) {
+                assertTrue(resultSet.next());
+                assertTrue(resultSet.getLong(1) <= 1);
+            }
+        }
+    }
+
+    @Test
+    public void toPagedSql_addsWindowCountColumnWhereTheDialectSupportsIt() throws Exception {
+        properties.setProperty(Constants.DATABASE_TYPE, "PostgreSQL");
+        SelectStatement stmt = buildStatement();
+        stmt.setLimit(10L);
+
+        PagedSql pagedSql = stmt.compile(properties).toPagedSql(Collections.singletonMap("year", "2017"),
+                PagedSql.CountStrategy.WINDOW_FUNCTION, null);
+
+        assertTrue(pagedSql.hasWindowCount());
+        assertNull(pagedSql.getCountSql());
+        assertTrue(pagedSql.getPageSql().startsWith("SELECT \"county_spending_detail\".\"service\", " +
+                "\"county_spending_detail\".\"fiscal_year\", COUNT(*) OVER() AS \"qb4j_total_count\" FROM"));
+        assertTrue(pagedSql.getPageSql().endsWith(" LIMIT 10"));
+    }
+
+    private SelectStatement buildStatement() {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.service", "county_spending_detail.fiscal_year")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, "@year")
+                .and("county_spending_detail.service", in, "Police,Fire", null)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
+}
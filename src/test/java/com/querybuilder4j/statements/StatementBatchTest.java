@@ -0,0 +1,117 @@
+package com.querybuilder4j.statements;
+
+import com.querybuilder4j.QueryTemplateDaoImpl;
+import com.querybuilder4j.TestUtils;
+import com.querybuilder4j.databasemetadata.QueryTemplateDao;
+import com.querybuilder4j.utils.SelectStatementFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.querybuilder4j.statements.Operator.equalTo;
+import static com.querybuilder4j.statements.Operator.in;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StatementBatchTest {
+    private Properties properties;
+
+    @Before
+    public void setUp() throws Exception {
+        properties = TestUtils.getSqliteProperties();
+    }
+
+    @Test
+    public void toSql_buildsEachStatementLikeToSqlAndReportsErrorsPerStatement() throws Exception {
+        QueryTemplateDao queryTemplateDao = new QueryTemplateDaoImpl(properties);
+        SelectStatement stmt2014 = buildSubQueryStatement("2014", queryTemplateDao);
+        SelectStatement invalidStmt = new SelectStatementFactory()
+                .select("county_spending_detail.not_a_column")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, "2017")
+                .getSelectStatement(DatabaseType.Sqlite);
+        SelectStatement stmt2017 = buildSubQueryStatement("2017", queryTemplateDao);
+
+        List<StatementBatch.Result> results = StatementBatch.toSql(Arrays.asList(stmt2014, invalidStmt, stmt2017), properties);
+
+        assertEquals(3, results.size());
+        assertEquals(buildSubQueryStatement("2014", new QueryTemplateDaoImpl(properties)).toSql(properties), results.get(0).getSql());
+        assertFalse(results.get(1).isSuccess());
+        assertNull(results.get(1).getSql());
+        assertEquals(buildSubQueryStatement("2017", new QueryTemplateDaoImpl(properties)).toSql(properties), results.get(2).getSql());
+        assertSame(queryTemplateDao, stmt2017.getQueryTemplateDao());
+    }
+
+    @Test
+    public void toSql_fetchesEachLevelOfQueryTemplatesWithOneCallIncludingTemplatesThatTemplatesCall() throws Exception {
+        Map<String, SelectStatement> queryTemplates = new HashMap<>();
+        queryTemplates.put("getPoliceServices", new SelectStatementFactory()
+                .select("service_hierarchy.service")
+                .from("service_hierarchy")
+                .where("service_hierarchy.service", equalTo, "Police")
+                .getSelectStatement(DatabaseType.Sqlite));
+        queryTemplates.put("getPoliceDepartments", new SelectStatementFactory()
+                .select("county_spending_detail.department")
+                .from("county_spending_detail")
+                .where("county_spending_detail.service", in, "$getPoliceServices()")
+                .getSelectStatement(DatabaseType.Sqlite));
+        queryTemplates.put("get2017FiscalYear", new SelectStatementFactory()
+                .select("county_spending_detail.fiscal_year")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, "2017")
+                .getSelectStatement(DatabaseType.Sqlite));
+        QueryTemplateDao queryTemplateDao = mock(QueryTemplateDao.class);
+        List<List<String>> fetchedNames = new ArrayList<>();
+        when(queryTemplateDao.getQueryTemplatesByNames(anyCollectionOf(String.class))).thenAnswer(invocation -> {
+            Collection<String> names = (Collection<String>) invocation.getArguments()[0];
+            fetchedNames.add(new ArrayList<>(names));
+            Map<String, SelectStatement> found = new HashMap<>();
+            names.forEach(name -> found.put(name, queryTemplates.get(name).copy()));
+            return found;
+        });
+        SelectStatement departmentsStmt = new SelectStatementFactory()
+                .select("county_spending_detail.amount")
+                .from("county_spending_detail")
+                .where("county_spending_detail.department", in, "$getPoliceDepartments()")
+                .setQueryTemplateDao(queryTemplateDao)
+                .getSelectStatement(DatabaseType.Sqlite);
+        SelectStatement yearStmt = new SelectStatementFactory()
+                .select("county_spending_detail.amount")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", in, "$get2017FiscalYear()")
+                .setQueryTemplateDao(queryTemplateDao)
+                .getSelectStatement(DatabaseType.Sqlite);
+
+        List<StatementBatch.Result> results = StatementBatch.toSql(Arrays.asList(departmentsStmt, yearStmt), properties);
+
+        assertTrue(results.get(0).toString(), results.get(0).isSuccess());
+        assertTrue(results.get(1).toString(), results.get(1).isSuccess());
+        assertTrue(results.get(0).getSql().contains("service_hierarchy"));
+        assertEquals(Arrays.asList(Arrays.asList("getPoliceDepartments", "get2017FiscalYear"),
+                Collections.singletonList("getPoliceServices")), fetchedNames);
+        verify(queryTemplateDao, never()).getQueryTemplateByName(anyString());
+    }
+
+    private SelectStatement buildSubQueryStatement(String year, QueryTemplateDao queryTemplateDao) {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.amount")
+                .from("county_spending_detail")
+                .where("county_spending_detail.department", in, "$getDepartmentsByYear(year=" + year + ")")
+                .setQueryTemplateDao(queryTemplateDao)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
+}
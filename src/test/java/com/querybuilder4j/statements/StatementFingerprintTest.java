@@ -0,0 +1,81 @@
+package com.querybuilder4j.statements;
+
+import com.querybuilder4j.utils.SelectStatementFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.querybuilder4j.statements.Operator.equalTo;
+import static com.querybuilder4j.statements.Operator.in;
+import static org.junit.Assert.*;
+
+public class StatementFingerprintTest {
+
+    @Test
+    public void of_isTheSameForStatementsBuiltInADifferentOrder() throws Exception {
+        SelectStatement stmt1 = buildStatement("2017", "Police,Fire");
+        SelectStatement stmt2 = buildStatement("2017", "Police,Fire");
+
+        Map<String, String> subQueries1 = new LinkedHashMap<>();
+        subQueries1.put("$a", "getA()");
+        subQueries1.put("$b", "getB(year=2017)");
+        stmt1.setSubQueries(subQueries1);
+        Map<String, String> subQueries2 = new LinkedHashMap<>();
+        subQueries2.put("$b", "getB(year=2017)");
+        subQueries2.put("$a", "getA()");
+        stmt2.setSubQueries(subQueries2);
+
+        // Reverse the criteria, which are sorted by id.
+        stmt2.setCriteria(Arrays.asList(stmt2.getCriteria().get(1), stmt2.getCriteria().get(0)));
+
+        assertEquals(StatementFingerprint.of(stmt1), StatementFingerprint.of(stmt2));
+        assertEquals(32, StatementFingerprint.of(stmt1).toString().length());
+    }
+
+    @Test
+    public void of_onlyIgnoresLiteralsIfAsked() throws Exception {
+        SelectStatement stmt1 = buildStatement("2017", "Police,Fire");
+        SelectStatement stmt2 = buildStatement("2016", "Police,Fire,Parks");
+
+        assertNotEquals(StatementFingerprint.of(stmt1), StatementFingerprint.of(stmt2));
+        assertEquals(StatementFingerprint.of(stmt1, false), StatementFingerprint.of(stmt2, false));
+    }
+
+    @Test
+    public void of_differsForStructuralChanges() throws Exception {
+        SelectStatement stmt1 = buildStatement("2017", "Police,Fire");
+        SelectStatement stmt2 = buildStatement("2017", "Police,Fire");
+        stmt2.setDistinct(true);
+        SelectStatement stmt3 = buildStatement("@year", "Police,Fire");
+
+        assertNotEquals(StatementFingerprint.of(stmt1, false), StatementFingerprint.of(stmt2, false));
+        assertNotEquals(StatementFingerprint.of(stmt1, false), StatementFingerprint.of(stmt3, false));
+    }
+
+    @Test
+    public void of_differsForIdentifiersThatAreRenderedDifferently() throws Exception {
+        SelectStatement stmt1 = buildStatement("2017", "Police,Fire");
+        SelectStatement stmt2 = buildStatement("2017", "Police,Fire");
+        stmt2.getColumns().get(0).setFullyQualifiedName("county_spending_detail.service ");
+        SelectStatement stmt3 = buildStatement("2017", "Police,Fire");
+        stmt3.getCriteria().get(1).column = " county_spending_detail.service";
+        SelectStatement stmt4 = buildStatement("2017", "Police,Fire");
+        stmt4.getColumns().get(0).setFullyQualifiedName("county_spending_detail.Service");
+
+        assertNotEquals(StatementFingerprint.of(stmt1), StatementFingerprint.of(stmt2));
+        assertNotEquals(StatementFingerprint.of(stmt1), StatementFingerprint.of(stmt3));
+        assertNotEquals(StatementFingerprint.of(stmt1), StatementFingerprint.of(stmt4));
+    }
+
+    private SelectStatement buildStatement(String year, String services) {
+        return new SelectStatementFactory()
+                .select("county_spending_detail.service", "county_spending_detail.fiscal_year")
+                .from("county_spending_detail")
+                .where("county_spending_detail.fiscal_year", equalTo, year)
+                .and("county_spending_detail.service", in, services, null)
+                .getSelectStatement(DatabaseType.Sqlite);
+    }
+
+}
@@ -7,6 +7,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
+
 import static com.querybuilder4j.statements.Operator.in;
 import static org.junit.Assert.*;
 
@@ -147,4 +149,47 @@ public class StatementTest {
         assertEquals(stmt.getSubQueries().get("$2"), "get_services_in_years(year1=$1; 2018)");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void copy_copiesEveryFieldWithoutSharingTheMutableParts() throws Exception {
+        QueryTemplateDao queryTemplateDao = Mockito.mock(QueryTemplateDao.class);
+        SelectStatement stmt = new SelectStatementFactory()
+                .select("county_spending_detail.service", "service_hierarchy.service_owner")
+                .from("county_spending_detail")
+                .innerJoin("service_hierarchy", Arrays.asList("county_spending_detail.service"),
+                        Arrays.asList("service_hierarchy.service"))
+                .where("county_spending_detail.fiscal_year", in, "@year")
+                .limit(10L)
+                .offset(20L)
+                .setQueryTemplateDao(queryTemplateDao)
+                .getSelectStatement(DatabaseType.Sqlite);
+        stmt.setName("services");
+        stmt.setOrderBy(true);
+        stmt.setKeysetValues(Arrays.asList("Police", "Jane"));
+        stmt.getCriteriaArguments().put("year", "2017");
+        CriteriaParameter criteriaParameter = new CriteriaParameter();
+        criteriaParameter.setName("year");
+        criteriaParameter.setColumn("county_spending_detail.fiscal_year");
+        stmt.getCriteriaParameters().add(criteriaParameter);
+
+        SelectStatement copy = stmt.copy();
+
+        assertEquals(stmt.toString(), copy.toString());
+        assertSame(queryTemplateDao, copy.getQueryTemplateDao());
+
+        copy.getColumns().get(0).setAlias("svc");
+        copy.getCriteria().get(0).filter = "2018";
+        copy.getCriteria().get(0).endParenthesis.add(Parenthesis.EndParenthesis);
+        copy.getJoins().get(0).getParentJoinColumns().add("county_spending_detail.fiscal_year");
+        copy.getKeysetValues().set(0, "Fire");
+        copy.getCriteriaArguments().put("year", "2018");
+        copy.getCriteriaParameters().get(0).setName("fiscal_year");
+        assertEquals("", stmt.getColumns().get(0).getAlias());
+        assertEquals("@year", stmt.getCriteria().get(0).filter);
+        assertTrue(stmt.getCriteria().get(0).endParenthesis.isEmpty());
+        assertEquals(1, stmt.getJoins().get(0).getParentJoinColumns().size());
+        assertEquals("Police", stmt.getKeysetValues().get(0));
+        assertEquals("2017", stmt.getCriteriaArguments().get("year"));
+        assertEquals("year", stmt.getCriteriaParameters().get(0).getName());
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.querybuilder4j.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BackgroundExecutorTest {
+
+    @Test
+    public void forEachBounded_worksOnEveryItemWithAtMostMaxConcurrencyAtOneTime() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i=0; i<50; i++) {
+            items.add(i);
+        }
+        Set<Integer> doneItems = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        AtomicInteger runningItems = new AtomicInteger();
+        AtomicInteger maxRunningItems = new AtomicInteger();
+
+        BackgroundExecutor.forEachBounded(items, 3, item -> {
+            maxRunningItems.accumulateAndGet(runningItems.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            runningItems.decrementAndGet();
+            doneItems.add(item);
+        }).join();
+
+        assertEquals(items.size(), doneItems.size());
+        assertTrue(maxRunningItems.get() <= 3);
+        assertTrue(maxRunningItems.get() >= 1);
+    }
+
+    @Test
+    public void forEachBounded_completesImmediatelyWithoutItems() throws Exception {
+        CompletableFuture<Void> future = BackgroundExecutor.forEachBounded(Collections.<Integer>emptyList(), 3, item -> fail());
+
+        assertTrue(future.isDone());
+        future.join();
+    }
+
+    @Test
+    public void forEachBounded_completesExceptionallyWithTheActionsException() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i=0; i<10; i++) {
+            items.add(i);
+        }
+
+        try {
+            BackgroundExecutor.forEachBounded(items, 2, item -> {
+                if (item == 5) {
+                    throw new IllegalStateException("Item 5 failed");
+                }
+            }).join();
+            fail("The future should complete exceptionally");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("Item 5 failed", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void forEachBoundedAndWait_worksOnEveryItemAndRethrowsTheFirstException() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i=0; i<20; i++) {
+            items.add(i);
+        }
+        Set<Integer> doneItems = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        BackgroundExecutor.forEachBoundedAndWait(items, 4, doneItems::add);
+        assertEquals(items.size(), doneItems.size());
+
+        try {
+            BackgroundExecutor.forEachBoundedAndWait(items, 4, item -> {
+                throw new IllegalStateException("Failed");
+            });
+            fail("The exception should be rethrown");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+}
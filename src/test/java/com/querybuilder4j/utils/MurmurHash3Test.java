@@ -0,0 +1,26 @@
+package com.querybuilder4j.utils;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MurmurHash3Test {
+
+    @Test
+    public void hash_matchesReferenceImplementation() throws Exception {
+        assertArrayEquals(new long[] { 0xcbd8a7b341bd9b02L, 0x5b1e906a48ae1d19L }, hash("hello"));
+        assertArrayEquals(new long[] { 0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L },
+                hash("The quick brown fox jumps over the lazy dog"));
+    }
+
+    private long[] hash(String s) {
+        MurmurHash3 hash = new MurmurHash3();
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            hash.putByte(b);
+        }
+        return hash.hash();
+    }
+
+}